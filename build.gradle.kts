@@ -5,6 +5,7 @@ plugins {
     id("idea")
     id("java-library")
     id("maven-publish")
+    id("me.champeau.jmh") version "0.6.6"
 }
 
 // Required for Gradle 7.x and JitPack
@@ -65,6 +66,53 @@ sourceSets.create("integrationTest") {
     }
 }
 
+// Compares the bounded platform thread pool and virtual threads, run with -Pjava21 -PjmhJava21 to benchmark on Java 21
+jmh {
+    if (project.hasProperty("jmhJava21")) {
+        jvm.set(javaToolchains.launcherFor { languageVersion.set(JavaLanguageVersion.of(21)) }.map { it.executablePath.asFile.absolutePath })
+    }
+}
+
+// The Java 21 classes need a Java 21 toolchain, which Gradle 7.4.1 can't detect or provision on its own, so they are
+//   only built with -Pjava21. Without it the jar only has the Java 8 classes and always uses platform threads.
+if (project.hasProperty("java21")) {
+    // Classes in this source set replace their Java 8 versions when the jar is loaded on Java 21+
+    val java21SourceSet = sourceSets.create("java21") {
+        java {
+            compileClasspath += sourceSets.main.get().compileClasspath
+            srcDir(file("src/main/java21"))
+        }
+    }
+
+    tasks.named<JavaCompile>(java21SourceSet.compileJavaTaskName) {
+        javaCompiler.set(javaToolchains.compilerFor { languageVersion.set(JavaLanguageVersion.of(21)) })
+        options.release.set(21)
+    }
+
+    tasks.jar {
+        into("META-INF/versions/21") { from(java21SourceSet.output) }
+        manifest { attributes("Multi-Release" to "true") }
+    }
+
+    tasks.named<Jar>("jmhJar") {
+        into("META-INF/versions/21") { from(java21SourceSet.output) }
+        manifest { attributes("Multi-Release" to "true") }
+    }
+
+    // The multi-release jar replaces the main classes so the tests exercise the versions in META-INF/versions/21
+    val java21TestTask = tasks.register("java21Test", Test::class) {
+        description = "Runs the unit tests on Java 21 against the multi-release jar."
+        group = "verification"
+        javaLauncher.set(javaToolchains.launcherFor { languageVersion.set(JavaLanguageVersion.of(21)) })
+        testClassesDirs = sourceSets.test.get().output.classesDirs
+        classpath = files(tasks.jar) + sourceSets.test.get().runtimeClasspath - sourceSets.main.get().output
+        systemProperty("expectVirtualThreads", "true")
+        mustRunAfter(tasks.test)
+    }
+
+    tasks.check { dependsOn(java21TestTask) }
+}
+
 configurations.getByName("integrationTestImplementation") { extendsFrom(configurations.testImplementation.get()) }
 configurations.getByName("integrationTestApi") { extendsFrom(configurations.testApi.get()) }
 
@@ -94,6 +142,11 @@ val mockitoVersion = "4.6.1"
 val bouncyCastleVersion = "1.70"
 val jodahFailsafeVersion = "2.4.4"
 val gsonVersion = "2.9.0"
+// Must stay compatible with the Kotlin plugin version
+val kotlinxCoroutinesVersion = "1.6.0"
+val jmhVersion = "1.35"
+val pahoVersion = "1.2.5"
+val moquetteVersion = "0.15"
 
 configurations.all {
     // Check for updates on changing dependencies at most every 10 minutes
@@ -142,6 +195,16 @@ dependencies {
     api("software.amazon.awssdk:cloudformation:$awsSdk2Version")
     api("software.amazon.awssdk:dynamodb:$awsSdk2Version")
     api("software.amazon.awssdk:apache-client:$awsSdk2Version")
+    // For the async clients
+    api("software.amazon.awssdk:netty-nio-client:$awsSdk2Version")
+
+    // For the coroutine Flow adapters
+    api("org.jetbrains.kotlinx:kotlinx-coroutines-core:$kotlinxCoroutinesVersion")
+    implementation("org.jetbrains.kotlinx:kotlinx-coroutines-jdk8:$kotlinxCoroutinesVersion")
+    implementation("org.jetbrains.kotlinx:kotlinx-coroutines-reactive:$kotlinxCoroutinesVersion")
+
+    // For the MQTT publish transport
+    implementation("org.eclipse.paho:org.eclipse.paho.client.mqttv3:$pahoVersion")
 
     // For certificate based authentication
     implementation("org.bouncycastle:bcprov-jdk15on:$bouncyCastleVersion")
@@ -152,6 +215,9 @@ dependencies {
     // For GreengrassV2 ComponentRecipe class
     api("com.github.aws-greengrass:aws-greengrass-component-common:main-SNAPSHOT") { isChanging = true }
 
+    jmh("org.openjdk.jmh:jmh-core:$jmhVersion")
+    jmh("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+
     testImplementation("junit:junit:$junitVersion")
     testImplementation("software.amazon.awssdk:iot:$awsSdk2Version")
     testImplementation("software.amazon.awssdk:s3:$awsSdk2Version")
@@ -160,5 +226,7 @@ dependencies {
     testImplementation("org.hamcrest:hamcrest-core:$hamcrestVersion")
     testImplementation("org.mockito:mockito-core:$mockitoVersion")
     testImplementation("net.jodah:failsafe:$jodahFailsafeVersion")
+    // Embedded MQTT broker for the MQTT publish transport tests
+    testImplementation("io.moquette:moquette-broker:$moquetteVersion")
 }
 
@@ -0,0 +1,110 @@
+package com.awslabs.dynamodb.implementations;
+
+import com.awslabs.dynamodb.data.*;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+// Runs against DynamoDB Local, e.g. "docker run -p 8000:8000 amazon/dynamodb-local"
+public class BasicLeaseCoordinatorTests {
+    private static final String DYNAMODB_LOCAL_ENDPOINT = "DYNAMODB_LOCAL_ENDPOINT";
+    private static final String DEFAULT_DYNAMODB_LOCAL_ENDPOINT = "http://localhost:8000";
+    private static final Duration SHORT_LEASE_DURATION = Duration.ofSeconds(1);
+    private DynamoDbClient dynamoDbClient;
+    private BasicLeaseCoordinator leaseCoordinator;
+    private TableName tableName;
+
+    @Before
+    public void setup() {
+        String endpoint = Option.of(System.getenv(DYNAMODB_LOCAL_ENDPOINT)).getOrElse(DEFAULT_DYNAMODB_LOCAL_ENDPOINT);
+
+        // DynamoDB Local accepts any credentials and region
+        dynamoDbClient = DynamoDbClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("local", "local")))
+                .build();
+
+        leaseCoordinator = new BasicLeaseCoordinator();
+        leaseCoordinator.dynamoDbClient = dynamoDbClient;
+
+        tableName = ImmutableTableName.builder().tableName(String.join("-", "leases", UUID.randomUUID().toString())).build();
+        leaseCoordinator.createLeaseTable(tableName);
+    }
+
+    @After
+    public void tearDown() {
+        Try.run(() -> dynamoDbClient.deleteTable(DeleteTableRequest.builder().tableName(tableName.getTableName()).build()));
+        dynamoDbClient.close();
+    }
+
+    @Test
+    public void shouldProcessEveryShardExactlyOnceAcrossWorkers() {
+        List<ShardId> shardIds = Stream.range(0, 20)
+                .map(index -> (ShardId) ImmutableShardId.builder().shardId(String.valueOf(index)).build())
+                .toList();
+        leaseCoordinator.registerShards(tableName, shardIds);
+
+        Map<String, Integer> processCounts = new ConcurrentHashMap<>();
+
+        List<CompletableFuture<Integer>> workers = Stream.range(0, 3)
+                .map(index -> ImmutableWorkerId.builder().workerId(String.join("-", "worker", String.valueOf(index))).build())
+                .map(workerId -> CompletableFuture.supplyAsync(() -> leaseCoordinator.processShards(tableName, workerId,
+                        (shardId, checkpoint, checkpointer) -> processCounts.merge(shardId.getShardId(), 1, Integer::sum))))
+                .toList();
+
+        int completed = workers.map(CompletableFuture::join).sum().intValue();
+
+        assertThat(completed, is(shardIds.size()));
+        assertThat(processCounts.size(), is(shardIds.size()));
+        assertThat(Stream.ofAll(processCounts.values()).forAll(count -> count == 1), is(true));
+        assertThat(leaseCoordinator.getLeases(tableName).forAll(Lease::isComplete), is(true));
+    }
+
+    @Test
+    public void shouldResumeFromTheCheckpointWhenAWorkerDies() throws InterruptedException {
+        ShardId shardId = ImmutableShardId.builder().shardId("0").build();
+        leaseCoordinator.registerShards(tableName, List.of(shardId));
+
+        WorkerId deadWorkerId = ImmutableWorkerId.builder().workerId("dead-worker").build();
+        Lease lease = leaseCoordinator.tryAcquire(tableName, deadWorkerId, shardId, SHORT_LEASE_DURATION).get();
+        leaseCoordinator.checkpoint(lease, "42", SHORT_LEASE_DURATION).get();
+
+        WorkerId liveWorkerId = ImmutableWorkerId.builder().workerId("live-worker").build();
+
+        // The dead worker's lease hasn't expired yet so there is nothing for the live worker to do
+        assertThat(leaseCoordinator.tryAcquire(tableName, liveWorkerId, shardId, SHORT_LEASE_DURATION).isDefined(), is(false));
+
+        // The dead worker stops renewing, the live worker takes over once the lease expires
+        Thread.sleep(SHORT_LEASE_DURATION.multipliedBy(2).toMillis());
+
+        AtomicReference<Option<String>> resumedFrom = new AtomicReference<>(Option.none());
+        int completed = leaseCoordinator.processShards(tableName, liveWorkerId, (resumedShardId, checkpoint, checkpointer) -> resumedFrom.set(checkpoint));
+
+        assertThat(completed, is(1));
+        assertThat(resumedFrom.get(), is(Option.some("42")));
+
+        // The dead worker can no longer write checkpoints
+        assertThat(leaseCoordinator.checkpoint(lease, "43", SHORT_LEASE_DURATION).isFailure(), is(true));
+    }
+}
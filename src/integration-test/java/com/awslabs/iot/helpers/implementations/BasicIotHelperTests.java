@@ -201,11 +201,11 @@ public class BasicIotHelperTests {
     }
 
     private java.security.KeyPair getRandomRsaKeyPair() {
-        return new BasicIotHelper().getRandomRsaKeypair(RSA_KEY_SIZE);
+        return iotHelper.getRandomRsaKeypair(RSA_KEY_SIZE);
     }
 
     private java.security.KeyPair getRandomEcKeyPair() {
-        return new BasicIotHelper().getRandomEcKeypair(EC_KEY_SIZE);
+        return iotHelper.getRandomEcKeypair(EC_KEY_SIZE);
     }
 
     @Test
@@ -0,0 +1,82 @@
+package com.awslabs.general.helpers.implementations;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Simulates a fan-out of blocking SDK calls. "blocking" uses virtual threads on Java 21+ and the bounded pool on
+// Java 8, so comparing the two executors is only meaningful when this is run with -Pjava21 -PjmhJava21.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class BlockingExecutorBenchmark {
+    private static final int MAX_PLATFORM_THREADS = 32;
+    private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    @Param({"bounded", "blocking"})
+    public String executorType;
+
+    // Number of concurrent "requests" per operation, e.g. regions times accounts
+    @Param({"32", "1000"})
+    public int tasks;
+
+    // Simulated SDK call latency
+    @Param({"20"})
+    public long latencyMs;
+
+    private ExecutorService executorService;
+
+    // Reported as secondary results next to the throughput
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ThreadCounters {
+        public long peakPlatformThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            threadMXBean.resetPeakThreadCount();
+        }
+
+        @TearDown(Level.Iteration)
+        public void record() {
+            peakPlatformThreads = threadMXBean.getPeakThreadCount();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executorService = "bounded".equals(executorType) ?
+                ExecutorHelper.newDaemonExecutor("benchmark-bounded", MAX_PLATFORM_THREADS) :
+                ExecutorHelper.newBlockingExecutor("benchmark-blocking", MAX_PLATFORM_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public void fanOut(ThreadCounters threadCounters) {
+        CompletableFuture<?>[] futures = IntStream.range(0, tasks)
+                .mapToObj(task -> CompletableFuture.runAsync(this::blockingCall, executorService))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(futures).join();
+    }
+
+    private void blockingCall() {
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.KeyPairPoolMetrics;
+import com.awslabs.iot.data.KeyPairSpec;
+import com.awslabs.iot.helpers.interfaces.KeyPairPool;
+import com.awslabs.resultsiterator.implementations.BasicCryptoContext;
+import com.awslabs.resultsiterator.interfaces.CryptoContext;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Try;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
+import org.bouncycastle.jce.spec.ECNamedCurveSpec;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.*;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+// Compares the shared crypto context with the previous behavior of building a provider, converter or curve spec on
+// every call. Key pairs are fixed so only the signing and conversion work is measured, not key generation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class CertificateGenerationBenchmark {
+    private static final List<Tuple2<String, String>> SIGNER_NAME = List.of(Tuple.of("CN", "signer"));
+    private static final List<Tuple2<String, String>> CERTIFICATE_NAME = List.of(Tuple.of("CN", "device"));
+
+    @Param({"uncached", "cached"})
+    public String cryptoContextType;
+
+    private BasicIotHelper iotHelper;
+    private KeyPair keyPair;
+    private String csrPem;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Security.addProvider(new BouncyCastleProvider());
+
+        CryptoContext cryptoContext = "cached".equals(cryptoContextType) ? new BasicCryptoContext() : new UncachedCryptoContext();
+
+        keyPair = Try.of(() -> {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(BasicIotHelper.EC, BasicIotHelper.BC);
+            keyPairGenerator.initialize(BasicIotHelper.EC_KEY_SIZE);
+            return keyPairGenerator.generateKeyPair();
+        }).get();
+
+        iotHelper = new BasicIotHelper();
+        iotHelper.cryptoContext = cryptoContext;
+        iotHelper.keyPairPool = new FixedKeyPairPool(keyPair);
+
+        csrPem = iotHelper.toPem(iotHelper.generateCertificateSigningRequest(keyPair, CERTIFICATE_NAME));
+    }
+
+    @Benchmark
+    public PKCS10CertificationRequest generateCertificateSigningRequest() {
+        return iotHelper.generateCertificateSigningRequest(keyPair, CERTIFICATE_NAME);
+    }
+
+    @Benchmark
+    public X509Certificate generateX509Certificate() {
+        return iotHelper.generateX509Certificate(keyPair.getPublic(), SIGNER_NAME, CERTIFICATE_NAME);
+    }
+
+    @Benchmark
+    public PublicKey getPublicKeyFromCsrPem() {
+        return iotHelper.getPublicKeyFromCsrPem(csrPem);
+    }
+
+    // What BasicIotHelper did before the crypto context existed
+    private static class UncachedCryptoContext implements CryptoContext {
+        @Override
+        public Provider getProvider() {
+            return new BouncyCastleProvider();
+        }
+
+        @Override
+        public JcaPEMKeyConverter getPemKeyConverter() {
+            return new JcaPEMKeyConverter().setProvider(BouncyCastleProvider.PROVIDER_NAME);
+        }
+
+        @Override
+        public JcaX509CertificateConverter getCertificateConverter() {
+            return new JcaX509CertificateConverter().setProvider(getProvider());
+        }
+
+        @Override
+        public ECNamedCurveSpec getNamedCurveSpec(String curveName) {
+            ECNamedCurveParameterSpec spec = ECNamedCurveTable.getParameterSpec(curveName);
+            return new ECNamedCurveSpec(curveName, spec.getCurve(), spec.getG(), spec.getN());
+        }
+
+        @Override
+        public KeyFactory getKeyFactory(String algorithm) {
+            return Try.of(() -> KeyFactory.getInstance(algorithm, BasicIotHelper.BC)).get();
+        }
+
+        @Override
+        public MessageDigest getMessageDigest(String algorithm) {
+            return Try.of(() -> MessageDigest.getInstance(algorithm)).get();
+        }
+
+        @Override
+        public ContentSigner getContentSigner(String signatureAlgorithm, PrivateKey privateKey) {
+            return Try.of(() -> new JcaContentSignerBuilder(signatureAlgorithm)
+                    .setProvider(getProvider())
+                    .build(privateKey)).get();
+        }
+    }
+
+    private static class FixedKeyPairPool implements KeyPairPool {
+        private final KeyPair keyPair;
+
+        private FixedKeyPairPool(KeyPair keyPair) {
+            this.keyPair = keyPair;
+        }
+
+        @Override
+        public KeyPair take(KeyPairSpec keyPairSpec) {
+            return keyPair;
+        }
+
+        @Override
+        public void warmUp(KeyPairSpec... keyPairSpecs) {
+        }
+
+        @Override
+        public Map<KeyPairSpec, KeyPairPoolMetrics> getMetrics() {
+            return HashMap.empty();
+        }
+    }
+}
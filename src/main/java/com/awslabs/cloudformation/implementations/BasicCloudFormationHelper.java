@@ -3,8 +3,12 @@ package com.awslabs.cloudformation.implementations;
 import com.awslabs.cloudformation.data.ResourceType;
 import com.awslabs.cloudformation.data.StackName;
 import com.awslabs.cloudformation.interfaces.CloudFormationHelper;
+import com.awslabs.resultsiterator.data.FilterCondition;
+import com.awslabs.resultsiterator.data.FilterOperator;
+import com.awslabs.resultsiterator.data.ResultsFilter;
+import com.awslabs.resultsiterator.implementations.ResultsFilters;
 import com.awslabs.resultsiterator.implementations.ResultsIterator;
-import io.vavr.Predicates;
+import com.awslabs.resultsiterator.interfaces.ResultsCache;
 import io.vavr.collection.List;
 import io.vavr.collection.Stream;
 import io.vavr.control.Option;
@@ -13,14 +17,15 @@ import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
 import software.amazon.awssdk.services.cloudformation.model.*;
 
 import javax.inject.Inject;
-import java.util.function.Predicate;
 
 public class BasicCloudFormationHelper implements CloudFormationHelper {
     private static final Logger log = org.slf4j.LoggerFactory.getLogger(BasicCloudFormationHelper.class);
-    private final Predicate<StackSummary> isCreateComplete = stackSummary -> stackSummary.stackStatus().equals(StackStatus.CREATE_COMPLETE);
-    private final Predicate<StackSummary> isUpdateComplete = stackSummary -> stackSummary.stackStatus().equals(StackStatus.UPDATE_COMPLETE);
+    private static final String STACK_STATUS_FIELD = "stackStatus";
+    private static final String STACK_NAME_FIELD = "stackName";
     @Inject
     CloudFormationClient cloudFormationClient;
+    @Inject
+    ResultsCache resultsCache;
 
     @Inject
     public BasicCloudFormationHelper() {
@@ -28,14 +33,28 @@ public class BasicCloudFormationHelper implements CloudFormationHelper {
 
     @Override
     public Stream<StackSummary> getStackSummaries() {
-        return new ResultsIterator<StackSummary>(cloudFormationClient, ListStacksRequest.class).stream();
+        return new ResultsIterator<StackSummary>(cloudFormationClient, ListStacksRequest.class).cached(resultsCache).stream();
+    }
+
+    @Override
+    public Stream<StackSummary> getStackSummaries(ResultsFilter resultsFilter) {
+        ListStacksRequest.Builder listStacksRequestBuilder = ListStacksRequest.builder();
+
+        // ListStacks can filter on stack status, everything else is filtered on the client
+        Option<FilterCondition> stackStatusConditionOption = ResultsFilters.find(resultsFilter, STACK_STATUS_FIELD, FilterOperator.EQUALS, FilterOperator.IN);
+        stackStatusConditionOption.forEach(condition -> listStacksRequestBuilder.stackStatusFiltersWithStrings(condition.getValues().toJavaList()));
+        ResultsFilter remainingFilter = ResultsFilters.without(resultsFilter, stackStatusConditionOption);
+
+        return ResultsFilters.apply(remainingFilter, new ResultsIterator<StackSummary>(cloudFormationClient, listStacksRequestBuilder.build()).cached(resultsCache).stream());
     }
 
     @Override
     public Option<StackSummary> getStackSummary(StackName stackName) {
-        return getStackSummaries()
-                .filter(stackSummary -> Predicates.anyOf(isCreateComplete, isUpdateComplete).test(stackSummary))
-                .filter(stackSummary -> stackSummary.stackName().equals(stackName.getStackName()))
+        ResultsFilter resultsFilter = ResultsFilters.of(
+                ResultsFilters.in(STACK_STATUS_FIELD, StackStatus.CREATE_COMPLETE.toString(), StackStatus.UPDATE_COMPLETE.toString()),
+                ResultsFilters.equalTo(STACK_NAME_FIELD, stackName.getStackName()));
+
+        return getStackSummaries(resultsFilter)
                 .toOption();
     }
 
@@ -2,6 +2,7 @@ package com.awslabs.cloudformation.interfaces;
 
 import com.awslabs.cloudformation.data.ResourceType;
 import com.awslabs.cloudformation.data.StackName;
+import com.awslabs.resultsiterator.data.ResultsFilter;
 import io.vavr.collection.List;
 import io.vavr.collection.Stream;
 import io.vavr.control.Option;
@@ -11,6 +12,8 @@ import software.amazon.awssdk.services.cloudformation.model.StackSummary;
 public interface CloudFormationHelper {
     Stream<StackSummary> getStackSummaries();
 
+    Stream<StackSummary> getStackSummaries(ResultsFilter resultsFilter);
+
     Option<StackSummary> getStackSummary(StackName stackName);
 
     Stream<StackResourceSummary> getStackResources(StackName stackName);
@@ -0,0 +1,31 @@
+package com.awslabs.dynamodb.data;
+
+import com.awslabs.data.NoToString;
+import io.vavr.control.Option;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+import java.time.Instant;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class Lease extends NoToString {
+    public abstract TableName getTableName();
+
+    public abstract ShardId getShardId();
+
+    @Value.Default
+    public Option<WorkerId> getOwner() {
+        return Option.none();
+    }
+
+    public abstract Instant getExpiresAt();
+
+    // The continuation token (e.g. an S3 start after key or an encoded DynamoDB last evaluated key) to resume the shard from
+    @Value.Default
+    public Option<String> getCheckpoint() {
+        return Option.none();
+    }
+
+    public abstract boolean isComplete();
+}
@@ -0,0 +1,11 @@
+package com.awslabs.dynamodb.data;
+
+import com.awslabs.data.NoToString;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class WorkerId extends NoToString {
+    public abstract String getWorkerId();
+}
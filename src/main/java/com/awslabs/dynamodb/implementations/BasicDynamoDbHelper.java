@@ -2,17 +2,35 @@ package com.awslabs.dynamodb.implementations;
 
 import com.awslabs.dynamodb.data.TableName;
 import com.awslabs.dynamodb.interfaces.DynamoDbHelper;
+import com.awslabs.resultsiterator.implementations.BatchLoader;
+import io.vavr.Tuple;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
 import io.vavr.control.Try;
 import org.slf4j.Logger;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
-import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
-import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.*;
 
 import javax.inject.Inject;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class BasicDynamoDbHelper implements DynamoDbHelper {
     private static final Logger log = org.slf4j.LoggerFactory.getLogger(BasicDynamoDbHelper.class);
+    // BatchGetItem accepts at most 100 keys per call
+    private static final int MAX_KEYS_PER_BATCH = 100;
+    private static final Duration BATCH_WINDOW = Duration.ofMillis(10);
+    private static final int MAX_UNPROCESSED_KEY_RETRIES = 8;
+    private static final long BASE_RETRY_DELAY_MS = 50;
+    // Each table gets its own loader so a table that is missing or rejects the keys only fails the callers reading from it
+    private final ConcurrentMap<TableName, BatchLoader<Map<String, AttributeValue>, Map<String, AttributeValue>>> getItemLoaders = new ConcurrentHashMap<>();
     @Inject
     DynamoDbClient dynamoDbClient;
 
@@ -29,4 +47,64 @@ public class BasicDynamoDbHelper implements DynamoDbHelper {
         return Try.of(() -> dynamoDbClient.describeTable(describeTableRequest))
                 .map(DescribeTableResponse::table);
     }
+
+    @Override
+    public CompletableFuture<Option<Map<String, AttributeValue>>> getItemBatched(TableName tableName, Map<String, AttributeValue> key) {
+        // NOTE: The key map is used as part of a hash key while the lookup is pending so it must not be modified
+        return getItemLoaders.computeIfAbsent(tableName, name -> new BatchLoader<>(keys -> batchGetItems(tableName, keys), MAX_KEYS_PER_BATCH, BATCH_WINDOW))
+                .load(normalize(key));
+    }
+
+    private io.vavr.collection.Map<Map<String, AttributeValue>, Map<String, AttributeValue>> batchGetItems(TableName tableName, List<Map<String, AttributeValue>> keys) {
+        Map<String, KeysAndAttributes> requestItems = Collections.singletonMap(tableName.getTableName(), KeysAndAttributes.builder().keys(keys.toJavaList()).build());
+
+        List<Map<String, AttributeValue>> items = List.empty();
+        int attempt = 0;
+
+        while (!requestItems.isEmpty()) {
+            if (attempt > 0) {
+                // Back off before asking for the keys DynamoDB did not process
+                long delay = BASE_RETRY_DELAY_MS << Math.min(attempt - 1, 6);
+                Try.run(() -> Thread.sleep(delay)).get();
+            }
+
+            BatchGetItemRequest batchGetItemRequest = BatchGetItemRequest.builder()
+                    .requestItems(requestItems)
+                    .build();
+
+            BatchGetItemResponse batchGetItemResponse = dynamoDbClient.batchGetItem(batchGetItemRequest);
+
+            items = items.appendAll(Option.of(batchGetItemResponse.responses().get(tableName.getTableName()))
+                    .getOrElse(Collections::emptyList));
+
+            requestItems = batchGetItemResponse.unprocessedKeys();
+            attempt++;
+
+            if (!requestItems.isEmpty() && (attempt > MAX_UNPROCESSED_KEY_RETRIES)) {
+                throw new RuntimeException("DynamoDB did not process all of the keys in the batch after " + MAX_UNPROCESSED_KEY_RETRIES + " retries");
+            }
+        }
+
+        // Every key for a table names the same key attributes, projecting each item onto them gives the key it was
+        //   requested with so the results can be indexed instead of searched
+        Set<String> keyAttributeNames = keys.head().keySet();
+
+        return items.toMap(item -> Tuple.of(normalize(project(item, keyAttributeNames)), item));
+    }
+
+    private Map<String, AttributeValue> project(Map<String, AttributeValue> item, Set<String> attributeNames) {
+        return HashMap.ofAll(item)
+                .filterKeys(attributeNames::contains)
+                .toJavaMap();
+    }
+
+    // DynamoDB compares numbers by value but AttributeValue compares their strings, so numeric key attributes are put
+    //   in a canonical form (e.g. 1.0 and 1 both become 1) before they are used to match items to their keys
+    private Map<String, AttributeValue> normalize(Map<String, AttributeValue> key) {
+        return HashMap.ofAll(key)
+                .mapValues(attributeValue -> Option.of(attributeValue.n())
+                        .map(number -> AttributeValue.builder().n(new BigDecimal(number).stripTrailingZeros().toPlainString()).build())
+                        .getOrElse(attributeValue))
+                .toJavaMap();
+    }
 }
@@ -0,0 +1,315 @@
+package com.awslabs.dynamodb.implementations;
+
+import com.awslabs.dynamodb.data.*;
+import com.awslabs.dynamodb.interfaces.LeaseCoordinator;
+import com.awslabs.dynamodb.interfaces.ShardProcessor;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newScheduledDaemonExecutor;
+
+public class BasicLeaseCoordinator implements LeaseCoordinator {
+    private static final String SHARD_ID = "shardId";
+    private static final String OWNER = "owner";
+    private static final String EXPIRES_AT = "expiresAt";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String COMPLETE = "complete";
+    // Every attribute is referenced by name placeholder so none of them can collide with a DynamoDB reserved word
+    private static final HashMap<String, String> ATTRIBUTE_NAMES = HashMap.of(
+            "#shardId", SHARD_ID,
+            "#owner", OWNER,
+            "#expiresAt", EXPIRES_AT,
+            "#checkpoint", CHECKPOINT,
+            "#complete", COMPLETE);
+    private static final String OWNED_BY_WORKER = "#owner = :owner AND #complete = :false";
+    private static final ScheduledExecutorService heartbeatExecutor = newScheduledDaemonExecutor("lease-heartbeat");
+    private final Logger log = LoggerFactory.getLogger(BasicLeaseCoordinator.class);
+    Consumer<Duration> sleeper = duration -> Try.run(() -> Thread.sleep(duration.toMillis())).get();
+    @Inject
+    DynamoDbClient dynamoDbClient;
+
+    @Inject
+    public BasicLeaseCoordinator() {
+    }
+
+    @Override
+    public void createLeaseTable(TableName tableName) {
+        CreateTableRequest createTableRequest = CreateTableRequest.builder()
+                .tableName(tableName.getTableName())
+                .keySchema(KeySchemaElement.builder().attributeName(SHARD_ID).keyType(KeyType.HASH).build())
+                .attributeDefinitions(AttributeDefinition.builder().attributeName(SHARD_ID).attributeType(ScalarAttributeType.S).build())
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .build();
+
+        Try.run(() -> dynamoDbClient.createTable(createTableRequest))
+                // Another worker may have created the table first
+                .recover(ResourceInUseException.class, e -> null)
+                .get();
+
+        dynamoDbClient.waiter().waitUntilTableExists(DescribeTableRequest.builder().tableName(tableName.getTableName()).build());
+    }
+
+    @Override
+    public void registerShards(TableName tableName, List<ShardId> shardIds) {
+        shardIds.forEach(shardId -> {
+            PutItemRequest putItemRequest = PutItemRequest.builder()
+                    .tableName(tableName.getTableName())
+                    .item(HashMap.of(
+                            SHARD_ID, string(shardId.getShardId()),
+                            EXPIRES_AT, number(0),
+                            COMPLETE, bool(false)).toJavaMap())
+                    .conditionExpression("attribute_not_exists(#shardId)")
+                    .expressionAttributeNames(HashMap.of("#shardId", SHARD_ID).toJavaMap())
+                    .build();
+
+            Try.run(() -> dynamoDbClient.putItem(putItemRequest))
+                    // The shard was already registered, keep its owner and checkpoint
+                    .recover(ConditionalCheckFailedException.class, e -> null)
+                    .get();
+        });
+    }
+
+    @Override
+    public List<Lease> getLeases(TableName tableName) {
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName(tableName.getTableName())
+                .consistentRead(true)
+                .build();
+
+        return Stream.ofAll(dynamoDbClient.scanPaginator(scanRequest).items())
+                .map(item -> toLease(tableName, item))
+                .toList();
+    }
+
+    @Override
+    public Option<Lease> tryAcquire(TableName tableName, WorkerId workerId, ShardId shardId, Duration leaseDuration) {
+        Instant now = Instant.now();
+
+        String updateExpression = "SET #owner = :owner, #expiresAt = :expiresAt";
+        String conditionExpression = "attribute_exists(#shardId) AND #complete = :false AND (attribute_not_exists(#owner) OR #expiresAt < :now OR #owner = :owner)";
+
+        // Expiry is based on each worker's clock so the lease duration should be much longer than the expected clock skew
+        UpdateItemRequest updateItemRequest = UpdateItemRequest.builder()
+                .tableName(tableName.getTableName())
+                .key(key(shardId))
+                .updateExpression(updateExpression)
+                .conditionExpression(conditionExpression)
+                .expressionAttributeNames(getAttributeNames(updateExpression, conditionExpression))
+                .expressionAttributeValues(HashMap.of(
+                        ":owner", string(workerId.getWorkerId()),
+                        ":expiresAt", number(now.plus(leaseDuration).toEpochMilli()),
+                        ":now", number(now.toEpochMilli()),
+                        ":false", bool(false)).toJavaMap())
+                .returnValues(ReturnValue.ALL_NEW)
+                .build();
+
+        return Try.of(() -> dynamoDbClient.updateItem(updateItemRequest))
+                .map(response -> toLease(tableName, response.attributes()))
+                .onSuccess(lease -> log.debug(String.join("", "Worker [", workerId.getWorkerId(), "] acquired the lease on shard [", shardId.getShardId(), "]")))
+                // Losing the race for a lease is expected, anything else is a real failure
+                .map(Option::some)
+                .recover(ConditionalCheckFailedException.class, e -> Option.none())
+                .get();
+    }
+
+    @Override
+    public Try<Lease> renew(Lease lease, Duration leaseDuration) {
+        return updateOwnedLease(lease, "SET #expiresAt = :expiresAt", HashMap.of(
+                ":expiresAt", number(Instant.now().plus(leaseDuration).toEpochMilli())));
+    }
+
+    @Override
+    public Try<Lease> checkpoint(Lease lease, String checkpoint, Duration leaseDuration) {
+        // Checkpointing also extends the lease since the worker is clearly still alive
+        return updateOwnedLease(lease, "SET #checkpoint = :checkpoint, #expiresAt = :expiresAt", HashMap.of(
+                ":checkpoint", string(checkpoint),
+                ":expiresAt", number(Instant.now().plus(leaseDuration).toEpochMilli())));
+    }
+
+    @Override
+    public Try<Lease> complete(Lease lease) {
+        return updateOwnedLease(lease, "SET #complete = :true REMOVE #owner", HashMap.of(
+                ":true", bool(true)));
+    }
+
+    @Override
+    public void release(Lease lease) {
+        // Expiring the lease now lets any worker pick the shard up from its last checkpoint
+        updateOwnedLease(lease, "SET #expiresAt = :expiresAt REMOVE #owner", HashMap.of(
+                ":expiresAt", number(0)))
+                .onFailure(throwable -> log.warn(String.join("", "Failed to release the lease on shard [", lease.getShardId().getShardId(), "]"), throwable));
+    }
+
+    private Try<Lease> updateOwnedLease(Lease lease, String updateExpression, HashMap<String, AttributeValue> expressionAttributeValues) {
+        WorkerId owner = lease.getOwner()
+                .getOrElseThrow(() -> new RuntimeException("The lease on shard [" + lease.getShardId().getShardId() + "] is not owned by a worker"));
+
+        UpdateItemRequest updateItemRequest = UpdateItemRequest.builder()
+                .tableName(lease.getTableName().getTableName())
+                .key(key(lease.getShardId()))
+                .updateExpression(updateExpression)
+                .conditionExpression(OWNED_BY_WORKER)
+                .expressionAttributeNames(getAttributeNames(updateExpression, OWNED_BY_WORKER))
+                .expressionAttributeValues(expressionAttributeValues
+                        .put(":owner", string(owner.getWorkerId()))
+                        .put(":false", bool(false))
+                        .toJavaMap())
+                .returnValues(ReturnValue.ALL_NEW)
+                .build();
+
+        return Try.of(() -> dynamoDbClient.updateItem(updateItemRequest))
+                .map(response -> toLease(lease.getTableName(), response.attributes()));
+    }
+
+    @Override
+    public int processShards(TableName tableName, WorkerId workerId, ShardProcessor shardProcessor) {
+        return processShards(tableName, workerId, shardProcessor, DEFAULT_LEASE_DURATION);
+    }
+
+    @Override
+    public int processShards(TableName tableName, WorkerId workerId, ShardProcessor shardProcessor, Duration leaseDuration) {
+        int completed = 0;
+        List<Lease> incompleteLeases;
+
+        while ((incompleteLeases = getLeases(tableName).filter(lease -> !lease.isComplete())).nonEmpty()) {
+            Option<Lease> leaseOption = acquireNext(incompleteLeases, tableName, workerId, leaseDuration);
+
+            if (leaseOption.isEmpty()) {
+                // Other workers hold every remaining shard, keep checking so the shards of a worker that dies are
+                //   picked up once its leases expire
+                sleeper.accept(Duration.ofMillis(getHeartbeatMillis(leaseDuration)));
+                continue;
+            }
+
+            if (processShard(leaseOption.get(), shardProcessor, leaseDuration)) {
+                completed++;
+            }
+        }
+
+        return completed;
+    }
+
+    private Option<Lease> acquireNext(List<Lease> incompleteLeases, TableName tableName, WorkerId workerId, Duration leaseDuration) {
+        Instant now = Instant.now();
+
+        // Leases of dead workers expire and are picked up here, which is how shards are rebalanced when a node dies
+        return incompleteLeases
+                .filter(lease -> lease.getOwner().isEmpty() || lease.getExpiresAt().isBefore(now) || lease.getOwner().contains(workerId))
+                // Workers try the available shards in different orders so they don't all race for the same one
+                .shuffle()
+                .toStream()
+                .flatMap(lease -> tryAcquire(tableName, workerId, lease.getShardId(), leaseDuration))
+                .headOption();
+    }
+
+    private long getHeartbeatMillis(Duration leaseDuration) {
+        return Math.max(1, leaseDuration.toMillis() / 3);
+    }
+
+    private boolean processShard(Lease acquiredLease, ShardProcessor shardProcessor, Duration leaseDuration) {
+        String shardId = acquiredLease.getShardId().getShardId();
+        AtomicReference<Lease> currentLease = new AtomicReference<>(acquiredLease);
+        AtomicBoolean lost = new AtomicBoolean(false);
+        long heartbeatMillis = getHeartbeatMillis(leaseDuration);
+
+        // Renew well before expiry so a slow shard isn't taken over while this worker is still processing it
+        ScheduledFuture<?> heartbeat = heartbeatExecutor.scheduleAtFixedRate(() -> {
+            if (lost.get()) {
+                return;
+            }
+
+            renew(currentLease.get(), leaseDuration)
+                    .onSuccess(currentLease::set)
+                    .onFailure(throwable -> {
+                        lost.set(true);
+                        log.warn(String.join("", "Lost the lease on shard [", shardId, "]"), throwable);
+                    });
+        }, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+        Consumer<String> checkpointer = checkpoint -> {
+            if (lost.get()) {
+                throw new RuntimeException("The lease on shard [" + shardId + "] was lost, stop processing it");
+            }
+
+            currentLease.set(checkpoint(currentLease.get(), checkpoint, leaseDuration)
+                    .onFailure(throwable -> lost.set(true))
+                    .getOrElseThrow(throwable -> new RuntimeException("The lease on shard [" + shardId + "] was lost, stop processing it", throwable)));
+        };
+
+        try {
+            try {
+                shardProcessor.process(acquiredLease.getShardId(), acquiredLease.getCheckpoint(), checkpointer);
+            } finally {
+                // Stops renewing even when the processor throws an Error, the lease then expires and another worker takes the shard over
+                heartbeat.cancel(false);
+            }
+        } catch (RuntimeException e) {
+            if (lost.get()) {
+                // Another worker owns the shard now and will continue from the last checkpoint
+                log.warn(String.join("", "Stopped processing shard [", shardId, "] because its lease was lost"));
+                return false;
+            }
+
+            release(currentLease.get());
+            throw e;
+        }
+
+        return !lost.get() && complete(currentLease.get())
+                .onFailure(throwable -> log.warn(String.join("", "Failed to complete shard [", shardId, "]"), throwable))
+                .isSuccess();
+    }
+
+    private Lease toLease(TableName tableName, Map<String, AttributeValue> item) {
+        ImmutableLease.Builder builder = ImmutableLease.builder()
+                .tableName(tableName)
+                .shardId(ImmutableShardId.builder().shardId(item.get(SHARD_ID).s()).build())
+                .expiresAt(Instant.ofEpochMilli(Option.of(item.get(EXPIRES_AT)).map(AttributeValue::n).map(Long::parseLong).getOrElse(0L)))
+                .isComplete(Option.of(item.get(COMPLETE)).map(AttributeValue::bool).getOrElse(false));
+
+        return builder
+                .owner(Option.of(item.get(OWNER)).map(AttributeValue::s).map(owner -> ImmutableWorkerId.builder().workerId(owner).build()))
+                .checkpoint(Option.of(item.get(CHECKPOINT)).map(AttributeValue::s))
+                .build();
+    }
+
+    private Map<String, String> getAttributeNames(String... expressions) {
+        // DynamoDB rejects attribute names that aren't used in the expressions
+        return ATTRIBUTE_NAMES
+                .filterKeys(name -> Stream.of(expressions).exists(expression -> expression.contains(name)))
+                .toJavaMap();
+    }
+
+    private Map<String, AttributeValue> key(ShardId shardId) {
+        return HashMap.of(SHARD_ID, string(shardId.getShardId())).toJavaMap();
+    }
+
+    private static AttributeValue string(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.builder().n(String.valueOf(value)).build();
+    }
+
+    private static AttributeValue bool(boolean value) {
+        return AttributeValue.builder().bool(value).build();
+    }
+}
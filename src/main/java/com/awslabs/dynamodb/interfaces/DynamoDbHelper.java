@@ -1,9 +1,16 @@
 package com.awslabs.dynamodb.interfaces;
 
 import com.awslabs.dynamodb.data.TableName;
+import io.vavr.control.Option;
 import io.vavr.control.Try;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.TableDescription;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 public interface DynamoDbHelper {
     Try<TableDescription> tryDescribeTable(TableName tableName);
+
+    CompletableFuture<Option<Map<String, AttributeValue>>> getItemBatched(TableName tableName, Map<String, AttributeValue> key);
 }
@@ -0,0 +1,40 @@
+package com.awslabs.dynamodb.interfaces;
+
+import com.awslabs.dynamodb.data.Lease;
+import com.awslabs.dynamodb.data.ShardId;
+import com.awslabs.dynamodb.data.TableName;
+import com.awslabs.dynamodb.data.WorkerId;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+
+import java.time.Duration;
+
+public interface LeaseCoordinator {
+    Duration DEFAULT_LEASE_DURATION = Duration.ofSeconds(30);
+
+    // Creates the lease table if it does not exist and waits until it is active
+    void createLeaseTable(TableName tableName);
+
+    // Adds a lease for each shard that doesn't have one yet, existing leases and their checkpoints are left alone
+    void registerShards(TableName tableName, List<ShardId> shardIds);
+
+    List<Lease> getLeases(TableName tableName);
+
+    // Succeeds only if the shard is incomplete and unowned, expired, or already owned by this worker
+    Option<Lease> tryAcquire(TableName tableName, WorkerId workerId, ShardId shardId, Duration leaseDuration);
+
+    Try<Lease> renew(Lease lease, Duration leaseDuration);
+
+    Try<Lease> checkpoint(Lease lease, String checkpoint, Duration leaseDuration);
+
+    Try<Lease> complete(Lease lease);
+
+    void release(Lease lease);
+
+    // Acquires and processes shards until every shard is complete, waiting while other workers hold the remaining ones so
+    //   the shards of a worker that dies are taken over when its leases expire. Returns the number of shards this worker completed.
+    int processShards(TableName tableName, WorkerId workerId, ShardProcessor shardProcessor, Duration leaseDuration);
+
+    int processShards(TableName tableName, WorkerId workerId, ShardProcessor shardProcessor);
+}
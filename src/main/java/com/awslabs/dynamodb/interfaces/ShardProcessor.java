@@ -0,0 +1,12 @@
+package com.awslabs.dynamodb.interfaces;
+
+import com.awslabs.dynamodb.data.ShardId;
+import io.vavr.control.Option;
+
+import java.util.function.Consumer;
+
+@FunctionalInterface
+public interface ShardProcessor {
+    // Processes a shard starting after the checkpoint, the checkpointer stores a new continuation token and throws if the lease was lost
+    void process(ShardId shardId, Option<String> checkpoint, Consumer<String> checkpointer);
+}
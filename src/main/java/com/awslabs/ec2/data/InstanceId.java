@@ -0,0 +1,11 @@
+package com.awslabs.ec2.data;
+
+import com.awslabs.data.NoToString;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class InstanceId extends NoToString {
+    public abstract String getId();
+}
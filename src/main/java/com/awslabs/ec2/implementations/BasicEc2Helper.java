@@ -1,20 +1,32 @@
 package com.awslabs.ec2.implementations;
 
+import com.awslabs.ec2.data.ImmutableInstanceId;
+import com.awslabs.ec2.data.InstanceId;
 import com.awslabs.ec2.interfaces.Ec2Helper;
+import com.awslabs.resultsiterator.implementations.BatchLoader;
+import com.awslabs.resultsiterator.implementations.ResultsIterator;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Stream;
 import io.vavr.control.Option;
 import org.slf4j.Logger;
 import software.amazon.awssdk.regions.internal.util.EC2MetadataUtils;
 import software.amazon.awssdk.services.ec2.Ec2Client;
-import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
-import software.amazon.awssdk.services.ec2.model.DescribeInstancesResponse;
-import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.*;
 
 import javax.inject.Inject;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 import static com.awslabs.general.helpers.implementations.AwsHelper.isEc2;
 
 public class BasicEc2Helper implements Ec2Helper {
     private static final Logger log = org.slf4j.LoggerFactory.getLogger(BasicEc2Helper.class);
+    // EC2 allows up to 200 values per filter, stay well under that to keep responses small
+    private static final int MAX_INSTANCE_IDS_PER_BATCH = 100;
+    private static final Duration BATCH_WINDOW = Duration.ofMillis(10);
+    private static final String INSTANCE_ID_FILTER_NAME = "instance-id";
+    private final BatchLoader<InstanceId, Instance> describeInstanceLoader = new BatchLoader<>(this::describeInstances, MAX_INSTANCE_IDS_PER_BATCH, BATCH_WINDOW);
     @Inject
     Ec2Client ec2Client;
 
@@ -55,4 +67,25 @@ public class BasicEc2Helper implements Ec2Helper {
 
         return instanceOption;
     }
+
+    @Override
+    public CompletableFuture<Option<Instance>> describeInstanceBatched(InstanceId instanceId) {
+        return describeInstanceLoader.load(instanceId);
+    }
+
+    private Map<InstanceId, Instance> describeInstances(List<InstanceId> instanceIds) {
+        // Use a filter instead of the instanceIds parameter so that one missing instance doesn't fail the whole batch
+        Filter instanceIdFilter = Filter.builder()
+                .name(INSTANCE_ID_FILTER_NAME)
+                .values(instanceIds.map(InstanceId::getId).toJavaList())
+                .build();
+
+        DescribeInstancesRequest describeInstancesRequest = DescribeInstancesRequest.builder()
+                .filters(instanceIdFilter)
+                .build();
+
+        return new ResultsIterator<Reservation>(ec2Client, describeInstancesRequest).stream()
+                .flatMap(reservation -> Stream.ofAll(reservation.instances()))
+                .toMap(instance -> ImmutableInstanceId.builder().id(instance.instanceId()).build(), instance -> instance);
+    }
 }
@@ -1,8 +1,13 @@
 package com.awslabs.ec2.interfaces;
 
+import com.awslabs.ec2.data.InstanceId;
 import io.vavr.control.Option;
 import software.amazon.awssdk.services.ec2.model.Instance;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface Ec2Helper {
     Option<Instance> describeInstance();
+
+    CompletableFuture<Option<Instance>> describeInstanceBatched(InstanceId instanceId);
 }
@@ -0,0 +1,22 @@
+package com.awslabs.general.helpers.data;
+
+import com.awslabs.data.NoToString;
+import io.vavr.control.Option;
+import org.immutables.value.Value;
+
+@Value.Immutable
+public abstract class SnapshotDifference<T> extends NoToString {
+    public abstract SnapshotDifferenceType getType();
+
+    // Empty for added records
+    @Value.Default
+    public Option<T> getBefore() {
+        return Option.none();
+    }
+
+    // Empty for removed records
+    @Value.Default
+    public Option<T> getAfter() {
+        return Option.none();
+    }
+}
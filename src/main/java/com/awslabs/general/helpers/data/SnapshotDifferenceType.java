@@ -0,0 +1,7 @@
+package com.awslabs.general.helpers.data;
+
+public enum SnapshotDifferenceType {
+    ADDED,
+    REMOVED,
+    CHANGED
+}
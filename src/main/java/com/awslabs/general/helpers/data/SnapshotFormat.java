@@ -0,0 +1,8 @@
+package com.awslabs.general.helpers.data;
+
+public enum SnapshotFormat {
+    // One JSON document per line
+    NDJSON,
+    // Each JSON document is preceded by its length as a 4-byte big-endian integer
+    LENGTH_PREFIXED
+}
@@ -0,0 +1,329 @@
+package com.awslabs.general.helpers.implementations;
+
+import com.awslabs.general.helpers.data.ImmutableSnapshotDifference;
+import com.awslabs.general.helpers.data.SnapshotDifference;
+import com.awslabs.general.helpers.data.SnapshotDifferenceType;
+import com.awslabs.general.helpers.data.SnapshotFormat;
+import com.awslabs.general.helpers.interfaces.SnapshotHelper;
+import com.awslabs.resultsiterator.interfaces.ResultsIteratorInterface;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.SdkPojo;
+
+import javax.inject.Inject;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+public class BasicSnapshotHelper implements SnapshotHelper {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    // Only this much of the file is mapped at a time so very large snapshots don't need a huge mapping
+    private static final int MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final byte NEWLINE = '\n';
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private final Logger log = LoggerFactory.getLogger(BasicSnapshotHelper.class);
+    int mappedWindowSize = MAPPED_WINDOW_SIZE;
+
+    @Inject
+    public BasicSnapshotHelper() {
+    }
+
+    @Override
+    public <T> long write(Path path, SnapshotFormat snapshotFormat, ResultsIteratorInterface<T> resultsIterator) {
+        // Only the iterator is kept so the memoized stream can be garbage collected as it is written
+        return write(path, snapshotFormat, resultsIterator.stream().iterator());
+    }
+
+    @Override
+    public <T> long write(Path path, SnapshotFormat snapshotFormat, Iterator<T> values) {
+        // A unique file in the same directory so concurrent writers (possibly in other processes) never share one
+        Path temporaryPath = Try.of(() -> Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), TEMPORARY_SUFFIX)).get();
+
+        long count = Try.withResources(() -> new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath), WRITE_BUFFER_SIZE)))
+                .of(dataOutputStream -> {
+                    long written = 0;
+
+                    while (values.hasNext()) {
+                        writeRecord(dataOutputStream, snapshotFormat, encode(values.next()));
+                        written++;
+                    }
+
+                    return written;
+                })
+                // Readers never see a partially written snapshot, the last writer to finish wins
+                .andThenTry(() -> Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE))
+                .onFailure(throwable -> Try.run(() -> Files.deleteIfExists(temporaryPath)))
+                .get();
+
+        log.debug(String.join("", "Wrote [", String.valueOf(count), "] records to [", path.toString(), "]"));
+
+        return count;
+    }
+
+    @Override
+    public <T> Stream<T> read(Path path, SnapshotFormat snapshotFormat, Class<T> clazz) {
+        FileChannel fileChannel = Try.of(() -> FileChannel.open(path, StandardOpenOption.READ)).get();
+        MappedRecordIterator mappedRecordIterator = new MappedRecordIterator(fileChannel, snapshotFormat, mappedWindowSize);
+
+        // The channel is closed when the stream is exhausted or abandoned, mappings stay valid after the channel is closed
+        return StreamCleanupHelper.withCleanup(mappedRecordIterator, () -> Try.run(fileChannel::close))
+                .map(bytes -> decode(bytes, clazz));
+    }
+
+    @Override
+    public <T, K extends Comparable<? super K>> Stream<SnapshotDifference<T>> diff(Path beforePath, Path afterPath, SnapshotFormat snapshotFormat, Class<T> clazz, Function<T, K> keyFunction) {
+        // Only the iterators are kept so neither snapshot is held in memory
+        return diff(read(beforePath, snapshotFormat, clazz).iterator(), read(afterPath, snapshotFormat, clazz).iterator(), keyFunction);
+    }
+
+    @Override
+    public <T, K extends Comparable<? super K>> Stream<SnapshotDifference<T>> diff(Iterator<T> before, Iterator<T> after, Function<T, K> keyFunction) {
+        DifferenceIterator<T, K> differenceIterator = new DifferenceIterator<>(before, after, keyFunction);
+
+        return Stream.ofAll(() -> differenceIterator);
+    }
+
+    private void writeRecord(DataOutputStream dataOutputStream, SnapshotFormat snapshotFormat, byte[] bytes) {
+        Try.run(() -> {
+            if (SnapshotFormat.LENGTH_PREFIXED.equals(snapshotFormat)) {
+                dataOutputStream.writeInt(bytes.length);
+                dataOutputStream.write(bytes);
+            } else {
+                // Jackson escapes newlines inside strings so the record can't contain a raw newline
+                dataOutputStream.write(bytes);
+                dataOutputStream.write(NEWLINE);
+            }
+        }).get();
+    }
+
+    private byte[] encode(Object value) {
+        if (value instanceof SdkPojo) {
+            return JacksonHelper.tryToJsonBytes(SdkPojoHelper.toJsonNode((SdkPojo) value)).get();
+        }
+
+        return JacksonHelper.tryToJsonBytes(value).get();
+    }
+
+    private <T> T decode(byte[] bytes, Class<T> clazz) {
+        if (SdkPojo.class.isAssignableFrom(clazz)) {
+            return clazz.cast(SdkPojoHelper.fromJsonNode(JacksonHelper.tryParseJsonNode(bytes).get(), clazz.asSubclass(SdkPojo.class)));
+        }
+
+        return JacksonHelper.tryParseJson(bytes, clazz).get();
+    }
+
+    // Walks both snapshots in key order at the same time, like the merge step of a merge sort
+    private static class DifferenceIterator<T, K extends Comparable<? super K>> implements Iterator<SnapshotDifference<T>> {
+        private final PeekingIterator<T> before;
+        private final PeekingIterator<T> after;
+        private final Function<T, K> keyFunction;
+        private Option<K> lastBeforeKey = Option.none();
+        private Option<K> lastAfterKey = Option.none();
+        private Option<SnapshotDifference<T>> next = Option.none();
+
+        DifferenceIterator(Iterator<T> before, Iterator<T> after, Function<T, K> keyFunction) {
+            this.before = Iterators.peekingIterator(before);
+            this.after = Iterators.peekingIterator(after);
+            this.keyFunction = keyFunction;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next.isEmpty() && (before.hasNext() || after.hasNext())) {
+                next = compareNext();
+            }
+
+            return next.isDefined();
+        }
+
+        @Override
+        public SnapshotDifference<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            SnapshotDifference<T> difference = next.get();
+            next = Option.none();
+
+            return difference;
+        }
+
+        private Option<SnapshotDifference<T>> compareNext() {
+            if (!after.hasNext()) {
+                return Option.of(removed(takeBefore()));
+            }
+
+            if (!before.hasNext()) {
+                return Option.of(added(takeAfter()));
+            }
+
+            int comparison = keyFunction.apply(before.peek()).compareTo(keyFunction.apply(after.peek()));
+
+            if (comparison < 0) {
+                return Option.of(removed(takeBefore()));
+            }
+
+            if (comparison > 0) {
+                return Option.of(added(takeAfter()));
+            }
+
+            T beforeValue = takeBefore();
+            T afterValue = takeAfter();
+
+            if (beforeValue.equals(afterValue)) {
+                // Unchanged records are not reported
+                return Option.none();
+            }
+
+            return Option.of(ImmutableSnapshotDifference.<T>builder()
+                    .type(SnapshotDifferenceType.CHANGED)
+                    .before(Option.of(beforeValue))
+                    .after(Option.of(afterValue))
+                    .build());
+        }
+
+        private T takeBefore() {
+            T value = before.next();
+            lastBeforeKey = checkOrder(lastBeforeKey, keyFunction.apply(value), "before");
+
+            return value;
+        }
+
+        private T takeAfter() {
+            T value = after.next();
+            lastAfterKey = checkOrder(lastAfterKey, keyFunction.apply(value), "after");
+
+            return value;
+        }
+
+        private Option<K> checkOrder(Option<K> lastKeyOption, K key, String side) {
+            if (lastKeyOption.exists(lastKey -> lastKey.compareTo(key) >= 0)) {
+                // A merge can't detect differences correctly if the input is out of order or has duplicate keys
+                throw new RuntimeException("The " + side + " snapshot is not sorted by a unique key, a key was out of order or repeated");
+            }
+
+            return Option.of(key);
+        }
+
+        private SnapshotDifference<T> added(T value) {
+            return ImmutableSnapshotDifference.<T>builder()
+                    .type(SnapshotDifferenceType.ADDED)
+                    .after(Option.of(value))
+                    .build();
+        }
+
+        private SnapshotDifference<T> removed(T value) {
+            return ImmutableSnapshotDifference.<T>builder()
+                    .type(SnapshotDifferenceType.REMOVED)
+                    .before(Option.of(value))
+                    .build();
+        }
+    }
+
+    private static class MappedRecordIterator implements Iterator<byte[]> {
+        private final SnapshotFormat snapshotFormat;
+        private final FileChannel fileChannel;
+        private final int windowSize;
+        private final long size;
+        private MappedByteBuffer window = null;
+        private long windowStart = 0;
+        private long position = 0;
+
+        MappedRecordIterator(FileChannel fileChannel, SnapshotFormat snapshotFormat, int windowSize) {
+            this.snapshotFormat = snapshotFormat;
+            this.fileChannel = fileChannel;
+            this.windowSize = windowSize;
+            this.size = Try.of(fileChannel::size).get();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < size;
+        }
+
+        @Override
+        public byte[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            if (SnapshotFormat.LENGTH_PREFIXED.equals(snapshotFormat)) {
+                int length = slice(position, Integer.BYTES).getInt();
+                byte[] bytes = read(position + Integer.BYTES, length);
+                position += Integer.BYTES + length;
+
+                return bytes;
+            }
+
+            long end = indexOfNewline(position);
+            byte[] bytes = read(position, Math.toIntExact(end - position));
+            position = end + 1;
+
+            return bytes;
+        }
+
+        private long indexOfNewline(long from) {
+            long searchFrom = from;
+
+            while (searchFrom < size) {
+                // Scans what is already mapped, a new window is only mapped when the scan reaches the end of this one
+                mapCovering(searchFrom, 1);
+
+                for (int index = Math.toIntExact(searchFrom - windowStart); index < window.limit(); index++) {
+                    if (window.get(index) == NEWLINE) {
+                        return windowStart + index;
+                    }
+                }
+
+                searchFrom = windowStart + window.limit();
+            }
+
+            // The last record may not have a trailing newline
+            return size;
+        }
+
+        private byte[] read(long offset, int length) {
+            byte[] bytes = new byte[length];
+            slice(offset, length).get(bytes);
+
+            return bytes;
+        }
+
+        private ByteBuffer slice(long offset, int length) {
+            if (offset + length > size) {
+                throw new RuntimeException("The snapshot is truncated, expected [" + length + "] bytes at offset [" + offset + "]");
+            }
+
+            mapCovering(offset, length);
+
+            ByteBuffer buffer = window.duplicate();
+            buffer.position(Math.toIntExact(offset - windowStart));
+            buffer.limit(Math.toIntExact(offset - windowStart + length));
+
+            return buffer.slice();
+        }
+
+        private void mapCovering(long offset, int length) {
+            if ((window == null) || (offset < windowStart) || (offset + length > windowStart + window.limit())) {
+                // Remap starting at the requested offset, records larger than the window get a mapping of their own
+                long mappedSize = Math.min(Math.max(length, windowSize), size - offset);
+                window = Try.of(() -> fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, mappedSize)).get();
+                windowStart = offset;
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.awslabs.general.helpers.implementations;
+
+import com.awslabs.general.helpers.data.SnapshotFormat;
+import com.awslabs.general.helpers.interfaces.SnapshotHelper;
+import com.awslabs.general.helpers.interfaces.SortHelper;
+import com.awslabs.resultsiterator.interfaces.ResultsIteratorInterface;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newUnboundedBlockingExecutor;
+
+public class BasicSortHelper implements SortHelper {
+    private static final SnapshotFormat SPILL_FORMAT = SnapshotFormat.LENGTH_PREFIXED;
+    private static final String SPILL_FILE_PREFIX = "external-sort-";
+    // Every source needs its own prefetch thread or the merge could wait forever on a source that never started
+    private static final ExecutorService prefetchExecutor = newUnboundedBlockingExecutor("merge-prefetch");
+    private final Logger log = LoggerFactory.getLogger(BasicSortHelper.class);
+    Path spillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+    @Inject
+    SnapshotHelper snapshotHelper;
+
+    @Inject
+    public BasicSortHelper() {
+    }
+
+    @Override
+    public <T> List<T> topK(Iterator<T> values, int k, Comparator<? super T> comparator) {
+        if (k < 1) {
+            return List.empty();
+        }
+
+        // A min-heap of the greatest values seen so far, the smallest of them is replaced when a greater value shows up
+        PriorityQueue<T> heap = new PriorityQueue<>(k, comparator);
+
+        values.forEachRemaining(value -> {
+            if (heap.size() < k) {
+                heap.add(value);
+            } else if (comparator.compare(value, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(value);
+            }
+        });
+
+        List<T> ascending = List.empty();
+
+        while (!heap.isEmpty()) {
+            ascending = ascending.prepend(heap.poll());
+        }
+
+        // Prepending the values in ascending order leaves them in descending order
+        return ascending;
+    }
+
+    @Override
+    public <T> Option<T> max(Iterator<T> values, Comparator<? super T> comparator) {
+        return topK(values, 1, comparator).headOption();
+    }
+
+    @Override
+    public <T> Stream<T> externalSort(Iterator<T> values, Class<T> clazz, Comparator<? super T> comparator) {
+        return externalSort(values, clazz, comparator, DEFAULT_MAX_IN_MEMORY);
+    }
+
+    @Override
+    public <T> Stream<T> externalSort(Iterator<T> values, Class<T> clazz, Comparator<? super T> comparator, int maxInMemory) {
+        if (maxInMemory < 1) {
+            throw new IllegalArgumentException("At least one value must be allowed in memory");
+        }
+
+        java.util.List<Path> runs = new ArrayList<>();
+
+        // Until the merge owns the runs nothing else would delete them if spilling or opening them fails
+        return Try.of(() -> sortInRuns(values, clazz, comparator, maxInMemory, runs))
+                .onFailure(throwable -> deleteRuns(runs))
+                .get();
+    }
+
+    private <T> Stream<T> sortInRuns(Iterator<T> values, Class<T> clazz, Comparator<? super T> comparator, int maxInMemory, java.util.List<Path> runs) {
+        while (values.hasNext()) {
+            java.util.List<T> chunk = new ArrayList<>(maxInMemory);
+
+            while (values.hasNext() && (chunk.size() < maxInMemory)) {
+                chunk.add(values.next());
+            }
+
+            chunk.sort(comparator);
+
+            if (runs.isEmpty() && !values.hasNext()) {
+                // Everything fit in memory, there is no need to spill
+                return Stream.ofAll(chunk);
+            }
+
+            runs.add(spill(chunk));
+        }
+
+        if (runs.isEmpty()) {
+            return Stream.empty();
+        }
+
+        log.debug(String.join("", "Merging [", String.valueOf(runs.size()), "] sorted runs"));
+
+        // The runs are memory-mapped files so they are merged without prefetch threads
+        List<Iterator<T>> runIterators = Stream.ofAll(runs)
+                .map(run -> snapshotHelper.read(run, SPILL_FORMAT, clazz).iterator())
+                .toList();
+
+        // The runs are deleted as soon as the merge finishes, fails or is abandoned
+        return StreamCleanupHelper.withCleanup(new MergingIterator<>(runIterators, comparator), () -> deleteRuns(runs));
+    }
+
+    @Override
+    public <T> Stream<T> merge(List<Iterator<T>> sources, Comparator<? super T> comparator, int prefetch) {
+        List<Iterator<T>> prefetchedSources = (prefetch > 0) ? sources.map(source -> prefetch(source, prefetch)) : sources;
+
+        MergingIterator<T> mergingIterator = new MergingIterator<>(prefetchedSources, comparator);
+
+        return Stream.ofAll(() -> mergingIterator);
+    }
+
+    @Override
+    public <T, K extends Comparable<? super K>> Stream<T> merge(List<? extends ResultsIteratorInterface<T>> resultsIterators, Function<T, K> keyExtractor) {
+        // Only the iterators are kept so the memoized streams can be garbage collected as they are merged
+        List<Iterator<T>> sources = resultsIterators.map(resultsIterator -> resultsIterator.stream().iterator());
+
+        return merge(sources, Comparator.comparing(keyExtractor), DEFAULT_PREFETCH);
+    }
+
+    private <T> Iterator<T> prefetch(Iterator<T> source, int prefetch) {
+        // A single producer keeps its order, this reads ahead of the merge on a background thread
+        List<Consumer<Consumer<T>>> producers = List.of(source::forEachRemaining);
+
+        return ConcurrencyHelper.merge(prefetchExecutor, prefetch, producers).iterator();
+    }
+
+    private void deleteRuns(java.util.List<Path> runs) {
+        runs.forEach(run -> Try.run(() -> Files.deleteIfExists(run)));
+    }
+
+    private <T> Path spill(java.util.List<T> chunk) {
+        Path run = Try.of(() -> Files.createTempFile(spillDirectory, SPILL_FILE_PREFIX, ".run")).get();
+
+        Try.run(() -> snapshotHelper.write(run, SPILL_FORMAT, chunk.iterator()))
+                .onFailure(throwable -> Try.run(() -> Files.deleteIfExists(run)))
+                .get();
+
+        return run;
+    }
+
+    // Always takes the smallest head value, only the head of each source is held by the merge itself
+    private static class MergingIterator<T> implements Iterator<T> {
+        private final PriorityQueue<PeekingIterator<T>> heads;
+        private final Comparator<? super T> comparator;
+
+        MergingIterator(List<Iterator<T>> sources, Comparator<? super T> comparator) {
+            this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (left, right) -> comparator.compare(left.peek(), right.peek()));
+            this.comparator = comparator;
+
+            sources.map(Iterators::peekingIterator)
+                    .filter(Iterator::hasNext)
+                    .forEach(heads::add);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            PeekingIterator<T> head = heads.poll();
+            T value = head.next();
+
+            if (head.hasNext()) {
+                if (comparator.compare(head.peek(), value) < 0) {
+                    // An unsorted source would silently produce unsorted output
+                    throw new RuntimeException("A merge source is not sorted, a value was smaller than the value before it");
+                }
+
+                heads.add(head);
+            }
+
+            return value;
+        }
+    }
+}
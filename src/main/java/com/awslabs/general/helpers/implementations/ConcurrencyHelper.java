@@ -0,0 +1,139 @@
+package com.awslabs.general.helpers.implementations;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+public class ConcurrencyHelper {
+    // How often a producer that is waiting for buffer space checks whether the merge has been stopped
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    /**
+     * Runs each producer on the executor and merges the values they emit into one stream in the order they arrive.
+     * The buffer bounds how far the producers can get ahead of the consumer. If any producer fails the other producers
+     * are stopped and the stream throws the failure when it reaches that point. The producers are also stopped when the
+     * stream is abandoned before it is exhausted (e.g. take(n), find), see StreamCleanupHelper.
+     */
+    public static <T> Stream<T> merge(ExecutorService executorService, int bufferSize, List<Consumer<Consumer<T>>> producers) {
+        if (producers.isEmpty()) {
+            return Stream.empty();
+        }
+
+        MergeState<T> mergeState = new MergeState<>(bufferSize);
+
+        producers.forEach(producer -> mergeState.futures.add(executorService.submit(() -> runProducer(mergeState, producer))));
+
+        return StreamCleanupHelper.withCleanup(new MergingIterator<>(mergeState.queue, producers.size()), mergeState::close);
+    }
+
+    private static <T> void runProducer(MergeState<T> mergeState, Consumer<Consumer<T>> producer) {
+        Try<Void> result = Try.run(() -> producer.accept(value -> {
+            if (mergeState.isStopping()) {
+                // Unwinds the producer, nobody will read what it emits
+                throw new CancellationException();
+            }
+
+            mergeState.offer(Try.success(Option.some(value)));
+        }));
+
+        if (mergeState.isStopping()) {
+            // Either another producer already reported a failure or the consumer has gone away
+            return;
+        }
+
+        if (result.isSuccess()) {
+            // An empty option marks the end of one producer's results
+            Try.run(() -> mergeState.offer(Try.success(Option.none())));
+        } else if (mergeState.failed.compareAndSet(false, true)) {
+            // Only the first failure is reported, the other producers are interrupted instead of running to completion
+            mergeState.cancelProducers();
+
+            // This producer's own future was cancelled too, clear the interrupt so the failure can still be queued
+            Thread.interrupted();
+
+            Try.run(() -> mergeState.offer(Try.failure(result.getCause())));
+        }
+    }
+
+    private static class MergeState<T> {
+        // Each entry is either a value, a failure, or an empty option that marks the end of one producer's results
+        private final BlockingQueue<Try<Option<T>>> queue;
+        private final java.util.List<Future<?>> futures = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean failed = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        MergeState(int bufferSize) {
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        boolean isStopping() {
+            return failed.get() || closed.get();
+        }
+
+        void offer(Try<Option<T>> entry) throws InterruptedException {
+            while (!queue.offer(entry, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                if (closed.get()) {
+                    throw new CancellationException();
+                }
+            }
+        }
+
+        // Interrupts producers that are blocked in a call instead of waiting for their next value
+        void cancelProducers() {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        // Called once the stream is exhausted, has thrown, or has been abandoned
+        void close() {
+            closed.set(true);
+            cancelProducers();
+            queue.clear();
+        }
+    }
+
+    private static class MergingIterator<T> implements Iterator<T> {
+        private final BlockingQueue<Try<Option<T>>> queue;
+        private int remainingProducers;
+        private Option<T> next = Option.none();
+
+        MergingIterator(BlockingQueue<Try<Option<T>>> queue, int producerCount) {
+            this.queue = queue;
+            this.remainingProducers = producerCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next.isEmpty() && (remainingProducers > 0)) {
+                Option<T> value = Try.of(queue::take).get().get();
+
+                if (value.isEmpty()) {
+                    // One producer has finished
+                    remainingProducers--;
+                }
+
+                next = value;
+            }
+
+            return next.isDefined();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            T value = next.get();
+            next = Option.none();
+
+            return value;
+        }
+    }
+}
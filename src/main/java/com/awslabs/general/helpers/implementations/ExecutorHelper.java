@@ -0,0 +1,45 @@
+package com.awslabs.general.helpers.implementations;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.*;
+
+public class ExecutorHelper {
+    public static ThreadFactory getDaemonThreadFactory(String name) {
+        return new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(String.join("-", name, "%d"))
+                .build();
+    }
+
+    public static ExecutorService newDaemonExecutor(String name, int maxThreads) {
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), getDaemonThreadFactory(name));
+
+        // Let idle threads exit so short bursts of work don't leave threads behind
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+        return threadPoolExecutor;
+    }
+
+    // For work that must never wait for a free thread, e.g. producers that another task is waiting on
+    public static ExecutorService newCachedDaemonExecutor(String name) {
+        return Executors.newCachedThreadPool(getDaemonThreadFactory(name));
+    }
+
+    // For tasks that spend most of their time blocked on SDK calls. On Java 21+ every task gets its own virtual thread
+    // and callers limit concurrency themselves (e.g. with rate limiters), on Java 8 this falls back to a bounded pool.
+    public static ExecutorService newBlockingExecutor(String name, int maxPlatformThreads) {
+        return VirtualThreadHelper.newVirtualThreadPerTaskExecutor(name)
+                .getOrElse(() -> newDaemonExecutor(name, maxPlatformThreads));
+    }
+
+    // Like newBlockingExecutor but tasks never wait for a free platform thread on Java 8 either
+    public static ExecutorService newUnboundedBlockingExecutor(String name) {
+        return VirtualThreadHelper.newVirtualThreadPerTaskExecutor(name)
+                .getOrElse(() -> newCachedDaemonExecutor(name));
+    }
+
+    public static ScheduledExecutorService newScheduledDaemonExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor(getDaemonThreadFactory(name));
+    }
+}
@@ -31,6 +31,14 @@ public class JacksonHelper {
         return Try.of(() -> lazyJsonObjectMapper.get().readValue(json, clazz));
     }
 
+    public static <T> Try<T> tryParseJson(byte[] json, Class<T> clazz) {
+        return Try.of(() -> lazyJsonObjectMapper.get().readValue(json, clazz));
+    }
+
+    public static Try<JsonNode> tryParseJsonNode(byte[] json) {
+        return Try.of(() -> lazyJsonObjectMapper.get().readTree(json));
+    }
+
     public static <T> Try<T> tryParseYaml(String yaml, Class<T> clazz) {
         return Try.of(() -> lazyYamlObjectMapper.get().readValue(yaml, clazz));
     }
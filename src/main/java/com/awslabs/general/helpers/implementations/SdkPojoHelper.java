@@ -0,0 +1,168 @@
+package com.awslabs.general.helpers.implementations;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.vavr.collection.Stream;
+import io.vavr.control.Try;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.SdkField;
+import software.amazon.awssdk.core.SdkPojo;
+import software.amazon.awssdk.core.protocol.MarshallingType;
+import software.amazon.awssdk.core.traits.ListTrait;
+import software.amazon.awssdk.core.traits.MapTrait;
+import software.amazon.awssdk.core.util.SdkAutoConstructList;
+import software.amazon.awssdk.core.util.SdkAutoConstructMap;
+import software.amazon.awssdk.utils.builder.Buildable;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// SDK v2 model objects are built with builders and use fluent accessors so Jackson can't handle them directly. This
+//   uses each object's SDK field metadata instead, which is what the SDK's own marshallers use.
+public class SdkPojoHelper {
+    private static final JsonNodeFactory jsonNodeFactory = JsonNodeFactory.instance;
+
+    public static JsonNode toJsonNode(SdkPojo sdkPojo) {
+        ObjectNode objectNode = jsonNodeFactory.objectNode();
+
+        sdkPojo.sdkFields()
+                .forEach(sdkField -> {
+                    Object value = sdkField.getValueOrDefault(sdkPojo);
+
+                    // Lists and maps that were never set are skipped so they are still unset after a round trip
+                    if ((value != null) && !(value instanceof SdkAutoConstructList) && !(value instanceof SdkAutoConstructMap)) {
+                        objectNode.set(sdkField.memberName(), valueToJsonNode(value));
+                    }
+                });
+
+        return objectNode;
+    }
+
+    public static <T extends SdkPojo> T fromJsonNode(JsonNode jsonNode, Class<T> sdkPojoClass) {
+        SdkPojo builder = Try.of(() -> sdkPojoClass.getMethod("builder").invoke(null))
+                .map(SdkPojo.class::cast)
+                .getOrElseThrow(throwable -> new RuntimeException("Could not get a builder for [" + sdkPojoClass.getName() + "]", throwable));
+
+        return sdkPojoClass.cast(populateAndBuild(builder, jsonNode));
+    }
+
+    private static Object populateAndBuild(SdkPojo builder, JsonNode jsonNode) {
+        builder.sdkFields()
+                .forEach(sdkField -> {
+                    JsonNode fieldNode = jsonNode.get(sdkField.memberName());
+
+                    if ((fieldNode != null) && !fieldNode.isNull()) {
+                        sdkField.set(builder, jsonNodeToValue(fieldNode, sdkField));
+                    }
+                });
+
+        return ((Buildable) builder).build();
+    }
+
+    private static JsonNode valueToJsonNode(Object value) {
+        if (value instanceof SdkPojo) {
+            return toJsonNode((SdkPojo) value);
+        }
+
+        if (value instanceof Collection) {
+            ArrayNode arrayNode = jsonNodeFactory.arrayNode();
+            ((Collection<?>) value).forEach(element -> arrayNode.add(element == null ? jsonNodeFactory.nullNode() : valueToJsonNode(element)));
+
+            return arrayNode;
+        }
+
+        if (value instanceof Map) {
+            ObjectNode objectNode = jsonNodeFactory.objectNode();
+            ((Map<?, ?>) value).forEach((key, element) -> objectNode.set(String.valueOf(key), element == null ? jsonNodeFactory.nullNode() : valueToJsonNode(element)));
+
+            return objectNode;
+        }
+
+        if (value instanceof Instant) {
+            return jsonNodeFactory.textNode(value.toString());
+        }
+
+        if (value instanceof SdkBytes) {
+            return jsonNodeFactory.textNode(Base64.getEncoder().encodeToString(((SdkBytes) value).asByteArrayUnsafe()));
+        }
+
+        // Strings, numbers, and booleans
+        return JacksonHelper.tryToJsonNode(value).get();
+    }
+
+    private static Object jsonNodeToValue(JsonNode jsonNode, SdkField<?> sdkField) {
+        MarshallingType<?> marshallingType = sdkField.marshallingType();
+
+        if (jsonNode.isNull()) {
+            return null;
+        }
+
+        if (MarshallingType.SDK_POJO.equals(marshallingType)) {
+            return populateAndBuild(sdkField.constructor().get(), jsonNode);
+        }
+
+        if (MarshallingType.LIST.equals(marshallingType)) {
+            SdkField<?> memberField = sdkField.getTrait(ListTrait.class).memberFieldInfo();
+
+            return Stream.ofAll(jsonNode)
+                    .map(element -> jsonNodeToValue(element, memberField))
+                    .toJavaList();
+        }
+
+        if (MarshallingType.MAP.equals(marshallingType)) {
+            SdkField<?> valueField = sdkField.getTrait(MapTrait.class).valueFieldInfo();
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            jsonNode.fields().forEachRemaining(entry -> map.put(entry.getKey(), jsonNodeToValue(entry.getValue(), valueField)));
+
+            return map;
+        }
+
+        if (MarshallingType.STRING.equals(marshallingType)) {
+            return jsonNode.asText();
+        }
+
+        if (MarshallingType.INTEGER.equals(marshallingType)) {
+            return jsonNode.asInt();
+        }
+
+        if (MarshallingType.LONG.equals(marshallingType)) {
+            return jsonNode.asLong();
+        }
+
+        if (MarshallingType.SHORT.equals(marshallingType)) {
+            return jsonNode.shortValue();
+        }
+
+        if (MarshallingType.FLOAT.equals(marshallingType)) {
+            return jsonNode.floatValue();
+        }
+
+        if (MarshallingType.DOUBLE.equals(marshallingType)) {
+            return jsonNode.asDouble();
+        }
+
+        if (MarshallingType.BIG_DECIMAL.equals(marshallingType)) {
+            return jsonNode.decimalValue();
+        }
+
+        if (MarshallingType.BOOLEAN.equals(marshallingType)) {
+            return jsonNode.asBoolean();
+        }
+
+        if (MarshallingType.INSTANT.equals(marshallingType)) {
+            return Instant.parse(jsonNode.asText());
+        }
+
+        if (MarshallingType.SDK_BYTES.equals(marshallingType)) {
+            return SdkBytes.fromByteArrayUnsafe(Base64.getDecoder().decode(jsonNode.asText()));
+        }
+
+        throw new UnsupportedOperationException("Fields with the marshalling type [" + marshallingType + "] are not supported");
+    }
+}
@@ -0,0 +1,12 @@
+package com.awslabs.general.helpers.implementations;
+
+import io.vavr.control.Option;
+
+public class SettingsHelper {
+    // Read from system properties first and then from environment variables
+    public static Option<String> getSetting(String name) {
+        return Option.of(System.getProperty(name))
+                .orElse(() -> Option.of(System.getenv(name)))
+                .map(String::trim);
+    }
+}
@@ -0,0 +1,112 @@
+package com.awslabs.general.helpers.implementations;
+
+import io.vavr.collection.Stream;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.getDaemonThreadFactory;
+
+public class StreamCleanupHelper {
+    private static final Logger log = LoggerFactory.getLogger(StreamCleanupHelper.class);
+    private static final ReferenceQueue<Object> abandonedIterators = new ReferenceQueue<>();
+    // The references have to stay reachable themselves or they are never enqueued
+    private static final Set<CleanupReference> cleanupReferences = ConcurrentHashMap.newKeySet();
+
+    static {
+        getDaemonThreadFactory("stream-cleanup").newThread(StreamCleanupHelper::cleanUpAbandonedIterators).start();
+    }
+
+    /**
+     * Vavr streams can't be closed so this is how streams that hold resources (threads, files, mappings) release them.
+     * The cleanup runs once, as soon as the iterator is exhausted, throws, or the stream is abandoned and garbage
+     * collected, whichever happens first. The cleanup must not refer to the iterator or it will never be collected.
+     */
+    public static <T> Stream<T> withCleanup(Iterator<T> iterator, Runnable cleanup) {
+        Cleanup onceOnly = new Cleanup(cleanup);
+        CleanupIterator<T> cleanupIterator = new CleanupIterator<>(iterator, onceOnly);
+
+        cleanupReferences.add(new CleanupReference(cleanupIterator, onceOnly));
+
+        return Stream.ofAll(() -> cleanupIterator);
+    }
+
+    private static void cleanUpAbandonedIterators() {
+        while (true) {
+            Try.run(() -> {
+                CleanupReference cleanupReference = (CleanupReference) abandonedIterators.remove();
+                cleanupReferences.remove(cleanupReference);
+                cleanupReference.cleanup.run();
+            });
+        }
+    }
+
+    private static class Cleanup implements Runnable {
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final Runnable cleanup;
+
+        Cleanup(Runnable cleanup) {
+            this.cleanup = cleanup;
+        }
+
+        @Override
+        public void run() {
+            if (done.compareAndSet(false, true)) {
+                Try.run(cleanup::run)
+                        .onFailure(throwable -> log.warn("Failed to clean up a stream", throwable));
+            }
+        }
+    }
+
+    private static class CleanupReference extends PhantomReference<Object> {
+        private final Cleanup cleanup;
+
+        CleanupReference(Object referent, Cleanup cleanup) {
+            super(referent, abandonedIterators);
+            this.cleanup = cleanup;
+        }
+    }
+
+    private static class CleanupIterator<T> implements Iterator<T> {
+        private final Iterator<T> iterator;
+        private final Cleanup cleanup;
+
+        CleanupIterator(Iterator<T> iterator, Cleanup cleanup) {
+            this.iterator = iterator;
+            this.cleanup = cleanup;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                boolean hasNext = iterator.hasNext();
+
+                if (!hasNext) {
+                    cleanup.run();
+                }
+
+                return hasNext;
+            } catch (RuntimeException e) {
+                cleanup.run();
+                throw e;
+            }
+        }
+
+        @Override
+        public T next() {
+            try {
+                return iterator.next();
+            } catch (RuntimeException e) {
+                cleanup.run();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.awslabs.general.helpers.implementations;
+
+import com.google.common.util.concurrent.RateLimiter;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.util.function.Supplier;
+
+public class ThrottlingRetryHelper {
+    private static final int MAX_THROTTLING_RETRIES = 8;
+    private static final long BASE_RETRY_DELAY_MS = 100;
+    // Some services (e.g. IoT) report request rate limits with this code instead of a throttling code
+    private static final String LIMIT_EXCEEDED_EXCEPTION = "LimitExceededException";
+
+    // Acquires a permit before every attempt and retries throttled calls with exponential backoff, other failures are thrown immediately
+    public static <T> T withThrottlingRetries(RateLimiter rateLimiter, Supplier<T> supplier) {
+        int attempt = 0;
+
+        while (true) {
+            rateLimiter.acquire();
+
+            Try<T> result = Try.of(supplier::get);
+
+            if (result.isSuccess() || !isThrottled(result.getCause()) || (attempt >= MAX_THROTTLING_RETRIES)) {
+                return result.get();
+            }
+
+            // Back off before retrying the throttled call, other callers keep going in the meantime
+            long delay = BASE_RETRY_DELAY_MS << Math.min(attempt, 6);
+            Try.run(() -> Thread.sleep(delay)).get();
+            attempt++;
+        }
+    }
+
+    public static void withThrottlingRetries(RateLimiter rateLimiter, Runnable runnable) {
+        withThrottlingRetries(rateLimiter, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public static boolean isThrottled(Throwable throwable) {
+        if (!(throwable instanceof AwsServiceException)) {
+            return false;
+        }
+
+        AwsServiceException awsServiceException = (AwsServiceException) throwable;
+
+        return awsServiceException.isThrottlingException() ||
+                Option.of(awsServiceException.awsErrorDetails())
+                        .map(AwsErrorDetails::errorCode)
+                        .contains(LIMIT_EXCEEDED_EXCEPTION);
+    }
+}
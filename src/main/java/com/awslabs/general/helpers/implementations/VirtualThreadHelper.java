@@ -0,0 +1,17 @@
+package com.awslabs.general.helpers.implementations;
+
+import io.vavr.control.Option;
+
+import java.util.concurrent.ExecutorService;
+
+// Java 8 version, jars built with -Pjava21 contain a Java 21+ version of this class in META-INF/versions/21 that uses
+//   virtual threads
+public class VirtualThreadHelper {
+    public static boolean isAvailable() {
+        return false;
+    }
+
+    public static Option<ExecutorService> newVirtualThreadPerTaskExecutor(String name) {
+        return Option.none();
+    }
+}
@@ -0,0 +1,24 @@
+package com.awslabs.general.helpers.interfaces;
+
+import com.awslabs.general.helpers.data.SnapshotDifference;
+import com.awslabs.general.helpers.data.SnapshotFormat;
+import com.awslabs.resultsiterator.interfaces.ResultsIteratorInterface;
+import io.vavr.collection.Stream;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.function.Function;
+
+public interface SnapshotHelper {
+    <T> long write(Path path, SnapshotFormat snapshotFormat, ResultsIteratorInterface<T> resultsIterator);
+
+    <T> long write(Path path, SnapshotFormat snapshotFormat, Iterator<T> values);
+
+    <T> Stream<T> read(Path path, SnapshotFormat snapshotFormat, Class<T> clazz);
+
+    // Both inputs must already be sorted by a unique key, the stream throws when it reaches a key that is out of order
+    //   or repeated. Listings like ListThings are not sorted, sort them first (e.g. with SortHelper.externalSort).
+    <T, K extends Comparable<? super K>> Stream<SnapshotDifference<T>> diff(Path beforePath, Path afterPath, SnapshotFormat snapshotFormat, Class<T> clazz, Function<T, K> keyFunction);
+
+    <T, K extends Comparable<? super K>> Stream<SnapshotDifference<T>> diff(Iterator<T> before, Iterator<T> after, Function<T, K> keyFunction);
+}
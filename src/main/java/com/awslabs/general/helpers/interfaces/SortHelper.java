@@ -0,0 +1,30 @@
+package com.awslabs.general.helpers.interfaces;
+
+import com.awslabs.resultsiterator.interfaces.ResultsIteratorInterface;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.function.Function;
+
+public interface SortHelper {
+    int DEFAULT_MAX_IN_MEMORY = 100_000;
+    int DEFAULT_PREFETCH = 1000;
+
+    // Returns the K greatest values in descending order while only holding K values in memory
+    <T> List<T> topK(Iterator<T> values, int k, Comparator<? super T> comparator);
+
+    <T> Option<T> max(Iterator<T> values, Comparator<? super T> comparator);
+
+    // Sorts in ascending order, values are spilled to disk in sorted runs so only maxInMemory values are held in memory
+    <T> Stream<T> externalSort(Iterator<T> values, Class<T> clazz, Comparator<? super T> comparator, int maxInMemory);
+
+    <T> Stream<T> externalSort(Iterator<T> values, Class<T> clazz, Comparator<? super T> comparator);
+
+    // Merges sources that are each already sorted into one sorted stream, each source is read ahead by up to prefetch values on its own thread
+    <T> Stream<T> merge(List<Iterator<T>> sources, Comparator<? super T> comparator, int prefetch);
+
+    <T, K extends Comparable<? super K>> Stream<T> merge(List<? extends ResultsIteratorInterface<T>> resultsIterators, Function<T, K> keyExtractor);
+}
@@ -0,0 +1,20 @@
+package com.awslabs.iot.data;
+
+import com.awslabs.data.NoToString;
+import io.vavr.control.Option;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class CertificateDeletionOutcome extends NoToString {
+    public abstract CertificateArn getCertificateArn();
+
+    public abstract CertificateDeletionStatus getStatus();
+
+    // Only present when the status is FAILED
+    @Value.Default
+    public Option<String> getErrorMessage() {
+        return Option.none();
+    }
+}
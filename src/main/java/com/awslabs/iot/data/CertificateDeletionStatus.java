@@ -0,0 +1,8 @@
+package com.awslabs.iot.data;
+
+public enum CertificateDeletionStatus {
+    DELETED,
+    SKIPPED_CA_CERTIFICATE,
+    SKIPPED_IMMUTABLE_THING,
+    FAILED
+}
@@ -0,0 +1,17 @@
+package com.awslabs.iot.data;
+
+public enum KeyPairAlgorithm {
+    RSA("RSA"),
+    EC("EC"),
+    ECDSA("ECDSA");
+
+    private final String name;
+
+    KeyPairAlgorithm(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,24 @@
+package com.awslabs.iot.data;
+
+import com.awslabs.data.NoToString;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class KeyPairPoolMetrics extends NoToString {
+    public abstract KeyPairSpec getKeyPairSpec();
+
+    // Key pairs that are ready to be handed out
+    public abstract int getAvailable();
+
+    // Requests that were served from the pool
+    public abstract long getHits();
+
+    // Requests that had to wait for a key pair to be generated
+    public abstract long getMisses();
+
+    public abstract long getGenerated();
+
+    public abstract double getAverageGenerationMillis();
+}
@@ -0,0 +1,13 @@
+package com.awslabs.iot.data;
+
+import com.awslabs.data.NoToString;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class KeyPairSpec extends NoToString {
+    public abstract KeyPairAlgorithm getAlgorithm();
+
+    public abstract int getKeySize();
+}
@@ -0,0 +1,33 @@
+package com.awslabs.iot.data;
+
+import com.awslabs.data.NoToString;
+import io.vavr.control.Option;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class ThingProvisioningOutcome extends NoToString {
+    public abstract ThingName getThingName();
+
+    // Present for every step that completed, a failed outcome can still have a thing and a certificate
+    @Value.Default
+    public Option<ThingArn> getThingArn() {
+        return Option.none();
+    }
+
+    @Value.Default
+    public Option<CertificateArn> getCertificateArn() {
+        return Option.none();
+    }
+
+    // Only present when one of the steps failed
+    @Value.Default
+    public Option<String> getErrorMessage() {
+        return Option.none();
+    }
+
+    public boolean isSuccessful() {
+        return getErrorMessage().isEmpty();
+    }
+}
@@ -0,0 +1,17 @@
+package com.awslabs.iot.data;
+
+import com.awslabs.data.NoToString;
+import io.vavr.collection.List;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class ThingProvisioningRequest extends NoToString {
+    public abstract ThingName getThingName();
+
+    public abstract CertificateSigningRequest getCertificateSigningRequest();
+
+    // Attached to the certificate after it is attached to the thing
+    public abstract List<PolicyName> getPolicyNames();
+}
@@ -0,0 +1,227 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.general.helpers.implementations.ConcurrencyHelper;
+import com.awslabs.general.helpers.implementations.JacksonHelper;
+import com.awslabs.iot.data.*;
+import com.awslabs.iot.helpers.interfaces.BulkProvisioningHelper;
+import com.awslabs.resultsiterator.implementations.ResultsIterator;
+import com.awslabs.s3.helpers.data.S3Bucket;
+import com.awslabs.s3.helpers.data.S3Key;
+import com.awslabs.s3.helpers.interfaces.S3Helper;
+import com.google.common.util.concurrent.RateLimiter;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.iam.model.Role;
+import software.amazon.awssdk.services.iot.IotClient;
+import software.amazon.awssdk.services.iot.model.*;
+
+import javax.inject.Inject;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newUnboundedBlockingExecutor;
+import static com.awslabs.general.helpers.implementations.ThrottlingRetryHelper.withThrottlingRetries;
+
+public class BasicBulkProvisioningHelper implements BulkProvisioningHelper {
+    private static final int MAX_CONCURRENT_PROVISIONS = 32;
+    private static final int OUTCOME_BUFFER_SIZE = 1000;
+    // Each operation has its own IoT rate limit so each step gets its own limiter, this lets the steps of different
+    //   things overlap instead of sharing one budget
+    private static final double REQUESTS_PER_SECOND_PER_OPERATION = 15;
+    private static final long TASK_POLL_INTERVAL_MS = 5000;
+    private static final String INPUT_FILE_PREFIX = "thing-registration-";
+    // Unbounded so that concurrent provisioning calls can't starve each other, each call limits itself with a semaphore
+    private static final ExecutorService provisioningExecutor = newUnboundedBlockingExecutor("iot-bulk-provisioning");
+    private final Logger log = LoggerFactory.getLogger(BasicBulkProvisioningHelper.class);
+    private final RateLimiter createThingRateLimiter = RateLimiter.create(REQUESTS_PER_SECOND_PER_OPERATION);
+    private final RateLimiter createCertificateRateLimiter = RateLimiter.create(REQUESTS_PER_SECOND_PER_OPERATION);
+    private final RateLimiter attachThingPrincipalRateLimiter = RateLimiter.create(REQUESTS_PER_SECOND_PER_OPERATION);
+    private final RateLimiter attachPolicyRateLimiter = RateLimiter.create(REQUESTS_PER_SECOND_PER_OPERATION);
+    @Inject
+    IotClient iotClient;
+    @Inject
+    S3Helper s3Helper;
+
+    @Inject
+    public BasicBulkProvisioningHelper() {
+    }
+
+    @Override
+    public Stream<ThingProvisioningOutcome> provision(Stream<ThingProvisioningRequest> thingProvisioningRequests) {
+        Semaphore inFlight = new Semaphore(MAX_CONCURRENT_PROVISIONS);
+
+        Consumer<Consumer<ThingProvisioningOutcome>> producer = sink -> {
+            thingProvisioningRequests.forEach(thingProvisioningRequest -> {
+                Try.run(inFlight::acquire).get();
+
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        sink.accept(tryProvision(thingProvisioningRequest));
+                    } finally {
+                        inFlight.release();
+                    }
+                }, provisioningExecutor);
+            });
+
+            // Wait for the last things before the stream is marked as complete
+            Try.run(() -> inFlight.acquire(MAX_CONCURRENT_PROVISIONS)).get();
+        };
+
+        return ConcurrencyHelper.merge(provisioningExecutor, OUTCOME_BUFFER_SIZE, List.of(producer));
+    }
+
+    private ThingProvisioningOutcome tryProvision(ThingProvisioningRequest thingProvisioningRequest) {
+        ThingName thingName = thingProvisioningRequest.getThingName();
+        AtomicReference<ImmutableThingProvisioningOutcome> outcome = new AtomicReference<>(ImmutableThingProvisioningOutcome.builder()
+                .thingName(thingName)
+                .build());
+
+        // Only the IoT call itself is retried, a throttled follow up call must never create a second certificate
+        return Try.run(() -> {
+                    ThingArn thingArn = withThrottlingRetries(createThingRateLimiter, () -> createThing(thingName));
+                    outcome.set(outcome.get().withThingArn(Option.of(thingArn)));
+
+                    CertificateArn certificateArn = withThrottlingRetries(createCertificateRateLimiter,
+                            () -> createCertificateFromCsr(thingProvisioningRequest.getCertificateSigningRequest()));
+                    outcome.set(outcome.get().withCertificateArn(Option.of(certificateArn)));
+
+                    withThrottlingRetries(attachThingPrincipalRateLimiter, () -> attachThingPrincipal(thingName, certificateArn));
+
+                    thingProvisioningRequest.getPolicyNames()
+                            .forEach(policyName -> withThrottlingRetries(attachPolicyRateLimiter, () -> attachPolicy(policyName, certificateArn)));
+                })
+                .onFailure(throwable -> log.warn(String.join("", "Failed to provision [", thingName.getName(), "]"), throwable))
+                .map(unused -> (ThingProvisioningOutcome) outcome.get())
+                .recover(throwable -> outcome.get().withErrorMessage(Option.of(String.valueOf(throwable.getMessage()))))
+                .get();
+    }
+
+    private ThingArn createThing(ThingName thingName) {
+        CreateThingRequest createThingRequest = CreateThingRequest.builder()
+                .thingName(thingName.getName())
+                .build();
+
+        // Creating a thing that already exists with the same properties succeeds, so a retry after a throttled call is safe
+        String thingArn = Try.of(() -> iotClient.createThing(createThingRequest).thingArn())
+                // The thing already exists with different attributes, it is provisioned as it is
+                .recover(ResourceAlreadyExistsException.class, throwable -> iotClient.describeThing(DescribeThingRequest.builder().thingName(thingName.getName()).build()).thingArn())
+                .get();
+
+        return ImmutableThingArn.builder().arn(thingArn).build();
+    }
+
+    private CertificateArn createCertificateFromCsr(CertificateSigningRequest certificateSigningRequest) {
+        CreateCertificateFromCsrRequest createCertificateFromCsrRequest = CreateCertificateFromCsrRequest.builder()
+                .certificateSigningRequest(certificateSigningRequest.getRequest())
+                .setAsActive(true)
+                .build();
+
+        return ImmutableCertificateArn.builder().arn(iotClient.createCertificateFromCsr(createCertificateFromCsrRequest).certificateArn()).build();
+    }
+
+    private void attachThingPrincipal(ThingName thingName, CertificateArn certificateArn) {
+        AttachThingPrincipalRequest attachThingPrincipalRequest = AttachThingPrincipalRequest.builder()
+                .thingName(thingName.getName())
+                .principal(certificateArn.getArn())
+                .build();
+
+        iotClient.attachThingPrincipal(attachThingPrincipalRequest);
+    }
+
+    private void attachPolicy(PolicyName policyName, CertificateArn certificateArn) {
+        AttachPolicyRequest attachPolicyRequest = AttachPolicyRequest.builder()
+                .policyName(policyName.getName())
+                .target(certificateArn.getArn())
+                .build();
+
+        iotClient.attachPolicy(attachPolicyRequest);
+    }
+
+    @Override
+    public ThingRegistrationTaskId startThingRegistrationTask(String templateBody, Stream<Map<String, String>> templateParameters, S3Bucket s3Bucket, S3Key s3Key, Role role) {
+        Path inputFile = Try.of(() -> Files.createTempFile(INPUT_FILE_PREFIX, ".json")).get();
+
+        try {
+            // The input file has one JSON object per line, it is written to disk so the batch never has to fit in memory
+            Try.withResources(() -> Files.newBufferedWriter(inputFile, StandardCharsets.UTF_8))
+                    .of(writer -> writeTemplateParameters(writer, templateParameters))
+                    .get();
+
+            s3Helper.copyToS3(s3Bucket, s3Key, inputFile.toFile());
+        } finally {
+            Try.run(() -> Files.deleteIfExists(inputFile));
+        }
+
+        StartThingRegistrationTaskRequest startThingRegistrationTaskRequest = StartThingRegistrationTaskRequest.builder()
+                .templateBody(templateBody)
+                .inputFileBucket(s3Bucket.bucket())
+                .inputFileKey(s3Key.key())
+                .roleArn(role.arn())
+                .build();
+
+        String taskId = iotClient.startThingRegistrationTask(startThingRegistrationTaskRequest).taskId();
+
+        log.debug(String.join("", "Started thing registration task [", taskId, "]"));
+
+        return ImmutableThingRegistrationTaskId.builder().taskId(taskId).build();
+    }
+
+    private Void writeTemplateParameters(BufferedWriter writer, Stream<Map<String, String>> templateParameters) {
+        templateParameters
+                .map(Map::toJavaMap)
+                .map(JacksonHelper::tryToJsonString)
+                .map(Try::get)
+                .forEach(line -> Try.run(() -> {
+                    writer.write(line);
+                    writer.newLine();
+                }).get());
+
+        return null;
+    }
+
+    @Override
+    public DescribeThingRegistrationTaskResponse waitForThingRegistrationTask(ThingRegistrationTaskId thingRegistrationTaskId) {
+        DescribeThingRegistrationTaskRequest describeThingRegistrationTaskRequest = DescribeThingRegistrationTaskRequest.builder()
+                .taskId(thingRegistrationTaskId.getTaskId())
+                .build();
+
+        while (true) {
+            DescribeThingRegistrationTaskResponse describeThingRegistrationTaskResponse = iotClient.describeThingRegistrationTask(describeThingRegistrationTaskRequest);
+
+            if (!isRunning(describeThingRegistrationTaskResponse.status())) {
+                return describeThingRegistrationTaskResponse;
+            }
+
+            log.debug(String.join("", "Waiting for thing registration task [", thingRegistrationTaskId.getTaskId(), "], ",
+                    String.valueOf(describeThingRegistrationTaskResponse.percentageProgress()), "% complete"));
+
+            Try.run(() -> Thread.sleep(TASK_POLL_INTERVAL_MS)).get();
+        }
+    }
+
+    private boolean isRunning(Status status) {
+        return Status.IN_PROGRESS.equals(status) || Status.CANCELLING.equals(status);
+    }
+
+    @Override
+    public Stream<String> getThingRegistrationTaskReports(ThingRegistrationTaskId thingRegistrationTaskId, ReportType reportType) {
+        ListThingRegistrationTaskReportsRequest listThingRegistrationTaskReportsRequest = ListThingRegistrationTaskReportsRequest.builder()
+                .taskId(thingRegistrationTaskId.getTaskId())
+                .reportType(reportType)
+                .build();
+
+        return new ResultsIterator<String>(iotClient, listThingRegistrationTaskReportsRequest).stream();
+    }
+}
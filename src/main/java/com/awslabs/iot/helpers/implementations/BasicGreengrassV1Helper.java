@@ -1,5 +1,6 @@
 package com.awslabs.iot.helpers.implementations;
 
+import com.awslabs.general.helpers.interfaces.SortHelper;
 import com.awslabs.iam.data.ImmutableRoleArn;
 import com.awslabs.iam.data.RoleArn;
 import com.awslabs.iam.data.RoleName;
@@ -11,6 +12,9 @@ import com.awslabs.iot.helpers.interfaces.IotHelper;
 import com.awslabs.iot.helpers.interfaces.IotIdExtractor;
 import com.awslabs.resultsiterator.implementations.ResultsIterator;
 import com.awslabs.resultsiterator.interfaces.ReflectionHelper;
+import com.awslabs.resultsiterator.interfaces.ResultsCache;
+import io.vavr.Tuple;
+import io.vavr.Tuple3;
 import io.vavr.collection.List;
 import io.vavr.collection.Stream;
 import io.vavr.control.Option;
@@ -25,6 +29,7 @@ import software.amazon.awssdk.services.iam.model.Role;
 import javax.inject.Inject;
 import java.lang.reflect.Method;
 import java.time.Instant;
+import java.util.Comparator;
 import java.util.UUID;
 import java.util.function.Predicate;
 
@@ -43,6 +48,10 @@ public class BasicGreengrassV1Helper implements GreengrassV1Helper {
     ReflectionHelper reflectionHelper;
     @Inject
     IamHelper iamHelper;
+    @Inject
+    ResultsCache resultsCache;
+    @Inject
+    SortHelper sortHelper;
 
     @Inject
     public BasicGreengrassV1Helper() {
@@ -50,7 +59,8 @@ public class BasicGreengrassV1Helper implements GreengrassV1Helper {
 
     @Override
     public Stream<GroupInformation> getGroups() {
-        return new ResultsIterator<GroupInformation>(greengrassClient, ListGroupsRequest.class).stream();
+        // Group lookups by name and ID all list the groups so repeated lookups are served from the cache
+        return new ResultsIterator<GroupInformation>(greengrassClient, ListGroupsRequest.class).cached(resultsCache).stream();
     }
 
     @Override
@@ -444,10 +454,15 @@ public class BasicGreengrassV1Helper implements GreengrassV1Helper {
 
     @Override
     public Option<Deployment> getLatestDeployment(GroupInformation groupInformation) {
-        return Option.of(getDeployments(groupInformation)
-                .sortBy(deployment -> Instant.parse(deployment.createdAt()).toEpochMilli())
-                .reverse()
-                .getOrNull());
+        // Deployments created in the same millisecond go to the one listed last, like the stable sort this replaced
+        Comparator<Tuple3<Long, Integer, Deployment>> byCreatedAt = Comparator.<Tuple3<Long, Integer, Deployment>, Long>comparing(Tuple3::_1)
+                .thenComparing(Tuple3::_2);
+
+        // Parse each timestamp once and only keep the newest deployment instead of sorting all of them
+        return sortHelper.max(getDeployments(groupInformation)
+                        .zipWithIndex((deployment, index) -> Tuple.of(Instant.parse(deployment.createdAt()).toEpochMilli(), index, deployment))
+                        .iterator(), byCreatedAt)
+                .map(Tuple3::_3);
     }
 
     @Override
@@ -521,6 +536,7 @@ public class BasicGreengrassV1Helper implements GreengrassV1Helper {
                 .build();
 
         greengrassClient.deleteGroup(deleteGroupRequest);
+        resultsCache.invalidate(greengrassClient, ListGroupsRequest.class);
 
         log.debug(String.join("", "Deleted group [", greengrassGroupId.getGroupId(), "]"));
     }
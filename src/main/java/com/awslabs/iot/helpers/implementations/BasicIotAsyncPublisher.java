@@ -0,0 +1,73 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.Qos;
+import com.awslabs.iot.data.TopicName;
+import com.awslabs.iot.helpers.interfaces.IotAsyncPublisher;
+import io.vavr.control.Try;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.iotdataplane.IotDataPlaneAsyncClient;
+import software.amazon.awssdk.services.iotdataplane.model.PublishRequest;
+import software.amazon.awssdk.services.iotdataplane.model.PublishResponse;
+
+import javax.inject.Inject;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import static com.awslabs.general.helpers.implementations.SettingsHelper.getSetting;
+
+public class BasicIotAsyncPublisher implements IotAsyncPublisher {
+    // Matches the default connection limit of the Netty client, the module raises that limit along with this setting
+    private static final int DEFAULT_MAX_IN_FLIGHT = 50;
+    public static final int MAX_IN_FLIGHT = getSetting(IOT_PUBLISH_MAX_IN_FLIGHT).map(Integer::parseInt).getOrElse(DEFAULT_MAX_IN_FLIGHT);
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private final Set<CompletableFuture<PublishResponse>> outstanding = ConcurrentHashMap.newKeySet();
+    @Inject
+    IotDataPlaneAsyncClient iotDataPlaneAsyncClient;
+
+    @Inject
+    public BasicIotAsyncPublisher() {
+    }
+
+    @Override
+    public CompletableFuture<PublishResponse> publish(TopicName topicName, Qos qos, ByteBuffer payload) {
+        PublishRequest publishRequest = PublishRequest.builder()
+                .topic(topicName.getName())
+                .qos(qos.getLevel())
+                .payload(SdkBytes.fromByteBufferUnsafe(payload))
+                .build();
+
+        Try.run(inFlight::acquire).get();
+
+        CompletableFuture<PublishResponse> future = Try.of(() -> iotDataPlaneAsyncClient.publish(publishRequest))
+                // The slot must be released even if the request couldn't be started
+                .onFailure(throwable -> inFlight.release())
+                .get()
+                .whenComplete((publishResponse, throwable) -> inFlight.release());
+
+        // Added before the removal is registered so a future that is already complete is never left behind
+        outstanding.add(future);
+        future.whenComplete((publishResponse, throwable) -> outstanding.remove(future));
+
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<PublishResponse> publish(TopicName topicName, Qos qos, String payload) {
+        return publish(topicName, qos, ByteBuffer.wrap(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void flush() {
+        // Only what is outstanding now is waited for, other threads that keep publishing can't hold this up
+        CompletableFuture<?>[] futures = outstanding.toArray(new CompletableFuture<?>[0]);
+
+        // Failures are reported through the future returned for each message
+        CompletableFuture.allOf(futures)
+                .exceptionally(throwable -> null)
+                .join();
+    }
+}
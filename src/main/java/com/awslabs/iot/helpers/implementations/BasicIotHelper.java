@@ -1,9 +1,27 @@
 package com.awslabs.iot.helpers.implementations;
 
 import com.awslabs.iot.data.*;
+import com.awslabs.general.helpers.implementations.ConcurrencyHelper;
+import com.awslabs.general.helpers.implementations.StreamCleanupHelper;
 import com.awslabs.iot.helpers.interfaces.IotHelper;
+import com.awslabs.iot.helpers.interfaces.IotRegistryGraph;
+import com.awslabs.iot.helpers.interfaces.KeyPairPool;
+import com.awslabs.iot.helpers.interfaces.PublishTransport;
 import com.awslabs.resultsiterator.implementations.ResultsIterator;
+import com.awslabs.resultsiterator.data.FilterCondition;
+import com.awslabs.resultsiterator.data.FilterOperator;
+import com.awslabs.resultsiterator.data.ImmutablePassword;
+import com.awslabs.resultsiterator.data.ResultsFilter;
+import com.awslabs.resultsiterator.implementations.ResultsFilters;
 import com.awslabs.resultsiterator.implementations.ResultsIteratorAbstract;
+import com.awslabs.resultsiterator.interfaces.CryptoContext;
+import com.awslabs.resultsiterator.interfaces.SslContextHelper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.vavr.Tuple;
 import io.vavr.Tuple2;
 import io.vavr.Value;
 import io.vavr.collection.HashMap;
@@ -18,17 +36,12 @@ import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cert.X509v3CertificateBuilder;
-import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
-import org.bouncycastle.jce.ECNamedCurveTable;
 import org.bouncycastle.jce.ECPointUtil;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
 import org.bouncycastle.jce.spec.ECNamedCurveSpec;
 import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
 import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
 import org.bouncycastle.operator.ContentSigner;
-import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.bouncycastle.pkcs.PKCS10CertificationRequestBuilder;
 import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
@@ -41,13 +54,11 @@ import software.amazon.awssdk.services.iot.IotClient;
 import software.amazon.awssdk.services.iot.model.Certificate;
 import software.amazon.awssdk.services.iot.model.Policy;
 import software.amazon.awssdk.services.iot.model.*;
-import software.amazon.awssdk.services.iotdataplane.IotDataPlaneClient;
-import software.amazon.awssdk.services.iotdataplane.model.PublishRequest;
 
 import javax.inject.Inject;
+import javax.net.ssl.SSLContext;
 import java.io.*;
 import java.math.BigInteger;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.security.KeyPair;
@@ -63,9 +74,24 @@ import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newDaemonExecutor;
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newUnboundedBlockingExecutor;
+import static com.awslabs.general.helpers.implementations.SettingsHelper.getSetting;
+import static com.awslabs.general.helpers.implementations.ThrottlingRetryHelper.withThrottlingRetries;
+
 public class BasicIotHelper implements IotHelper {
     public static final int RSA_SIGNER_KEY_SIZE = 4096;
     public static final int ECDSA_SIGNER_KEY_SIZE = 256;
@@ -77,14 +103,45 @@ public class BasicIotHelper implements IotHelper {
     public static final String PRIME_256_V_1 = "prime256v1";
     public static final String BC = "BC";
     public static final String SHA_256 = "SHA-256";
-    private static final KeyFactory rsaKeyFactory = Try.of(() -> KeyFactory.getInstance(RSA)).get();
-    private static final KeyFactory ecKeyFactory = Try.of(() -> KeyFactory.getInstance(EC, new BouncyCastleProvider())).get();
+    private static final String THING_TYPE_NAME_FIELD = "thingTypeName";
+    private static final String THING_NAME_FIELD = "thingName";
+    private static final String ATTRIBUTES_FIELD_PREFIX = "attributes.";
+    private static final int MAX_CONCURRENT_DELETES = 16;
+    // Stays under the default IoT limits for the detach, update, and delete calls
+    private static final double DELETE_REQUESTS_PER_SECOND = 15;
+    // Off by default like the results cache, changes made by other processes would otherwise go unseen until entries expire
+    private static final long DEFAULT_DESCRIBE_THING_CACHE_TTL_SECONDS = 0;
+    private static final long DEFAULT_DESCRIBE_THING_CACHE_MAX_ENTRIES = 10000;
+    // Keeps each fleet indexing query string well under the maximum query length
+    private static final int MAX_THING_NAMES_PER_QUERY = 50;
+    // SearchIndex returns at most 500 things per page, smaller result sets aren't worth splitting
+    private static final long MAX_THINGS_FOR_SERIAL_SEARCH = 10000;
+    private static final int MAX_PARALLEL_SEARCHES = 8;
+    private static final int SEARCH_BUFFER_SIZE = 1000;
+    // Each extra character multiplies the number of shards, and the case variants in each shard query, so splitting stops here
+    private static final int MAX_SHARD_PREFIX_LENGTH = 4;
+    // Unbounded so that concurrent bulk deletes can't starve each other, each call keeps at most MAX_CONCURRENT_DELETES in flight
+    private static final ExecutorService bulkDeleteExecutor = newUnboundedBlockingExecutor("iot-bulk-delete");
 
     private final Logger log = LoggerFactory.getLogger(BasicIotHelper.class);
+    private final RateLimiter deleteRateLimiter = RateLimiter.create(DELETE_REQUESTS_PER_SECOND);
+    // Things that don't exist are cached as none so repeated checks for missing things don't call DescribeThing either
+    private final Cache<ThingName, Option<DescribeThingResponse>> describeThingCache = CacheBuilder.newBuilder()
+            .expireAfterWrite(getSetting(DESCRIBE_THING_CACHE_TTL_SECONDS).map(Long::parseLong).getOrElse(DEFAULT_DESCRIBE_THING_CACHE_TTL_SECONDS), TimeUnit.SECONDS)
+            .maximumSize(getSetting(DESCRIBE_THING_CACHE_MAX_ENTRIES).map(Long::parseLong).getOrElse(DEFAULT_DESCRIBE_THING_CACHE_MAX_ENTRIES))
+            .build();
     @Inject
     IotClient iotClient;
     @Inject
-    IotDataPlaneClient iotDataPlaneClient;
+    PublishTransport publishTransport;
+    @Inject
+    SslContextHelper sslContextHelper;
+    @Inject
+    KeyPairPool keyPairPool;
+    @Inject
+    CryptoContext cryptoContext;
+    @Inject
+    IotRegistryGraph iotRegistryGraph;
 
     @Inject
     public BasicIotHelper() {
@@ -137,6 +194,7 @@ public class BasicIotHelper implements IotHelper {
                 .build();
 
         iotClient.createPolicy(createPolicyRequest);
+        refreshRegistryGraph(policyName.getName(), () -> iotRegistryGraph.refresh(policyName));
     }
 
     @Override
@@ -147,6 +205,7 @@ public class BasicIotHelper implements IotHelper {
                 .build();
 
         iotClient.attachPolicy(attachPolicyRequest);
+        refreshRegistryGraph(certificateArn.getArn(), () -> iotRegistryGraph.refresh(certificateArn));
     }
 
     @Override
@@ -157,6 +216,13 @@ public class BasicIotHelper implements IotHelper {
                 .build();
 
         iotClient.attachThingPrincipal(attachThingPrincipalRequest);
+        refreshRegistryGraph(thingName.getName(), () -> iotRegistryGraph.refresh(thingName));
+    }
+
+    // The change has already been made when this runs, a failed refresh only leaves the graph stale until its next refresh
+    private void refreshRegistryGraph(String nodeName, Runnable refresh) {
+        Try.run(refresh::run)
+                .onFailure(throwable -> log.warn(String.join("", "Failed to refresh the registry graph after changing [", nodeName, "]"), throwable));
     }
 
     @Override
@@ -184,11 +250,20 @@ public class BasicIotHelper implements IotHelper {
     }
 
     public Option<DescribeThingResponse> describeThing(ThingName thingName) {
+        return Try.of(() -> describeThingCache.get(thingName, () -> describeThingUncached(thingName)))
+                // Guava wraps exceptions thrown by the loader, rethrow the original exception
+                .recoverWith(ExecutionException.class, e -> Try.failure(e.getCause()))
+                .recoverWith(UncheckedExecutionException.class, e -> Try.failure(e.getCause()))
+                .recoverWith(ExecutionError.class, e -> Try.failure(e.getCause()))
+                .get();
+    }
+
+    private Option<DescribeThingResponse> describeThingUncached(ThingName thingName) {
         DescribeThingRequest describeThingRequest = DescribeThingRequest.builder()
                 .thingName(thingName.getName())
                 .build();
 
-        // DescribeThing will throw an exception if the thing does not exist
+        // DescribeThing will throw an exception if the thing does not exist, other exceptions are not cached
         return Try.of(() -> Option.of(iotClient.describeThing(describeThingRequest)))
                 .recover(ResourceNotFoundException.class, throwable -> Option.none())
                 .get();
@@ -244,9 +319,13 @@ public class BasicIotHelper implements IotHelper {
                 .setAsActive(true)
                 .build();
 
-        return ImmutableCertificateArn.builder()
+        CertificateArn certificateArn = ImmutableCertificateArn.builder()
                 .arn(iotClient.createCertificateFromCsr(createCertificateFromCsrRequest).certificateArn())
                 .build();
+
+        refreshRegistryGraph(certificateArn.getArn(), () -> iotRegistryGraph.refresh(certificateArn));
+
+        return certificateArn;
     }
 
     @Override
@@ -278,11 +357,16 @@ public class BasicIotHelper implements IotHelper {
                 .thingName(thingName.getName())
                 .build();
 
-        return Try.of(() -> iotClient.createThing(createThingRequest))
+        ThingArn thingArn = Try.of(() -> iotClient.createThing(createThingRequest))
                 .map(CreateThingResponse::thingArn)
                 .map(thingArnString -> ImmutableThingArn.builder().arn(thingArnString).build())
                 .recover(ResourceAlreadyExistsException.class, throwable -> recoverFromResourceAlreadyExistsException(thingName, throwable))
                 .get();
+
+        describeThingCache.invalidate(thingName);
+        refreshRegistryGraph(thingName.getName(), () -> iotRegistryGraph.refresh(thingName));
+
+        return thingArn;
     }
 
     @Override
@@ -349,6 +433,40 @@ public class BasicIotHelper implements IotHelper {
         return thingName.exists(this::isThingImmutable);
     }
 
+    @Override
+    public Map<ThingName, Boolean> areThingsImmutable(Stream<ThingName> thingNames) {
+        List<ThingName> distinctThingNames = thingNames.distinct().toList();
+
+        return Try.of(() -> distinctThingNames.grouped(MAX_THING_NAMES_PER_QUERY)
+                        .flatMap(this::getImmutableThingNames)
+                        .toSet())
+                .map(immutableThingNames -> distinctThingNames.toMap(thingName -> thingName, immutableThingNames::contains))
+                // Fleet indexing is disabled or the index isn't built yet, describe each thing instead
+                .recover(IndexNotReadyException.class, throwable -> describeEachThing(distinctThingNames))
+                .recover(ResourceNotFoundException.class, throwable -> describeEachThing(distinctThingNames))
+                .recover(InvalidRequestException.class, throwable -> describeEachThing(distinctThingNames))
+                .get();
+    }
+
+    private Stream<String> getImmutableThingNames(List<ThingName> thingNames) {
+        ResultsFilter resultsFilter = ResultsFilters.of(
+                ResultsFilters.in(THING_NAME_FIELD, thingNames.map(ThingName::getName).toJavaArray(String[]::new)),
+                // An empty prefix matches things that have the immutable attribute with any value
+                ResultsFilters.prefix(String.join("", ATTRIBUTES_FIELD_PREFIX, IMMUTABLE_ATTRIBUTE_NAME_OR_VALUE), ""));
+
+        SearchIndexRequest searchIndexRequest = SearchIndexRequest.builder()
+                .queryString(FleetIndexQueries.toQueryString(resultsFilter))
+                .build();
+
+        return new ResultsIteratorAbstract<ThingDocument>(iotClient, searchIndexRequest) {
+        }.stream()
+                .map(ThingDocument::thingName);
+    }
+
+    private Map<ThingName, Boolean> describeEachThing(List<ThingName> thingNames) {
+        return thingNames.toMap(thingName -> thingName, this::isThingImmutable);
+    }
+
     @Override
     public Stream<Certificate> getCertificates() {
         return new ResultsIterator<Certificate>(iotClient, ListCertificatesRequest.class).stream();
@@ -457,6 +575,88 @@ public class BasicIotHelper implements IotHelper {
         recursiveDeleteNonCaCertificate(certificateArn);
     }
 
+    @Override
+    public Stream<CertificateDeletionOutcome> recursiveDelete(Stream<CertificateArn> certificateArns) {
+        DeletionIterator deletionIterator = new DeletionIterator(certificateArns.iterator());
+
+        return Stream.ofAll(() -> deletionIterator);
+    }
+
+    private CertificateDeletionOutcome tryRecursiveDelete(CertificateArn certificateArn) {
+        ImmutableCertificateDeletionOutcome.Builder outcomeBuilder = ImmutableCertificateDeletionOutcome.builder()
+                .certificateArn(certificateArn);
+
+        if (isCaCertificate(certificateArn)) {
+            return outcomeBuilder.status(CertificateDeletionStatus.SKIPPED_CA_CERTIFICATE).build();
+        }
+
+        CertificateDeletionOutcome certificateDeletionOutcome = Try.of(() -> {
+                    List<ThingName> thingNames = withThrottlingRetries(deleteRateLimiter, () -> getAttachedThings(certificateArn).toList());
+
+                    if (thingNames.exists(thingName -> withThrottlingRetries(deleteRateLimiter, () -> isThingImmutable(thingName)))) {
+                        return outcomeBuilder.status(CertificateDeletionStatus.SKIPPED_IMMUTABLE_THING).build();
+                    }
+
+                    List<Policy> policies = withThrottlingRetries(deleteRateLimiter, () -> getAttachedPolicies(certificateArn).toList());
+
+                    policies.forEach(policy -> withThrottlingRetries(deleteRateLimiter, () -> detach(certificateArn, policy)));
+                    thingNames.forEach(thingName -> withThrottlingRetries(deleteRateLimiter, () -> detach(certificateArn, thingName)));
+                    // Marking the certificate inactive again on a retry is harmless
+                    withThrottlingRetries(deleteRateLimiter, () -> delete(getCertificateId(certificateArn)));
+
+                    return outcomeBuilder.status(CertificateDeletionStatus.DELETED).build();
+                })
+                .onFailure(throwable -> log.warn(String.join("", "Failed to delete [", certificateArn.getArn(), "]"), throwable))
+                .recover(throwable -> outcomeBuilder.status(CertificateDeletionStatus.FAILED)
+                        .errorMessage(Option.of(String.valueOf(throwable.getMessage())))
+                        .build())
+                .get();
+
+        if (CertificateDeletionStatus.DELETED.equals(certificateDeletionOutcome.getStatus())) {
+            refreshRegistryGraph(certificateArn.getArn(), () -> iotRegistryGraph.refresh(certificateArn));
+        }
+
+        return certificateDeletionOutcome;
+    }
+
+    // Starts deletions only as outcomes are read, at most MAX_CONCURRENT_DELETES ahead of the reader, so an abandoned
+    //   stream stops deleting after the deletions already in flight and no thread is left waiting on the reader
+    private class DeletionIterator implements Iterator<CertificateDeletionOutcome> {
+        private final Iterator<CertificateArn> certificateArns;
+        private final CompletionService<CertificateDeletionOutcome> completionService = new ExecutorCompletionService<>(bulkDeleteExecutor);
+        private int inFlight = 0;
+
+        DeletionIterator(Iterator<CertificateArn> certificateArns) {
+            this.certificateArns = certificateArns;
+        }
+
+        @Override
+        public synchronized boolean hasNext() {
+            while ((inFlight < MAX_CONCURRENT_DELETES) && certificateArns.hasNext()) {
+                CertificateArn certificateArn = certificateArns.next();
+                completionService.submit(() -> tryRecursiveDelete(certificateArn));
+                inFlight++;
+            }
+
+            return inFlight > 0;
+        }
+
+        @Override
+        public synchronized CertificateDeletionOutcome next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            // Outcomes are returned in the order the deletions finish
+            CertificateDeletionOutcome certificateDeletionOutcome = Try.of(() -> completionService.take().get())
+                    .recoverWith(ExecutionException.class, e -> Try.failure(e.getCause()))
+                    .get();
+            inFlight--;
+
+            return certificateDeletionOutcome;
+        }
+    }
+
     @Override
     public void deleteCaCertificate(Certificate certificate) {
         deleteCaCertificate(ImmutableCertificateArn.builder().arn(certificate.certificateArn()).build());
@@ -499,6 +699,7 @@ public class BasicIotHelper implements IotHelper {
                 .build();
 
         iotClient.deletePolicy(deletePolicyRequest);
+        refreshRegistryGraph(policyName.getName(), () -> iotRegistryGraph.refresh(policyName));
     }
 
     private void detach(CertificateArn certificateArn, Policy policy) {
@@ -526,6 +727,8 @@ public class BasicIotHelper implements IotHelper {
                 .build();
 
         iotClient.deleteThing(deleteThingRequest);
+        describeThingCache.invalidate(thingName);
+        refreshRegistryGraph(thingName.getName(), () -> iotRegistryGraph.refresh(thingName));
     }
 
     private void recursiveDeleteNonCaCertificate(CertificateArn certificateArn) {
@@ -545,6 +748,7 @@ public class BasicIotHelper implements IotHelper {
         // getAttachedThings(certificateArn).forEach(thingName -> Try.run(() -> delete(thingName)));
 
         delete(certificateId);
+        refreshRegistryGraph(certificateArn.getArn(), () -> iotRegistryGraph.refresh(certificateArn));
     }
 
     @Override
@@ -555,6 +759,7 @@ public class BasicIotHelper implements IotHelper {
     @Override
     public void delete(CertificateArn certificateArn) {
         delete(getCertificateId(certificateArn));
+        refreshRegistryGraph(certificateArn.getArn(), () -> iotRegistryGraph.refresh(certificateArn));
     }
 
     @Override
@@ -581,6 +786,28 @@ public class BasicIotHelper implements IotHelper {
         return new ResultsIterator<ThingAttribute>(iotClient, ListThingsRequest.class).stream();
     }
 
+    @Override
+    public Stream<ThingAttribute> getThings(ResultsFilter resultsFilter) {
+        ListThingsRequest.Builder listThingsRequestBuilder = ListThingsRequest.builder();
+
+        Option<FilterCondition> thingTypeConditionOption = ResultsFilters.find(resultsFilter, THING_TYPE_NAME_FIELD, FilterOperator.EQUALS);
+        thingTypeConditionOption.forEach(condition -> listThingsRequestBuilder.thingTypeName(condition.getValues().get()));
+        ResultsFilter remainingFilter = ResultsFilters.without(resultsFilter, thingTypeConditionOption);
+
+        // ListThings can only filter on a single attribute, either an exact match or a prefix
+        Option<FilterCondition> attributeConditionOption = remainingFilter.getConditions()
+                .find(condition -> condition.getFieldPath().toLowerCase().startsWith(ATTRIBUTES_FIELD_PREFIX))
+                .filter(condition -> !FilterOperator.IN.equals(condition.getOperator()));
+        attributeConditionOption.forEach(condition -> listThingsRequestBuilder
+                .attributeName(condition.getFieldPath().substring(ATTRIBUTES_FIELD_PREFIX.length()))
+                .attributeValue(condition.getValues().get())
+                .usePrefixAttributeValue(FilterOperator.PREFIX.equals(condition.getOperator())));
+        remainingFilter = ResultsFilters.without(remainingFilter, attributeConditionOption);
+
+        // Anything that couldn't be pushed down is filtered on the client
+        return ResultsFilters.apply(remainingFilter, new ResultsIterator<ThingAttribute>(iotClient, listThingsRequestBuilder.build()).stream());
+    }
+
     @Override
     public Stream<GroupNameAndArn> getThingGroups() {
         return new ResultsIterator<GroupNameAndArn>(iotClient, ListThingGroupsRequest.class).stream();
@@ -621,7 +848,7 @@ public class BasicIotHelper implements IotHelper {
 
     @Override
     public void publish(TopicName topicName, Qos qos, String payload) {
-        SdkBytes sdkBytes = SdkBytes.fromString(payload, Charset.defaultCharset());
+        SdkBytes sdkBytes = SdkBytes.fromUtf8String(payload);
 
         publish(topicName, qos, sdkBytes);
     }
@@ -635,13 +862,36 @@ public class BasicIotHelper implements IotHelper {
 
     @Override
     public void publish(TopicName topicName, Qos qos, SdkBytes payload) {
-        PublishRequest publishRequest = PublishRequest.builder()
-                .topic(topicName.getName())
-                .qos(qos.getLevel())
-                .payload(payload)
-                .build();
+        publish(topicName, qos, payload, publishTransport);
+    }
+
+    @Override
+    public void publish(TopicName topicName, Qos qos, SdkBytes payload, PublishTransport publishTransport) {
+        Try.of(() -> publishAsync(topicName, qos, payload, publishTransport).join())
+                // Rethrow the original exception instead of the wrapper
+                .recoverWith(CompletionException.class, e -> Try.failure(e.getCause()))
+                .get();
+    }
 
-        iotDataPlaneClient.publish(publishRequest);
+    @Override
+    public CompletableFuture<Void> publishAsync(TopicName topicName, Qos qos, SdkBytes payload) {
+        return publishAsync(topicName, qos, payload, publishTransport);
+    }
+
+    @Override
+    public CompletableFuture<Void> publishAsync(TopicName topicName, Qos qos, SdkBytes payload, PublishTransport publishTransport) {
+        return publishTransport.publish(topicName, qos, payload.asByteArrayUnsafe());
+    }
+
+    @Override
+    public PublishTransport getMqttPublishTransport(ClientId clientId,
+                                                   ImmutableCaCertFilename caCertFilename,
+                                                   ImmutableClientCertFilename clientCertFilename,
+                                                   ImmutableClientPrivateKeyFilename clientPrivateKeyFilename,
+                                                   ImmutablePassword password) {
+        SSLContext sslContext = sslContextHelper.getSslContext(caCertFilename, clientCertFilename, clientPrivateKeyFilename, password);
+
+        return new MqttPublishTransport(getEndpoint(IotEndpointType.DATA_ATS), clientId, sslContext);
     }
 
     @Override
@@ -679,8 +929,66 @@ public class BasicIotHelper implements IotHelper {
 
     @Override
     public Stream<ThingDocument> getThingsByGroupName(String groupName) {
-        String queryString = String.join(FLEET_INDEXING_QUERY_STRING_DELIMITER, THING_GROUP_NAMES, groupName);
+        // The group name isn't escaped so callers can keep using wildcards in it
+        return searchThingsInParallel(String.join(FLEET_INDEXING_QUERY_STRING_DELIMITER, THING_GROUP_NAMES, groupName));
+    }
+
+    @Override
+    public Stream<ThingDocument> searchThings(ResultsFilter resultsFilter) {
+        return searchThingsInParallel(FleetIndexQueries.toQueryString(resultsFilter));
+    }
+
+    private Stream<ThingDocument> searchThingsInParallel(String queryString) {
+        // One extra call to count the matches tells us if splitting the query is worth it. The search doesn't need it,
+        //   so if the count is denied (e.g. no iot:GetStatistics permission) or throttled the query is searched serially.
+        if (tryGetThingCount(queryString).forAll(thingCount -> thingCount <= MAX_THINGS_FOR_SERIAL_SEARCH)) {
+            return searchThings(queryString);
+        }
 
+        // Each call gets its own bounded pool so a slow or abandoned search can't hold up searches made by other callers
+        ExecutorService searchExecutor = newDaemonExecutor("iot-search-index", MAX_PARALLEL_SEARCHES);
+
+        List<String> shardQueries = Try.of(() -> getShardQueries(searchExecutor, queryString, ""))
+                .onFailure(throwable -> searchExecutor.shutdownNow())
+                .get();
+
+        // Each shard is paged through with its own token chain, at most MAX_PARALLEL_SEARCHES at a time
+        List<Consumer<Consumer<ThingDocument>>> producers = shardQueries.map(shardQuery -> sink -> searchThings(shardQuery).forEach(sink));
+
+        Stream<ThingDocument> thingDocuments = ConcurrencyHelper.merge(searchExecutor, SEARCH_BUFFER_SIZE, producers);
+
+        // Shards that haven't started yet were cancelled when the merge stopped, they are discarded without running
+        return StreamCleanupHelper.withCleanup(thingDocuments.iterator(), searchExecutor::shutdown);
+    }
+
+    // Splits shards that are still too large on longer thing name prefixes. Splitting stops at MAX_SHARD_PREFIX_LENGTH
+    //   characters, so names that share a longer prefix (e.g. device-...) still end up in a single shard.
+    private List<String> getShardQueries(ExecutorService searchExecutor, String queryString, String thingNamePrefix) {
+        // A thing named exactly the prefix isn't matched by any of the longer prefixes
+        List<String> exactShardQuery = thingNamePrefix.isEmpty() ? List.empty() : List.of(FleetIndexQueries.withThingName(queryString, thingNamePrefix));
+        List<String> childPrefixes = FleetIndexQueries.getChildThingNamePrefixes(thingNamePrefix);
+
+        if (thingNamePrefix.length() + 1 >= MAX_SHARD_PREFIX_LENGTH) {
+            // These shards can't be split any further so there's no need to count them
+            return exactShardQuery.appendAll(childPrefixes.map(childPrefix -> FleetIndexQueries.withThingNamePrefix(queryString, childPrefix)));
+        }
+
+        // The shards at each level are counted concurrently so a level costs one round trip instead of one per shard
+        List<Tuple2<String, CompletableFuture<Option<Long>>>> childCounts = childPrefixes
+                .map(childPrefix -> Tuple.of(childPrefix, CompletableFuture.supplyAsync(() -> tryGetThingCount(FleetIndexQueries.withThingNamePrefix(queryString, childPrefix)), searchExecutor)));
+
+        return exactShardQuery.appendAll(childCounts
+                .flatMap(childCount -> {
+                    // A shard that couldn't be counted is searched without splitting it
+                    if (childCount._2.join().forAll(thingCount -> thingCount <= MAX_THINGS_FOR_SERIAL_SEARCH)) {
+                        return List.of(FleetIndexQueries.withThingNamePrefix(queryString, childCount._1));
+                    }
+
+                    return getShardQueries(searchExecutor, queryString, childCount._1);
+                }));
+    }
+
+    private Stream<ThingDocument> searchThings(String queryString) {
         SearchIndexRequest searchIndexRequest = SearchIndexRequest.builder()
                 .queryString(queryString)
                 .build();
@@ -692,6 +1000,81 @@ public class BasicIotHelper implements IotHelper {
         }.stream();
     }
 
+    @Override
+    public long getThingCount(ResultsFilter resultsFilter) {
+        return getThingCount(FleetIndexQueries.toQueryString(resultsFilter));
+    }
+
+    private Option<Long> tryGetThingCount(String queryString) {
+        return Try.of(() -> getThingCount(queryString))
+                .onFailure(throwable -> log.warn(String.join("", "Failed to count the things matching [", queryString, "], searching without splitting the query"), throwable))
+                .toOption();
+    }
+
+    private long getThingCount(String queryString) {
+        // Without an aggregation field the statistics only contain the number of matching things
+        GetStatisticsRequest getStatisticsRequest = GetStatisticsRequest.builder()
+                .indexName(FLEET_INDEX_NAME)
+                .queryString(queryString)
+                .build();
+
+        return Option.of(iotClient.getStatistics(getStatisticsRequest).statistics().count())
+                .map(Integer::longValue)
+                .getOrElse(0L);
+    }
+
+    @Override
+    public Statistics getStatistics(ResultsFilter resultsFilter, String aggregationField) {
+        GetStatisticsRequest getStatisticsRequest = GetStatisticsRequest.builder()
+                .indexName(FLEET_INDEX_NAME)
+                .queryString(FleetIndexQueries.toQueryString(resultsFilter))
+                .aggregationField(aggregationField)
+                .build();
+
+        return iotClient.getStatistics(getStatisticsRequest).statistics();
+    }
+
+    @Override
+    public int getCardinality(ResultsFilter resultsFilter, String aggregationField) {
+        GetCardinalityRequest getCardinalityRequest = GetCardinalityRequest.builder()
+                .indexName(FLEET_INDEX_NAME)
+                .queryString(FleetIndexQueries.toQueryString(resultsFilter))
+                .aggregationField(aggregationField)
+                .build();
+
+        return Option.of(iotClient.getCardinality(getCardinalityRequest).cardinality()).getOrElse(0);
+    }
+
+    @Override
+    public Map<Double, Double> getPercentiles(ResultsFilter resultsFilter, String aggregationField, List<Double> percents) {
+        GetPercentilesRequest getPercentilesRequest = GetPercentilesRequest.builder()
+                .indexName(FLEET_INDEX_NAME)
+                .queryString(FleetIndexQueries.toQueryString(resultsFilter))
+                .aggregationField(aggregationField)
+                .percents(percents.toJavaList())
+                .build();
+
+        // Keyed by the requested percent, e.g. 99.0 -> value at the 99th percentile
+        return Stream.ofAll(iotClient.getPercentiles(getPercentilesRequest).percentiles())
+                .toLinkedMap(PercentPair::percent, PercentPair::value);
+    }
+
+    @Override
+    public Map<String, Integer> getBuckets(ResultsFilter resultsFilter, String aggregationField, int maxBuckets) {
+        GetBucketsAggregationRequest getBucketsAggregationRequest = GetBucketsAggregationRequest.builder()
+                .indexName(FLEET_INDEX_NAME)
+                .queryString(FleetIndexQueries.toQueryString(resultsFilter))
+                .aggregationField(aggregationField)
+                .bucketsAggregationType(BucketsAggregationType.builder()
+                        .termsAggregation(TermsAggregation.builder().maxBuckets(maxBuckets).build())
+                        .build())
+                .build();
+
+        // Buckets are returned with the most common values first
+        return Stream.ofAll(iotClient.getBucketsAggregation(getBucketsAggregationRequest).buckets())
+                .toLinkedMap(Bucket::keyValue, Bucket::count);
+    }
+
     @Override
     public <T> Try<T> tryGetObjectFromPem(File file, Class<T> returnClass) {
         return Try.of(() -> Files.readAllBytes(file.toPath()))
@@ -723,7 +1106,7 @@ public class BasicIotHelper implements IotHelper {
 
     @Override
     public PublicKey getPublicKeyFromCsrPem(byte[] csrBytes) {
-        JcaPEMKeyConverter pemKeyConverter = new JcaPEMKeyConverter().setProvider(BouncyCastleProvider.PROVIDER_NAME);
+        JcaPEMKeyConverter pemKeyConverter = cryptoContext.getPemKeyConverter();
 
         return tryGetObjectFromPem(csrBytes, PKCS10CertificationRequest.class)
                 // Extract the public key info
@@ -760,27 +1143,19 @@ public class BasicIotHelper implements IotHelper {
 
         final X509CertificateHolder holder = builder.build(ecdsaSigner);
 
-        return Try.of(() -> new JcaX509CertificateConverter()
-                .setProvider(new BouncyCastleProvider())
-                .getCertificate(holder)).get();
+        return Try.of(() -> cryptoContext.getCertificateConverter().getCertificate(holder)).get();
     }
 
     @Override
     public ContentSigner getRsaContentSigner(Option<KeyPair> keyPairOption) {
-        return Try.of(() -> new JcaContentSignerBuilder(SHA_256_WITH_RSA)
-                .setProvider(new BouncyCastleProvider())
-                .build(keyPairOption.map(KeyPair::getPrivate).getOrElse(() -> getRandomRsaKeypair(RSA_SIGNER_KEY_SIZE).getPrivate())))
-                // Rethrow all exceptions
-                .get();
+        return cryptoContext.getContentSigner(SHA_256_WITH_RSA,
+                keyPairOption.map(KeyPair::getPrivate).getOrElse(() -> getRandomRsaKeypair(RSA_SIGNER_KEY_SIZE).getPrivate()));
     }
 
     @Override
     public ContentSigner getEcdsaContentSigner(Option<KeyPair> keyPairOption) {
-        return Try.of(() -> new JcaContentSignerBuilder(SHA_256_WITH_ECDSA)
-                .setProvider(new BouncyCastleProvider())
-                .build(keyPairOption.map(KeyPair::getPrivate).getOrElse(() -> getRandomEcdsaKeypair(ECDSA_SIGNER_KEY_SIZE).getPrivate())))
-                // Rethrow all exceptions
-                .get();
+        return cryptoContext.getContentSigner(SHA_256_WITH_ECDSA,
+                keyPairOption.map(KeyPair::getPrivate).getOrElse(() -> getRandomEcdsaKeypair(ECDSA_SIGNER_KEY_SIZE).getPrivate()));
     }
 
     @Override
@@ -832,26 +1207,17 @@ public class BasicIotHelper implements IotHelper {
 
     @Override
     public KeyPair getRandomRsaKeypair(int keySize) {
-        KeyPairGenerator keyPairGenerator = Try.of(() -> KeyPairGenerator.getInstance(RSA, BC)).get();
-        keyPairGenerator.initialize(keySize, new SecureRandom());
-
-        return keyPairGenerator.generateKeyPair();
+        return keyPairPool.take(ImmutableKeyPairSpec.builder().algorithm(KeyPairAlgorithm.RSA).keySize(keySize).build());
     }
 
     @Override
     public KeyPair getRandomEcKeypair(int keySize) {
-        KeyPairGenerator keyPairGenerator = Try.of(() -> KeyPairGenerator.getInstance(EC, BC)).get();
-        keyPairGenerator.initialize(keySize, new SecureRandom());
-
-        return keyPairGenerator.generateKeyPair();
+        return keyPairPool.take(ImmutableKeyPairSpec.builder().algorithm(KeyPairAlgorithm.EC).keySize(keySize).build());
     }
 
     @Override
     public KeyPair getRandomEcdsaKeypair(int keySize) {
-        KeyPairGenerator keyPairGenerator = Try.of(() -> KeyPairGenerator.getInstance(ECDSA, BC)).get();
-        keyPairGenerator.initialize(keySize, new SecureRandom());
-
-        return keyPairGenerator.generateKeyPair();
+        return keyPairPool.take(ImmutableKeyPairSpec.builder().algorithm(KeyPairAlgorithm.ECDSA).keySize(keySize).build());
     }
 
     private String javaCertificateToPem(java.security.cert.Certificate certificate) {
@@ -876,8 +1242,8 @@ public class BasicIotHelper implements IotHelper {
         // Get the DER encoded version of the certificate, rethrow all exceptions
         byte[] derEncodedCert = Try.of(x509CertificateHolder::getEncoded).get();
 
-        // Get a message digester for SHA-256
-        return Try.of(() -> MessageDigest.getInstance(SHA_256))
+        // Get a new SHA-256 message digest, digests are stateful and not thread safe
+        return Try.of(() -> cryptoContext.getMessageDigest(SHA_256))
                 // Digest the DER encoded certificate data
                 .map(messageDigest -> messageDigest.digest(derEncodedCert))
                 // Turn it into a hex encoded string (actually an array of characters/bytes that represent the string)
@@ -899,10 +1265,9 @@ public class BasicIotHelper implements IotHelper {
     }
 
     private Try<PublicKey> getPublicKeyFromBytes(byte[] pubKey) {
-        ECNamedCurveParameterSpec spec = ECNamedCurveTable.getParameterSpec(PRIME_256_V_1);
-        ECNamedCurveSpec params = new ECNamedCurveSpec(PRIME_256_V_1, spec.getCurve(), spec.getG(), spec.getN());
+        ECNamedCurveSpec params = cryptoContext.getNamedCurveSpec(PRIME_256_V_1);
         ECPoint point = ECPointUtil.decodePoint(params.getCurve(), pubKey);
         ECPublicKeySpec pubKeySpec = new ECPublicKeySpec(point, params);
-        return Try.of(() -> ecKeyFactory.generatePublic(pubKeySpec));
+        return Try.of(() -> cryptoContext.getKeyFactory(EC).generatePublic(pubKeySpec));
     }
 }
@@ -0,0 +1,476 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.*;
+import com.awslabs.iot.helpers.interfaces.IotRegistryGraph;
+import com.awslabs.resultsiterator.implementations.ResultsIterator;
+import com.google.common.util.concurrent.RateLimiter;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.HashMultimap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Multimap;
+import io.vavr.collection.Stream;
+import io.vavr.collection.Traversable;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.iot.IotClient;
+import software.amazon.awssdk.services.iot.model.*;
+
+import javax.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newBlockingExecutor;
+import static com.awslabs.general.helpers.implementations.SettingsHelper.getSetting;
+import static com.awslabs.iot.helpers.interfaces.IotHelper.IOT_ASSUME_ROLE_WITH_CERTIFICATE;
+
+public class BasicIotRegistryGraph implements IotRegistryGraph {
+    private static final int MAX_PLATFORM_THREADS = 16;
+    // Shared by every listing and describe call made while building the graph to stay under the IoT control plane limits
+    private static final double REQUESTS_PER_SECOND = 20;
+    // Incremental refreshes only see changes made through this library, a periodic rebuild picks up everything else
+    private static final long DEFAULT_MAX_AGE_SECONDS = 300;
+    private static final ExecutorService graphExecutor = newBlockingExecutor("iot-registry-graph", MAX_PLATFORM_THREADS);
+    private final Logger log = LoggerFactory.getLogger(BasicIotRegistryGraph.class);
+    private final RateLimiter rateLimiter = RateLimiter.create(REQUESTS_PER_SECOND);
+    private final AtomicReference<Option<Snapshot>> snapshotReference = new AtomicReference<>(Option.none());
+    Duration maxAge = Duration.ofSeconds(getSetting(IOT_REGISTRY_GRAPH_MAX_AGE_SECONDS).map(Long::parseLong).getOrElse(DEFAULT_MAX_AGE_SECONDS));
+    Clock clock = Clock.systemUTC();
+    @Inject
+    IotClient iotClient;
+
+    @Inject
+    public BasicIotRegistryGraph() {
+    }
+
+    @Override
+    public void refresh() {
+        snapshotReference.set(Option.some(build()));
+    }
+
+    @Override
+    public void refresh(ThingName thingName) {
+        if (isNotBuilt()) {
+            return;
+        }
+
+        Option<ThingAttribute> thingOption = describeThing(thingName);
+        Stream<String> principals = thingOption.isDefined() ? listThingPrincipals(thingName.getName()) : Stream.empty();
+
+        update(snapshot -> snapshot.withThing(thingName.getName(), thingOption, principals));
+    }
+
+    @Override
+    public void refresh(CertificateArn certificateArn) {
+        if (isNotBuilt()) {
+            return;
+        }
+
+        String principal = certificateArn.getArn();
+        Option<Certificate> certificateOption = describeCertificate(principal);
+
+        if (certificateOption.isEmpty()) {
+            update(snapshot -> snapshot.withoutCertificate(principal));
+            return;
+        }
+
+        // Listing from the certificate side picks up changes without listing every thing and policy again
+        Stream<String> thingNames = rateLimited(() -> new ResultsIterator<String>(iotClient, ListPrincipalThingsRequest.builder().principal(principal).build()).stream().toList().toStream());
+        Stream<String> policyNames = rateLimited(() -> new ResultsIterator<Policy>(iotClient, ListAttachedPoliciesRequest.builder().target(principal).build()).stream().map(Policy::policyName).toList().toStream());
+
+        update(snapshot -> snapshot.withCertificate(certificateOption.get(), thingNames, policyNames));
+    }
+
+    @Override
+    public void refresh(PolicyName policyName) {
+        if (isNotBuilt()) {
+            return;
+        }
+
+        Option<GetPolicyResponse> policyOption = Try.of(() -> rateLimited(() -> iotClient.getPolicy(GetPolicyRequest.builder().policyName(policyName.getName()).build())))
+                .map(Option::some)
+                .recover(ResourceNotFoundException.class, throwable -> Option.none())
+                .get();
+
+        if (policyOption.isEmpty()) {
+            update(snapshot -> snapshot.withoutPolicy(policyName.getName()));
+            return;
+        }
+
+        Policy policy = Policy.builder()
+                .policyName(policyOption.get().policyName())
+                .policyArn(policyOption.get().policyArn())
+                .build();
+        Stream<String> targets = listTargetsForPolicy(policyName.getName());
+        Stream<String> roleAliases = getRoleAliasNames(policyOption.get().policyDocument());
+
+        update(snapshot -> snapshot.withPolicy(policy, targets, roleAliases));
+    }
+
+    @Override
+    public Stream<Certificate> getUnattachedCertificates() {
+        Snapshot snapshot = getSnapshot();
+
+        return snapshot.certificates.values().toStream()
+                .filter(certificate -> snapshot.thingPrincipals.reverse(certificate.certificateArn()).isEmpty())
+                .filter(certificate -> snapshot.policyTargets.reverse(certificate.certificateArn()).isEmpty());
+    }
+
+    @Override
+    public Stream<ThingAttribute> getThingsWithoutPrincipals() {
+        Snapshot snapshot = getSnapshot();
+
+        return snapshot.things.values().toStream()
+                .filter(thing -> snapshot.thingPrincipals.forward(thing.thingName()).isEmpty());
+    }
+
+    @Override
+    public Stream<Policy> getUnattachedPolicies() {
+        Snapshot snapshot = getSnapshot();
+
+        return snapshot.policies.values().toStream()
+                .filter(policy -> snapshot.policyTargets.forward(policy.policyName()).isEmpty());
+    }
+
+    @Override
+    public Stream<ThingPrincipal> getThingPrincipals(ThingName thingName) {
+        return getSnapshot().thingPrincipals.forward(thingName.getName())
+                .map(principal -> ImmutableThingPrincipal.builder().principal(principal).build());
+    }
+
+    @Override
+    public Stream<ThingName> getAttachedThings(CertificateArn certificateArn) {
+        return getSnapshot().thingPrincipals.reverse(certificateArn.getArn())
+                .map(thingName -> ImmutableThingName.builder().name(thingName).build());
+    }
+
+    @Override
+    public Stream<PolicyName> getAttachedPolicies(CertificateArn certificateArn) {
+        return getSnapshot().policyTargets.reverse(certificateArn.getArn())
+                .map(policyName -> ImmutablePolicyName.builder().name(policyName).build());
+    }
+
+    @Override
+    public Stream<CertificateArn> getAttachedCertificates(PolicyName policyName) {
+        // Policies can also be attached to thing groups and Cognito identities, only certificates are returned here
+        return getSnapshot().policyTargets.forward(policyName.getName())
+                .filter(target -> ArnHelper.getArnType(target).contains(ArnHelper.ArnType.IOT_CERT))
+                .map(target -> ImmutableCertificateArn.builder().arn(target).build());
+    }
+
+    @Override
+    public Stream<RoleAlias> getRoleAliases(PolicyName policyName) {
+        return getSnapshot().policyRoleAliases.forward(policyName.getName())
+                .map(roleAlias -> ImmutableRoleAlias.builder().name(roleAlias).build());
+    }
+
+    @Override
+    public Stream<RoleAlias> getRoleAliases(ThingName thingName) {
+        Snapshot snapshot = getSnapshot();
+
+        return snapshot.thingPrincipals.forward(thingName.getName())
+                .flatMap(snapshot.policyTargets::reverse)
+                .flatMap(snapshot.policyRoleAliases::forward)
+                .distinct()
+                .map(roleAlias -> ImmutableRoleAlias.builder().name(roleAlias).build());
+    }
+
+    @Override
+    public Stream<ThingName> getThingsThatCanAssume(RoleAlias roleAlias) {
+        Snapshot snapshot = getSnapshot();
+
+        return snapshot.policyRoleAliases.reverse(roleAlias.getName())
+                .flatMap(snapshot.policyTargets::forward)
+                .flatMap(snapshot.thingPrincipals::reverse)
+                .distinct()
+                .map(thingName -> ImmutableThingName.builder().name(thingName).build());
+    }
+
+    @Override
+    public Option<String> getRoleArn(RoleAlias roleAlias) {
+        return getSnapshot().roleArnsByRoleAlias.get(roleAlias.getName());
+    }
+
+    private synchronized Snapshot getSnapshot() {
+        if (snapshotReference.get().forAll(this::isExpired)) {
+            refresh();
+        }
+
+        return snapshotReference.get().get();
+    }
+
+    private boolean isExpired(Snapshot snapshot) {
+        return Duration.between(snapshot.builtAt, clock.instant()).compareTo(maxAge) > 0;
+    }
+
+    // Incremental refreshes are skipped until the graph is built, the full build picks up every change anyway
+    private boolean isNotBuilt() {
+        return snapshotReference.get().isEmpty();
+    }
+
+    private void update(UnaryOperator<Snapshot> updater) {
+        snapshotReference.updateAndGet(snapshotOption -> snapshotOption.map(updater));
+    }
+
+    private Snapshot build() {
+        log.debug("Building the IoT registry graph");
+
+        // The listings start now so the snapshot is at least this old
+        Instant builtAt = clock.instant();
+
+        // The top level listings are independent so they run at the same time
+        CompletableFuture<List<Certificate>> certificatesFuture = supplyAsync(() -> new ResultsIterator<Certificate>(iotClient, ListCertificatesRequest.class).stream().toList());
+        CompletableFuture<List<ThingAttribute>> thingsFuture = supplyAsync(() -> new ResultsIterator<ThingAttribute>(iotClient, ListThingsRequest.class).stream().toList());
+        CompletableFuture<List<Policy>> policiesFuture = supplyAsync(() -> new ResultsIterator<Policy>(iotClient, ListPoliciesRequest.class).stream().toList());
+        CompletableFuture<List<String>> roleAliasesFuture = supplyAsync(() -> new ResultsIterator<String>(iotClient, ListRoleAliasesRequest.class).stream().toList());
+
+        List<ThingAttribute> things = thingsFuture.join();
+        List<Policy> policies = policiesFuture.join();
+
+        // Edges are listed from the thing and policy side, there are usually far fewer of those than certificates
+        List<Tuple2<ThingAttribute, Stream<String>>> thingPrincipals = concurrently(things, thing -> listThingPrincipals(thing.thingName()));
+        List<Tuple2<Policy, Stream<String>>> policyTargets = concurrently(policies, policy -> listTargetsForPolicy(policy.policyName()));
+        List<Tuple2<Policy, Stream<String>>> policyRoleAliases = concurrently(policies, policy -> getPolicyDocument(policy.policyName()).map(this::getRoleAliasNames).getOrElse(Stream.empty()));
+        List<Tuple2<String, Option<String>>> roleArns = concurrently(roleAliasesFuture.join(), this::describeRoleArn);
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.builtAt = builtAt;
+        snapshot.certificates = certificatesFuture.join().toMap(Certificate::certificateArn, Function.identity());
+        snapshot.things = things.toMap(ThingAttribute::thingName, Function.identity());
+        snapshot.policies = policies.toMap(Policy::policyName, Function.identity());
+        snapshot.roleArnsByRoleAlias = roleArns.flatMap(tuple -> tuple._2.map(roleArn -> Tuple.of(tuple._1, roleArn))).toMap(tuple -> tuple);
+        snapshot.thingPrincipals = thingPrincipals.foldLeft(Edges.EMPTY, (edges, tuple) -> edges.replaceForward(tuple._1.thingName(), tuple._2));
+        snapshot.policyTargets = policyTargets.foldLeft(Edges.EMPTY, (edges, tuple) -> edges.replaceForward(tuple._1.policyName(), tuple._2));
+        snapshot.policyRoleAliases = policyRoleAliases.foldLeft(Edges.EMPTY, (edges, tuple) -> edges.replaceForward(tuple._1.policyName(), tuple._2));
+
+        log.debug(String.join("", "Built the IoT registry graph with [", String.valueOf(snapshot.things.size()), "] things, [",
+                String.valueOf(snapshot.certificates.size()), "] certificates, and [", String.valueOf(snapshot.policies.size()), "] policies"));
+
+        return snapshot;
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(() -> rateLimited(supplier), graphExecutor);
+    }
+
+    private <T, R> List<Tuple2<T, R>> concurrently(List<T> inputs, Function<T, R> function) {
+        // Mapping a list is eager so every call is started before any of them is waited on
+        return inputs
+                .map(input -> supplyAsync(() -> Tuple.of(input, function.apply(input))))
+                .map(CompletableFuture::join);
+    }
+
+    private <T> T rateLimited(Supplier<T> supplier) {
+        rateLimiter.acquire();
+
+        return supplier.get();
+    }
+
+    private Stream<String> listThingPrincipals(String thingName) {
+        ListThingPrincipalsRequest listThingPrincipalsRequest = ListThingPrincipalsRequest.builder()
+                .thingName(thingName)
+                .build();
+
+        // The thing may have been deleted since it was listed
+        return Try.of(() -> new ResultsIterator<String>(iotClient, listThingPrincipalsRequest).stream().toList().toStream())
+                .recover(ResourceNotFoundException.class, throwable -> Stream.empty())
+                .get();
+    }
+
+    private Stream<String> listTargetsForPolicy(String policyName) {
+        ListTargetsForPolicyRequest listTargetsForPolicyRequest = ListTargetsForPolicyRequest.builder()
+                .policyName(policyName)
+                .build();
+
+        return Try.of(() -> new ResultsIterator<String>(iotClient, listTargetsForPolicyRequest).stream().toList().toStream())
+                .recover(ResourceNotFoundException.class, throwable -> Stream.empty())
+                .get();
+    }
+
+    private Option<String> getPolicyDocument(String policyName) {
+        // The policy may have been deleted since it was listed, other failures (e.g. throttling) fail the build
+        return Try.of(() -> iotClient.getPolicy(GetPolicyRequest.builder().policyName(policyName).build()).policyDocument())
+                .map(Option::some)
+                .recover(ResourceNotFoundException.class, throwable -> Option.none())
+                .get();
+    }
+
+    private Option<String> describeRoleArn(String roleAlias) {
+        return Try.of(() -> iotClient.describeRoleAlias(DescribeRoleAliasRequest.builder().roleAlias(roleAlias).build()))
+                .map(DescribeRoleAliasResponse::roleAliasDescription)
+                .map(RoleAliasDescription::roleArn)
+                .map(Option::some)
+                .recover(ResourceNotFoundException.class, throwable -> Option.none())
+                .get();
+    }
+
+    private Option<Certificate> describeCertificate(String certificateArn) {
+        // Certificate IDs are the last component of the ARN, e.g. arn:aws:iot:REGION:ACCOUNT_ID:cert/CERTIFICATE_ID
+        String certificateId = certificateArn.substring(certificateArn.lastIndexOf('/') + 1);
+
+        return Try.of(() -> rateLimited(() -> iotClient.describeCertificate(DescribeCertificateRequest.builder().certificateId(certificateId).build())))
+                .map(DescribeCertificateResponse::certificateDescription)
+                .map(description -> Certificate.builder()
+                        .certificateArn(description.certificateArn())
+                        .certificateId(description.certificateId())
+                        .status(description.status())
+                        .certificateMode(description.certificateMode())
+                        .creationDate(description.creationDate())
+                        .build())
+                .map(Option::some)
+                .recover(ResourceNotFoundException.class, throwable -> Option.none())
+                .get();
+    }
+
+    private Option<ThingAttribute> describeThing(ThingName thingName) {
+        return Try.of(() -> rateLimited(() -> iotClient.describeThing(DescribeThingRequest.builder().thingName(thingName.getName()).build())))
+                .map(response -> ThingAttribute.builder()
+                        .thingName(response.thingName())
+                        .thingArn(response.thingArn())
+                        .thingTypeName(response.thingTypeName())
+                        .attributes(response.attributes())
+                        .version(response.version())
+                        .build())
+                .map(Option::some)
+                .recover(ResourceNotFoundException.class, throwable -> Option.none())
+                .get();
+    }
+
+    private Stream<String> getRoleAliasNames(String policyDocument) {
+        // Same rules as the Greengrass role lookup, allow statements with iot:AssumeRoleWithCertificate on role alias ARNs
+        return Try.of(() -> TypeSafePolicyDocument.fromJson(policyDocument).Statement)
+                .getOrElse(List.empty())
+                .toStream()
+                .filter(statement -> statement.getEffect().equals(Effect.Allow))
+                .filter(statement -> statement.getAction().contains(IOT_ASSUME_ROLE_WITH_CERTIFICATE))
+                .flatMap(Statement::getResource)
+                .filter(ArnHelper.isRoleAlias())
+                .flatMap(ArnHelper::arnToId)
+                .distinct();
+    }
+
+    // Never modified once it has been published, updates make a copy
+    private static final class Snapshot {
+        private Instant builtAt = Instant.EPOCH;
+        private Map<String, Certificate> certificates = HashMap.empty();
+        private Map<String, ThingAttribute> things = HashMap.empty();
+        private Map<String, Policy> policies = HashMap.empty();
+        private Map<String, String> roleArnsByRoleAlias = HashMap.empty();
+        // Thing name -> principal ARN
+        private Edges thingPrincipals = Edges.EMPTY;
+        // Policy name -> target ARN (certificates, thing groups, Cognito identities)
+        private Edges policyTargets = Edges.EMPTY;
+        // Policy name -> role alias name
+        private Edges policyRoleAliases = Edges.EMPTY;
+
+        private Snapshot copy() {
+            Snapshot copy = new Snapshot();
+            // Incremental updates don't make the rest of the snapshot any newer
+            copy.builtAt = builtAt;
+            copy.certificates = certificates;
+            copy.things = things;
+            copy.policies = policies;
+            copy.roleArnsByRoleAlias = roleArnsByRoleAlias;
+            copy.thingPrincipals = thingPrincipals;
+            copy.policyTargets = policyTargets;
+            copy.policyRoleAliases = policyRoleAliases;
+
+            return copy;
+        }
+
+        Snapshot withThing(String thingName, Option<ThingAttribute> thingOption, Stream<String> principals) {
+            Snapshot copy = copy();
+            copy.things = thingOption.map(thing -> things.put(thingName, thing)).getOrElse(() -> things.remove(thingName));
+            copy.thingPrincipals = thingPrincipals.replaceForward(thingName, principals);
+
+            return copy;
+        }
+
+        private Snapshot withCertificateAttachments(String certificateArn, Stream<String> thingNames, Stream<String> policyNames) {
+            Snapshot copy = copy();
+            copy.thingPrincipals = thingPrincipals.replaceReverse(certificateArn, thingNames);
+            copy.policyTargets = policyTargets.replaceReverse(certificateArn, policyNames);
+
+            return copy;
+        }
+
+        Snapshot withCertificate(Certificate certificate, Stream<String> thingNames, Stream<String> policyNames) {
+            Snapshot copy = withCertificateAttachments(certificate.certificateArn(), thingNames, policyNames);
+            copy.certificates = certificates.put(certificate.certificateArn(), certificate);
+
+            return copy;
+        }
+
+        Snapshot withoutCertificate(String certificateArn) {
+            Snapshot copy = withCertificateAttachments(certificateArn, Stream.empty(), Stream.empty());
+            copy.certificates = certificates.remove(certificateArn);
+
+            return copy;
+        }
+
+        Snapshot withPolicy(Policy policy, Stream<String> targets, Stream<String> roleAliases) {
+            Snapshot copy = copy();
+            copy.policies = policies.put(policy.policyName(), policy);
+            copy.policyTargets = policyTargets.replaceForward(policy.policyName(), targets);
+            copy.policyRoleAliases = policyRoleAliases.replaceForward(policy.policyName(), roleAliases);
+
+            return copy;
+        }
+
+        Snapshot withoutPolicy(String policyName) {
+            Snapshot copy = copy();
+            copy.policies = policies.remove(policyName);
+            copy.policyTargets = policyTargets.replaceForward(policyName, Stream.empty());
+            copy.policyRoleAliases = policyRoleAliases.replaceForward(policyName, Stream.empty());
+
+            return copy;
+        }
+    }
+
+    // Directed edges indexed in both directions so reverse lookups don't need a scan
+    static final class Edges {
+        static final Edges EMPTY = new Edges(HashMultimap.withSet().<String, String>empty(), HashMultimap.withSet().<String, String>empty());
+        private final Multimap<String, String> forward;
+        private final Multimap<String, String> reverse;
+
+        private Edges(Multimap<String, String> forward, Multimap<String, String> reverse) {
+            this.forward = forward;
+            this.reverse = reverse;
+        }
+
+        Stream<String> forward(String from) {
+            return forward.get(from).map(Stream::ofAll).getOrElse(Stream.empty());
+        }
+
+        Stream<String> reverse(String to) {
+            return reverse.get(to).map(Stream::ofAll).getOrElse(Stream.empty());
+        }
+
+        Edges replaceForward(String from, Traversable<String> tos) {
+            Multimap<String, String> newReverse = forward(from).foldLeft(reverse, (multimap, to) -> multimap.remove(to, from));
+
+            return tos.foldLeft(new Edges(forward.remove(from), newReverse), (edges, to) -> edges.put(from, to));
+        }
+
+        Edges replaceReverse(String to, Traversable<String> froms) {
+            Multimap<String, String> newForward = reverse(to).foldLeft(forward, (multimap, from) -> multimap.remove(from, to));
+
+            return froms.foldLeft(new Edges(newForward, reverse.remove(to)), (edges, from) -> edges.put(from, to));
+        }
+
+        private Edges put(String from, String to) {
+            return new Edges(forward.put(from, to), reverse.put(to, from));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.ImmutableKeyPairPoolMetrics;
+import com.awslabs.iot.data.KeyPairPoolMetrics;
+import com.awslabs.iot.data.KeyPairSpec;
+import com.awslabs.iot.helpers.interfaces.KeyPairPool;
+import com.awslabs.resultsiterator.interfaces.CryptoContext;
+import io.vavr.Tuple;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newDaemonExecutor;
+import static com.awslabs.general.helpers.implementations.SettingsHelper.getSetting;
+
+public class BasicKeyPairPool implements KeyPairPool {
+    private static final int DEFAULT_TARGET_DEPTH = 4;
+    // Key generation is CPU bound so it gets a small pool of platform threads and leaves cores for the callers
+    private static final int GENERATOR_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final ExecutorService generatorExecutor = newDaemonExecutor("key-pair-pool", GENERATOR_THREADS);
+    private final Logger log = LoggerFactory.getLogger(BasicKeyPairPool.class);
+    private final int targetDepth = getSetting(KEY_PAIR_POOL_TARGET_DEPTH).map(Integer::parseInt).getOrElse(DEFAULT_TARGET_DEPTH);
+    private final java.util.Map<KeyPairSpec, SpecPool> specPools = new ConcurrentHashMap<>();
+    Executor executor = generatorExecutor;
+    @Inject
+    CryptoContext cryptoContext;
+
+    @Inject
+    public BasicKeyPairPool() {
+    }
+
+    @Override
+    public KeyPair take(KeyPairSpec keyPairSpec) {
+        SpecPool specPool = getSpecPool(keyPairSpec);
+        KeyPair keyPair = specPool.available.poll();
+
+        if (keyPair != null) {
+            specPool.hits.incrementAndGet();
+        } else {
+            specPool.misses.incrementAndGet();
+            keyPair = generate(keyPairSpec, specPool);
+        }
+
+        // Only warmed up specs are kept topped up, a one-off request must not start background key generation
+        if (specPool.warmedUp) {
+            refill(keyPairSpec, specPool);
+        }
+
+        return keyPair;
+    }
+
+    @Override
+    public void warmUp(KeyPairSpec... keyPairSpecs) {
+        for (KeyPairSpec keyPairSpec : keyPairSpecs) {
+            SpecPool specPool = getSpecPool(keyPairSpec);
+            specPool.warmedUp = true;
+            refill(keyPairSpec, specPool);
+        }
+    }
+
+    @Override
+    public Map<KeyPairSpec, KeyPairPoolMetrics> getMetrics() {
+        return HashMap.ofAll(specPools)
+                .map((keyPairSpec, specPool) -> Tuple.of(keyPairSpec, toMetrics(keyPairSpec, specPool)));
+    }
+
+    private KeyPairPoolMetrics toMetrics(KeyPairSpec keyPairSpec, SpecPool specPool) {
+        long generated = specPool.generated.get();
+
+        return ImmutableKeyPairPoolMetrics.builder()
+                .keyPairSpec(keyPairSpec)
+                .available(specPool.available.size())
+                .hits(specPool.hits.get())
+                .misses(specPool.misses.get())
+                .generated(generated)
+                .averageGenerationMillis(generated == 0 ? 0 : (specPool.generationNanos.get() / 1_000_000.0) / generated)
+                .build();
+    }
+
+    private SpecPool getSpecPool(KeyPairSpec keyPairSpec) {
+        return specPools.computeIfAbsent(keyPairSpec, key -> new SpecPool());
+    }
+
+    private void refill(KeyPairSpec keyPairSpec, SpecPool specPool) {
+        while (true) {
+            int pending = specPool.pending.get();
+
+            if ((specPool.available.size() + pending) >= targetDepth) {
+                return;
+            }
+
+            // Reserve the slot first so concurrent callers don't overshoot the target depth
+            if (!specPool.pending.compareAndSet(pending, pending + 1)) {
+                continue;
+            }
+
+            executor.execute(() -> Try.of(() -> generate(keyPairSpec, specPool))
+                    .onSuccess(specPool.available::add)
+                    .onFailure(throwable -> log.warn("Failed to generate a key pair for the pool", throwable))
+                    .andFinally(specPool.pending::decrementAndGet));
+        }
+    }
+
+    private KeyPair generate(KeyPairSpec keyPairSpec, SpecPool specPool) {
+        long start = System.nanoTime();
+
+        KeyPairGenerator keyPairGenerator = Try.of(() -> KeyPairGenerator.getInstance(keyPairSpec.getAlgorithm().getName(), cryptoContext.getProvider())).get();
+        keyPairGenerator.initialize(keyPairSpec.getKeySize(), new SecureRandom());
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        specPool.generationNanos.addAndGet(System.nanoTime() - start);
+        specPool.generated.incrementAndGet();
+
+        return keyPair;
+    }
+
+    private static class SpecPool {
+        private final Queue<KeyPair> available = new ConcurrentLinkedQueue<>();
+        // Key pairs that are being generated in the background
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong generated = new AtomicLong();
+        private final AtomicLong generationNanos = new AtomicLong();
+        private volatile boolean warmedUp = false;
+    }
+}
@@ -0,0 +1,94 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.resultsiterator.data.FilterCondition;
+import com.awslabs.resultsiterator.data.FilterOperator;
+import com.awslabs.resultsiterator.data.ResultsFilter;
+import io.vavr.collection.List;
+
+// Turns results filters into fleet indexing query strings so the same filters can be evaluated by the index
+public class FleetIndexQueries {
+    // Fleet indexing has no empty query, this matches every indexed thing
+    public static final String MATCH_ALL_QUERY = "thingName:*";
+    private static final String SAFE_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_-.";
+    private static final String THING_NAME_CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789:_-";
+
+    public static String toQueryString(ResultsFilter resultsFilter) {
+        List<FilterCondition> filterConditions = resultsFilter.getConditions();
+
+        if (filterConditions.isEmpty()) {
+            return MATCH_ALL_QUERY;
+        }
+
+        return filterConditions
+                .map(FleetIndexQueries::toQueryString)
+                .mkString(" AND ");
+    }
+
+    private static String toQueryString(FilterCondition filterCondition) {
+        String field = String.join("", filterCondition.getFieldPath(), ":");
+
+        if (FilterOperator.IN.equals(filterCondition.getOperator())) {
+            return filterCondition.getValues()
+                    .map(FleetIndexQueries::escape)
+                    .mkString(String.join("", field, "("), " OR ", ")");
+        }
+
+        String value = escape(filterCondition.getValues().head());
+
+        if (FilterOperator.PREFIX.equals(filterCondition.getOperator())) {
+            // An empty prefix matches any value, e.g. every thing that has the attribute
+            return String.join("", field, value, "*");
+        }
+
+        return String.join("", field, value);
+    }
+
+    // Splits a query into disjoint sub-queries by the first character of the thing name. Upper and lower case letters
+    //   share a shard so the shards stay disjoint whether or not the index matches names case sensitively.
+    public static List<String> shardByThingNamePrefix(String queryString) {
+        return getChildThingNamePrefixes("")
+                .map(prefix -> withThingNamePrefix(queryString, prefix));
+    }
+
+    // The prefixes one character longer than the given prefix, together with the name equal to the prefix itself they
+    //   cover every thing name that starts with the prefix
+    public static List<String> getChildThingNamePrefixes(String prefix) {
+        return List.ofAll(THING_NAME_CHARACTERS.toCharArray())
+                .map(character -> String.join("", prefix, String.valueOf(character)));
+    }
+
+    public static String withThingNamePrefix(String queryString, String prefix) {
+        return withThingNames(queryString, getCaseVariants(prefix).map(variant -> String.join("", escape(variant), "*")));
+    }
+
+    public static String withThingName(String queryString, String thingName) {
+        return withThingNames(queryString, getCaseVariants(thingName).map(FleetIndexQueries::escape));
+    }
+
+    private static String withThingNames(String queryString, List<String> thingNameTerms) {
+        // The original query is parenthesized so an OR inside it can't escape the shard's condition
+        return String.join("", "(", queryString, ") AND ", thingNameTerms.mkString("thingName:(", " OR ", ")"));
+    }
+
+    private static List<String> getCaseVariants(String value) {
+        return List.ofAll(value.toCharArray())
+                .foldLeft(List.of(""), (variants, character) -> variants.flatMap(variant -> List.of(Character.toLowerCase(character), Character.toUpperCase(character))
+                        .distinct()
+                        .map(variantCharacter -> String.join("", variant, String.valueOf(variantCharacter)))));
+    }
+
+    // Backslash escapes everything except letters, digits, and the few punctuation characters used in thing names
+    static String escape(String value) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        value.chars().forEach(character -> {
+            if (SAFE_CHARACTERS.indexOf(character) < 0) {
+                stringBuilder.append('\\');
+            }
+
+            stringBuilder.append((char) character);
+        });
+
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.Qos;
+import com.awslabs.iot.data.TopicName;
+import com.awslabs.iot.helpers.interfaces.PublishTransport;
+import io.vavr.control.Try;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.iotdataplane.IotDataPlaneClient;
+import software.amazon.awssdk.services.iotdataplane.model.PublishRequest;
+
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+
+// One HTTPS request per message, needs no client certificate but every publish waits for its own response
+public class HttpsPublishTransport implements PublishTransport {
+    @Inject
+    IotDataPlaneClient iotDataPlaneClient;
+
+    @Inject
+    public HttpsPublishTransport() {
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(TopicName topicName, Qos qos, byte[] payload) {
+        PublishRequest publishRequest = PublishRequest.builder()
+                .topic(topicName.getName())
+                .qos(qos.getLevel())
+                .payload(SdkBytes.fromByteArray(payload))
+                .build();
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Try.run(() -> iotDataPlaneClient.publish(publishRequest))
+                .onSuccess(unused -> future.complete(null))
+                .onFailure(future::completeExceptionally);
+
+        return future;
+    }
+}
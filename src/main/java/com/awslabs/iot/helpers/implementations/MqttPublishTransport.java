@@ -0,0 +1,153 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.ClientId;
+import com.awslabs.iot.data.Qos;
+import com.awslabs.iot.data.TopicName;
+import com.awslabs.iot.helpers.interfaces.PublishTransport;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.eclipse.paho.client.mqttv3.*;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+// Publishes over one persistent MQTT connection. QoS 0 messages complete as soon as they are written, QoS 1 messages
+//   are pipelined with at most MAX_IN_FLIGHT waiting for an acknowledgement. The connection is re-established
+//   automatically and messages published while it is down are buffered until it is back.
+public class MqttPublishTransport implements PublishTransport {
+    // AWS IoT allows up to 100 unacknowledged QoS 1 publishes per connection
+    public static final int MAX_IN_FLIGHT = 100;
+    private static final int DISCONNECTED_BUFFER_SIZE = 10000;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+    private static final long CONNECT_TIMEOUT_MS = 30000;
+    private static final String SSL_URI_FORMAT = "ssl://%s:8883";
+    private final Logger log = LoggerFactory.getLogger(MqttPublishTransport.class);
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    // Messages that haven't completed yet, including ones buffered while the connection is down, are failed by close()
+    private final Set<CompletableFuture<Void>> outstanding = ConcurrentHashMap.newKeySet();
+    private final MqttAsyncClient mqttAsyncClient;
+
+    // Mutual TLS to an IoT data endpoint, the SSL context usually comes from SslContextHelper
+    public MqttPublishTransport(String endpoint, ClientId clientId, SSLContext sslContext) {
+        this(Option.of(sslContext), String.format(SSL_URI_FORMAT, endpoint), clientId);
+    }
+
+    // For plain TCP brokers (e.g. "tcp://localhost:1883") or TLS brokers that don't need a custom context
+    public MqttPublishTransport(String serverUri, ClientId clientId) {
+        this(Option.none(), serverUri, clientId);
+    }
+
+    private MqttPublishTransport(Option<SSLContext> sslContextOption, String serverUri, ClientId clientId) {
+        mqttAsyncClient = Try.of(() -> new MqttAsyncClient(serverUri, clientId.getClientId(), new MemoryPersistence())).get();
+
+        MqttConnectOptions mqttConnectOptions = new MqttConnectOptions();
+        mqttConnectOptions.setAutomaticReconnect(true);
+        mqttConnectOptions.setCleanSession(true);
+        mqttConnectOptions.setKeepAliveInterval(KEEP_ALIVE_SECONDS);
+        mqttConnectOptions.setMaxInflight(MAX_IN_FLIGHT);
+        sslContextOption.forEach(sslContext -> mqttConnectOptions.setSocketFactory(sslContext.getSocketFactory()));
+
+        DisconnectedBufferOptions disconnectedBufferOptions = new DisconnectedBufferOptions();
+        disconnectedBufferOptions.setBufferEnabled(true);
+        disconnectedBufferOptions.setBufferSize(DISCONNECTED_BUFFER_SIZE);
+        disconnectedBufferOptions.setPersistBuffer(false);
+        disconnectedBufferOptions.setDeleteOldestMessages(false);
+        mqttAsyncClient.setBufferOpts(disconnectedBufferOptions);
+
+        mqttAsyncClient.setCallback(new MqttCallbackExtended() {
+            @Override
+            public void connectComplete(boolean reconnect, String serverURI) {
+                log.debug(String.join("", reconnect ? "Reconnected to [" : "Connected to [", serverURI, "]"));
+            }
+
+            @Override
+            public void connectionLost(Throwable cause) {
+                log.warn(String.join("", "Lost the connection to [", serverUri, "], reconnecting"), cause);
+            }
+
+            @Override
+            public void messageArrived(String topic, MqttMessage message) {
+                // This client never subscribes
+            }
+
+            @Override
+            public void deliveryComplete(IMqttDeliveryToken token) {
+                // Completion is reported through each publish's action listener
+            }
+        });
+
+        // Only the first connection is waited for, later reconnects happen in the background
+        Try.run(() -> mqttAsyncClient.connect(mqttConnectOptions).waitForCompletion(CONNECT_TIMEOUT_MS))
+                // The caller never gets a transport to close so the client is closed here
+                .onFailure(throwable -> {
+                    disconnectForcibly();
+                    closeClient();
+                })
+                .get();
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(TopicName topicName, Qos qos, byte[] payload) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        outstanding.add(future);
+        future.whenComplete((unused, throwable) -> outstanding.remove(future));
+
+        // QoS 0 messages are never acknowledged so they don't take a slot in the window
+        boolean needsAcknowledgement = qos.getLevel() > 0;
+
+        if (needsAcknowledgement) {
+            Try.run(inFlight::acquire).get();
+            future.whenComplete((unused, throwable) -> inFlight.release());
+        }
+
+        MqttMessage mqttMessage = new MqttMessage(payload);
+        mqttMessage.setQos(qos.getLevel());
+
+        Try.run(() -> mqttAsyncClient.publish(topicName.getName(), mqttMessage, null, new IMqttActionListener() {
+                    @Override
+                    public void onSuccess(IMqttToken asyncActionToken) {
+                        future.complete(null);
+                    }
+
+                    @Override
+                    public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+                        future.completeExceptionally(exception);
+                    }
+                }))
+                .onFailure(future::completeExceptionally);
+
+        return future;
+    }
+
+    @Override
+    public void close() {
+        // Gives the messages already in flight a chance to be acknowledged before the connection is dropped
+        Try.run(() -> mqttAsyncClient.disconnect().waitForCompletion(CONNECT_TIMEOUT_MS))
+                .onFailure(throwable -> log.warn("Failed to disconnect from the MQTT broker, disconnecting forcibly", throwable))
+                .orElseRun(throwable -> disconnectForcibly());
+
+        closeClient();
+
+        // Nothing can complete these once the client is closed
+        RuntimeException closed = new RuntimeException("The MQTT connection was closed before the message was acknowledged");
+        List.ofAll(outstanding).forEach(future -> future.completeExceptionally(closed));
+    }
+
+    private void disconnectForcibly() {
+        Try.run(() -> mqttAsyncClient.disconnectForcibly(CONNECT_TIMEOUT_MS))
+                .onFailure(throwable -> log.debug(String.join("", "Failed to disconnect forcibly [", String.valueOf(throwable.getMessage()), "]")));
+    }
+
+    private void closeClient() {
+        // Forcing the close releases the client's threads and sockets even if it still thinks it is connected
+        Try.run(() -> mqttAsyncClient.close(true))
+                .onFailure(throwable -> log.warn("Failed to close the MQTT client", throwable));
+    }
+}
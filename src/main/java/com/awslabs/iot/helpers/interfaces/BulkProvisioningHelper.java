@@ -0,0 +1,29 @@
+package com.awslabs.iot.helpers.interfaces;
+
+import com.awslabs.iot.data.ThingProvisioningOutcome;
+import com.awslabs.iot.data.ThingProvisioningRequest;
+import com.awslabs.iot.data.ThingRegistrationTaskId;
+import com.awslabs.s3.helpers.data.S3Bucket;
+import com.awslabs.s3.helpers.data.S3Key;
+import io.vavr.collection.Map;
+import io.vavr.collection.Stream;
+import software.amazon.awssdk.services.iam.model.Role;
+import software.amazon.awssdk.services.iot.model.DescribeThingRegistrationTaskResponse;
+import software.amazon.awssdk.services.iot.model.ReportType;
+
+public interface BulkProvisioningHelper {
+    // Creates the thing, signs the CSR, attaches the certificate to the thing, and attaches the policies for many things
+    //   concurrently. Outcomes are returned in the order the things finish. Nothing is rolled back when a step fails.
+    //   The IoT APIs are called directly so the registry graph isn't updated, call IotRegistryGraph.refresh() afterwards
+    //   if it is in use.
+    Stream<ThingProvisioningOutcome> provision(Stream<ThingProvisioningRequest> thingProvisioningRequests);
+
+    // For very large batches. Each parameter map becomes one line of the task's input file, which is written to S3
+    //   without holding the whole batch in memory. The role must allow IoT to read the input file.
+    ThingRegistrationTaskId startThingRegistrationTask(String templateBody, Stream<Map<String, String>> templateParameters, S3Bucket s3Bucket, S3Key s3Key, Role role);
+
+    DescribeThingRegistrationTaskResponse waitForThingRegistrationTask(ThingRegistrationTaskId thingRegistrationTaskId);
+
+    // Pre-signed URLs of the result or error reports written by the task
+    Stream<String> getThingRegistrationTaskReports(ThingRegistrationTaskId thingRegistrationTaskId, ReportType reportType);
+}
@@ -0,0 +1,25 @@
+package com.awslabs.iot.helpers.interfaces;
+
+import com.awslabs.iot.data.Qos;
+import com.awslabs.iot.data.TopicName;
+import software.amazon.awssdk.services.iotdataplane.model.PublishResponse;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+// Publishes through the IoT data plane without waiting for each response. At most IOT_PUBLISH_MAX_IN_FLIGHT requests
+//   are outstanding, publish blocks the caller until a slot is free so a fast producer can't queue unbounded work.
+public interface IotAsyncPublisher {
+    // Read from system properties first and then from environment variables
+    String IOT_PUBLISH_MAX_IN_FLIGHT = "IOT_PUBLISH_MAX_IN_FLIGHT";
+
+    // The buffer is not copied, it must not be modified until the returned future completes
+    CompletableFuture<PublishResponse> publish(TopicName topicName, Qos qos, ByteBuffer payload);
+
+    // Encoded as UTF-8
+    CompletableFuture<PublishResponse> publish(TopicName topicName, Qos qos, String payload);
+
+    // Waits until every message published before the call has been acknowledged or has failed, messages published
+    //   while it waits are not waited for
+    void flush();
+}
@@ -1,8 +1,11 @@
 package com.awslabs.iot.helpers.interfaces;
 
 import com.awslabs.iot.data.*;
+import com.awslabs.resultsiterator.data.ImmutablePassword;
+import com.awslabs.resultsiterator.data.ResultsFilter;
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
+import io.vavr.collection.Map;
 import io.vavr.collection.Stream;
 import io.vavr.control.Option;
 import io.vavr.control.Try;
@@ -18,6 +21,7 @@ import software.amazon.awssdk.services.iot.model.*;
 import java.io.File;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.CompletableFuture;
 
 public interface IotHelper {
     String FLEET_INDEXING_QUERY_STRING_DELIMITER = ":";
@@ -31,6 +35,11 @@ public interface IotHelper {
     String CN = "CN";
     String O = "O";
     String IOT_ASSUME_ROLE_WITH_CERTIFICATE = "iot:AssumeRoleWithCertificate";
+    // Read from system properties first and then from environment variables. The cache is disabled (a TTL of zero) by
+    //   default, when it is enabled changes made outside this helper can take up to the TTL to be seen.
+    String DESCRIBE_THING_CACHE_TTL_SECONDS = "DESCRIBE_THING_CACHE_TTL_SECONDS";
+    String DESCRIBE_THING_CACHE_MAX_ENTRIES = "DESCRIBE_THING_CACHE_MAX_ENTRIES";
+    String FLEET_INDEX_NAME = "AWS_Things";
 
     String getEndpoint(IotEndpointType iotEndpointType);
 
@@ -68,8 +77,14 @@ public interface IotHelper {
 
     boolean isAnyThingImmutable(Stream<ThingName> thingName);
 
+    // Answers with fleet indexing queries when indexing is enabled, so things created in the last few seconds may not
+    //   be reported as immutable yet. Falls back to isThingImmutable when the registry isn't indexed.
+    Map<ThingName, Boolean> areThingsImmutable(Stream<ThingName> thingNames);
+
     Stream<Certificate> getCertificates();
 
+    // Lists the attachments of every certificate so the answer is always current, IotRegistryGraph.getUnattachedCertificates()
+    //   answers from memory instead but can be up to the graph's max age out of date
     Stream<Certificate> getUnattachedCertificates();
 
     Stream<Policy> getPolicies();
@@ -94,6 +109,10 @@ public interface IotHelper {
 
     void recursiveDelete(CertificateArn certificateArn);
 
+    // Deletes many certificates concurrently, outcomes are returned in the order the deletions finish. Deletions only
+    //   proceed as the stream is consumed (a small window ahead of the reader), drain it to delete every certificate.
+    Stream<CertificateDeletionOutcome> recursiveDelete(Stream<CertificateArn> certificateArns);
+
     void deleteCaCertificate(Certificate certificate);
 
     void deleteCaCertificate(CertificateArn certificateArn);
@@ -112,6 +131,8 @@ public interface IotHelper {
 
     Stream<ThingAttribute> getThings();
 
+    Stream<ThingAttribute> getThings(ResultsFilter resultsFilter);
+
     Stream<GroupNameAndArn> getThingGroups();
 
     void delete(GroupNameAndArn groupNameAndArn);
@@ -122,12 +143,30 @@ public interface IotHelper {
 
     void deleteTopicRule(RuleName ruleName);
 
+    // Encoded as UTF-8
     void publish(TopicName topicName, Qos qos, String payload);
 
     void publish(TopicName topicName, Qos qos, byte[] payload);
 
     void publish(TopicName topicName, Qos qos, SdkBytes payload);
 
+    // Waits for the message to be sent before returning, use publishAsync to keep many messages in flight
+    void publish(TopicName topicName, Qos qos, SdkBytes payload, PublishTransport publishTransport);
+
+    // Returns as soon as the transport has accepted the message, the bound HTTPS transport still sends it before returning
+    CompletableFuture<Void> publishAsync(TopicName topicName, Qos qos, SdkBytes payload);
+
+    // Callers that publish in bulk should pass a transport from getMqttPublishTransport and wait on the futures in batches
+    CompletableFuture<Void> publishAsync(TopicName topicName, Qos qos, SdkBytes payload, PublishTransport publishTransport);
+
+    // A persistent mutual TLS connection to this account's ATS data endpoint, much faster than HTTPS for sustained
+    //   publishing. Pass it to the publish and publishAsync overloads that take a transport, the caller closes it.
+    PublishTransport getMqttPublishTransport(ClientId clientId,
+                                             ImmutableCaCertFilename caCertFilename,
+                                             ImmutableClientCertFilename clientCertFilename,
+                                             ImmutableClientPrivateKeyFilename clientPrivateKeyFilename,
+                                             ImmutablePassword password);
+
     Stream<JobSummary> getJobs();
 
     void delete(JobSummary jobSummary);
@@ -136,8 +175,24 @@ public interface IotHelper {
 
     Stream<JobExecutionSummaryForJob> getJobExecutions(JobSummary jobSummary);
 
+    // Large groups are searched with parallel sub-queries, the things are returned in the order the queries find them
     Stream<ThingDocument> getThingsByGroupName(String groupName);
 
+    Stream<ThingDocument> searchThings(ResultsFilter resultsFilter);
+
+    // Aggregations over the fleet index, filters are translated into query strings (e.g. equalTo("connectivity.connected", "true"))
+    //   so counts and distributions come back in a single call instead of listing the registry
+    long getThingCount(ResultsFilter resultsFilter);
+
+    Statistics getStatistics(ResultsFilter resultsFilter, String aggregationField);
+
+    int getCardinality(ResultsFilter resultsFilter, String aggregationField);
+
+    Map<Double, Double> getPercentiles(ResultsFilter resultsFilter, String aggregationField, List<Double> percents);
+
+    // Number of things for each of the most common values of the field, at most maxBuckets of them
+    Map<String, Integer> getBuckets(ResultsFilter resultsFilter, String aggregationField, int maxBuckets);
+
     <T> Try<T> tryGetObjectFromPem(File file, Class<T> returnClass);
 
     <T> Try<T> tryGetObjectFromPem(String pemString, Class<T> returnClass);
@@ -160,6 +215,7 @@ public interface IotHelper {
 
     PKCS10CertificationRequest generateCertificateSigningRequest(java.security.KeyPair keyPair, List<Tuple2<String, String>> certificateName, List<Tuple2<ASN1ObjectIdentifier, ASN1Encodable>> attributes);
 
+    // Key pairs come from the key pair pool so callers rarely wait for key generation
     java.security.KeyPair getRandomRsaKeypair(int keySize);
 
     java.security.KeyPair getRandomEcKeypair(int keySize);
@@ -0,0 +1,50 @@
+package com.awslabs.iot.helpers.interfaces;
+
+import com.awslabs.iot.data.*;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import software.amazon.awssdk.services.iot.model.Certificate;
+import software.amazon.awssdk.services.iot.model.Policy;
+import software.amazon.awssdk.services.iot.model.ThingAttribute;
+
+// An in-memory index of the attachments between things, principals, policies, and role aliases. The graph is built
+// the first time it is queried and then reflects the registry as of the last refresh plus the changes made through
+// the helpers in this library. It is rebuilt when it is queried after it is older than the max age, call refresh()
+// after changes made elsewhere to see them sooner.
+public interface IotRegistryGraph {
+    // Read from system properties first and then from environment variables, defaults to five minutes
+    String IOT_REGISTRY_GRAPH_MAX_AGE_SECONDS = "IOT_REGISTRY_GRAPH_MAX_AGE_SECONDS";
+
+    void refresh();
+
+    // Incremental refreshes, each one only lists the attachments of a single node
+    void refresh(ThingName thingName);
+
+    void refresh(CertificateArn certificateArn);
+
+    void refresh(PolicyName policyName);
+
+    Stream<Certificate> getUnattachedCertificates();
+
+    Stream<ThingAttribute> getThingsWithoutPrincipals();
+
+    Stream<Policy> getUnattachedPolicies();
+
+    Stream<ThingPrincipal> getThingPrincipals(ThingName thingName);
+
+    Stream<ThingName> getAttachedThings(CertificateArn certificateArn);
+
+    Stream<PolicyName> getAttachedPolicies(CertificateArn certificateArn);
+
+    Stream<CertificateArn> getAttachedCertificates(PolicyName policyName);
+
+    Stream<RoleAlias> getRoleAliases(PolicyName policyName);
+
+    // Follows thing -> certificates -> policies -> role aliases
+    Stream<RoleAlias> getRoleAliases(ThingName thingName);
+
+    // Follows role alias -> policies -> certificates -> things
+    Stream<ThingName> getThingsThatCanAssume(RoleAlias roleAlias);
+
+    Option<String> getRoleArn(RoleAlias roleAlias);
+}
@@ -0,0 +1,22 @@
+package com.awslabs.iot.helpers.interfaces;
+
+import com.awslabs.iot.data.KeyPairPoolMetrics;
+import com.awslabs.iot.data.KeyPairSpec;
+import io.vavr.collection.Map;
+
+import java.security.KeyPair;
+
+// Generates key pairs on background threads so callers don't wait for key generation. Specs that have been warmed up
+//   are kept topped up to KEY_PAIR_POOL_TARGET_DEPTH key pairs, other specs are generated on demand.
+public interface KeyPairPool {
+    // Read from system properties first and then from environment variables
+    String KEY_PAIR_POOL_TARGET_DEPTH = "KEY_PAIR_POOL_TARGET_DEPTH";
+
+    // Every key pair is handed out once, if the pool is empty one is generated on the caller's thread
+    KeyPair take(KeyPairSpec keyPairSpec);
+
+    // Starts filling the pool for these specs and keeps refilling it as key pairs are taken
+    void warmUp(KeyPairSpec... keyPairSpecs);
+
+    Map<KeyPairSpec, KeyPairPoolMetrics> getMetrics();
+}
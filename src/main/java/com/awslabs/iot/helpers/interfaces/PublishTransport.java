@@ -0,0 +1,17 @@
+package com.awslabs.iot.helpers.interfaces;
+
+import com.awslabs.iot.data.Qos;
+import com.awslabs.iot.data.TopicName;
+
+import java.util.concurrent.CompletableFuture;
+
+// How IotHelper.publish reaches the broker. Futures complete when the message has been sent, for QoS 1 over MQTT that
+//   means the broker has acknowledged it, so callers can keep many messages in flight.
+public interface PublishTransport extends AutoCloseable {
+    CompletableFuture<Void> publish(TopicName topicName, Qos qos, byte[] payload);
+
+    // Transports with a persistent connection close it here
+    @Override
+    default void close() {
+    }
+}
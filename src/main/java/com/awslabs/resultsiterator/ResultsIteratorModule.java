@@ -3,13 +3,19 @@ package com.awslabs.resultsiterator;
 import com.awslabs.cloudformation.implementations.BasicCloudFormationHelper;
 import com.awslabs.cloudformation.interfaces.CloudFormationHelper;
 import com.awslabs.dynamodb.implementations.BasicDynamoDbHelper;
+import com.awslabs.dynamodb.implementations.BasicLeaseCoordinator;
 import com.awslabs.dynamodb.interfaces.DynamoDbHelper;
+import com.awslabs.dynamodb.interfaces.LeaseCoordinator;
 import com.awslabs.general.helpers.implementations.BasicLambdaPackagingHelper;
 import com.awslabs.general.helpers.implementations.BasicProcessHelper;
+import com.awslabs.general.helpers.implementations.BasicSnapshotHelper;
+import com.awslabs.general.helpers.implementations.BasicSortHelper;
 import com.awslabs.general.helpers.implementations.GsonHelper;
 import com.awslabs.general.helpers.implementations.IoHelper;
 import com.awslabs.general.helpers.interfaces.LambdaPackagingHelper;
 import com.awslabs.general.helpers.interfaces.ProcessHelper;
+import com.awslabs.general.helpers.interfaces.SnapshotHelper;
+import com.awslabs.general.helpers.interfaces.SortHelper;
 import com.awslabs.iam.helpers.implementations.BasicIamHelper;
 import com.awslabs.iam.helpers.interfaces.IamHelper;
 import com.awslabs.iot.helpers.implementations.*;
@@ -18,8 +24,12 @@ import com.awslabs.lambda.helpers.implementations.BasicLambdaHelper;
 import com.awslabs.lambda.helpers.interfaces.LambdaHelper;
 import com.awslabs.resultsiterator.implementations.*;
 import com.awslabs.resultsiterator.interfaces.CertificateCredentialsProvider;
+import com.awslabs.resultsiterator.interfaces.FanOutHelper;
 import com.awslabs.resultsiterator.interfaces.ReflectionHelper;
+import com.awslabs.resultsiterator.interfaces.ResultsCache;
 import com.awslabs.resultsiterator.interfaces.SdkErrorHandler;
+import com.awslabs.resultsiterator.interfaces.SingleFlightHelper;
+import com.awslabs.resultsiterator.interfaces.CryptoContext;
 import com.awslabs.resultsiterator.interfaces.SslContextHelper;
 import com.awslabs.s3.helpers.implementations.BasicS3Helper;
 import com.awslabs.s3.helpers.interfaces.S3Helper;
@@ -33,11 +43,14 @@ import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProviderChain;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.regions.providers.AwsRegionProviderChain;
 import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
 import software.amazon.awssdk.services.cloudformation.CloudFormationClient;
 import software.amazon.awssdk.services.cloudformation.CloudFormationClientBuilder;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 import software.amazon.awssdk.services.ec2.Ec2Client;
@@ -48,12 +61,18 @@ import software.amazon.awssdk.services.greengrassv2.GreengrassV2Client;
 import software.amazon.awssdk.services.greengrassv2.GreengrassV2ClientBuilder;
 import software.amazon.awssdk.services.iam.IamClient;
 import software.amazon.awssdk.services.iam.IamClientBuilder;
+import software.amazon.awssdk.services.iot.IotAsyncClient;
+import software.amazon.awssdk.services.iot.IotAsyncClientBuilder;
 import software.amazon.awssdk.services.iot.IotClient;
 import software.amazon.awssdk.services.iot.IotClientBuilder;
+import software.amazon.awssdk.services.iotdataplane.IotDataPlaneAsyncClient;
+import software.amazon.awssdk.services.iotdataplane.IotDataPlaneAsyncClientBuilder;
 import software.amazon.awssdk.services.iotdataplane.IotDataPlaneClient;
 import software.amazon.awssdk.services.iotdataplane.IotDataPlaneClientBuilder;
 import software.amazon.awssdk.services.lambda.LambdaClient;
 import software.amazon.awssdk.services.lambda.LambdaClientBuilder;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.S3Utilities;
@@ -108,6 +127,18 @@ public class ResultsIteratorModule {
         return basicProcessHelper;
     }
 
+    @Provides
+    @Singleton
+    public SnapshotHelper snapshotHelper(BasicSnapshotHelper basicSnapshotHelper) {
+        return basicSnapshotHelper;
+    }
+
+    @Provides
+    @Singleton
+    public SortHelper sortHelper(BasicSortHelper basicSortHelper) {
+        return basicSortHelper;
+    }
+
     @Provides
     @Singleton
     public AwsCredentialsProvider awsCredentialsProvider(CertificateCredentialsProvider certificateCredentialsProvider) {
@@ -126,6 +157,13 @@ public class ResultsIteratorModule {
         return ApacheHttpClient.builder();
     }
 
+    // The async clients share one builder configuration, each client still gets its own event loop and connection pool
+    @Provides
+    @Singleton
+    public NettyNioAsyncHttpClient.Builder nettyNioAsyncHttpClientBuilderProvider() {
+        return NettyNioAsyncHttpClient.builder();
+    }
+
     @Provides
     @Singleton
     public CertificateCredentialsProvider certificateCredentialsProvider(BouncyCastleCertificateCredentialsProvider bouncyCastleCertificateCredentialsProvider) {
@@ -139,6 +177,20 @@ public class ResultsIteratorModule {
         return basicSdkErrorHandler;
     }
 
+    // Identical concurrent describe/get calls on the clients below share one in-flight request
+    @Provides
+    @Singleton
+    public SingleFlightHelper singleFlightHelper(BasicSingleFlightHelper basicSingleFlightHelper) {
+        return basicSingleFlightHelper;
+    }
+
+    // Optional cache for repeated listings, disabled unless a TTL is configured
+    @Provides
+    @Singleton
+    public ResultsCache resultsCache(BasicResultsCache basicResultsCache) {
+        return basicResultsCache;
+    }
+
     // Normal clients that need no special configuration
     // NOTE: Using this pattern allows us to wrap the creation of these clients in some error checking code that can give the user information on what to do in the case of a failure
     @Provides
@@ -159,8 +211,19 @@ public class ResultsIteratorModule {
 
     @Provides
     @Singleton
-    public S3Client s3Client(S3ClientBuilder s3ClientBuilder) {
-        return new SafeProvider<>(s3ClientBuilder::build).get();
+    public S3Client s3Client(S3ClientBuilder s3ClientBuilder, SingleFlightHelper singleFlightHelper) {
+        return singleFlightHelper.wrap(S3Client.class, new SafeProvider<>(s3ClientBuilder::build).get());
+    }
+
+    @Provides
+    public S3AsyncClientBuilder s3AsyncClientBuilder(AwsCredentialsProvider awsCredentialsProvider, NettyNioAsyncHttpClient.Builder nettyNioAsyncHttpClientBuilder) {
+        return S3AsyncClient.builder().httpClientBuilder(nettyNioAsyncHttpClientBuilder).credentialsProvider(awsCredentialsProvider);
+    }
+
+    @Provides
+    @Singleton
+    public S3AsyncClient s3AsyncClient(S3AsyncClientBuilder s3AsyncClientBuilder) {
+        return new SafeProvider<>(s3AsyncClientBuilder::build).get();
     }
 
     @Provides
@@ -181,8 +244,19 @@ public class ResultsIteratorModule {
 
     @Provides
     @Singleton
-    public IotClient iotClient(IotClientBuilder iotClientBuilder) {
-        return new SafeProvider<>(iotClientBuilder::build).get();
+    public IotClient iotClient(IotClientBuilder iotClientBuilder, SingleFlightHelper singleFlightHelper) {
+        return singleFlightHelper.wrap(IotClient.class, new SafeProvider<>(iotClientBuilder::build).get());
+    }
+
+    @Provides
+    public IotAsyncClientBuilder iotAsyncClientBuilder(AwsCredentialsProvider awsCredentialsProvider, NettyNioAsyncHttpClient.Builder nettyNioAsyncHttpClientBuilder) {
+        return IotAsyncClient.builder().httpClientBuilder(nettyNioAsyncHttpClientBuilder).credentialsProvider(awsCredentialsProvider);
+    }
+
+    @Provides
+    @Singleton
+    public IotAsyncClient iotAsyncClient(IotAsyncClientBuilder iotAsyncClientBuilder) {
+        return new SafeProvider<>(iotAsyncClientBuilder::build).get();
     }
 
     @Provides
@@ -196,6 +270,21 @@ public class ResultsIteratorModule {
         return new SafeProvider<>(iotDataPlaneClientBuilder::build).get();
     }
 
+    @Provides
+    public IotDataPlaneAsyncClientBuilder iotDataPlaneAsyncClientBuilder(AwsCredentialsProvider awsCredentialsProvider) {
+        // Gets its own Netty configuration so every publish the async publisher allows in flight has a connection
+        NettyNioAsyncHttpClient.Builder nettyNioAsyncHttpClientBuilder = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(BasicIotAsyncPublisher.MAX_IN_FLIGHT);
+
+        return IotDataPlaneAsyncClient.builder().httpClientBuilder(nettyNioAsyncHttpClientBuilder).credentialsProvider(awsCredentialsProvider);
+    }
+
+    @Provides
+    @Singleton
+    public IotDataPlaneAsyncClient iotDataPlaneAsyncClient(IotDataPlaneAsyncClientBuilder iotDataPlaneAsyncClientBuilder) {
+        return new SafeProvider<>(iotDataPlaneAsyncClientBuilder::build).get();
+    }
+
     @Provides
     public GreengrassClientBuilder greengrassClientBuilder(AwsCredentialsProvider awsCredentialsProvider, ApacheHttpClient.Builder apacheHttpClientBuilder) {
         return GreengrassClient.builder().httpClientBuilder(apacheHttpClientBuilder).credentialsProvider(awsCredentialsProvider);
@@ -203,8 +292,8 @@ public class ResultsIteratorModule {
 
     @Provides
     @Singleton
-    public GreengrassClient greengrassClient(GreengrassClientBuilder greengrassClientBuilder) {
-        return new SafeProvider<>(greengrassClientBuilder::build).get();
+    public GreengrassClient greengrassClient(GreengrassClientBuilder greengrassClientBuilder, SingleFlightHelper singleFlightHelper) {
+        return singleFlightHelper.wrap(GreengrassClient.class, new SafeProvider<>(greengrassClientBuilder::build).get());
     }
 
     @Provides
@@ -214,8 +303,8 @@ public class ResultsIteratorModule {
 
     @Provides
     @Singleton
-    public GreengrassV2Client greengrassV2Client(GreengrassV2ClientBuilder greengrassV2ClientBuilder) {
-        return new SafeProvider<>(greengrassV2ClientBuilder::build).get();
+    public GreengrassV2Client greengrassV2Client(GreengrassV2ClientBuilder greengrassV2ClientBuilder, SingleFlightHelper singleFlightHelper) {
+        return singleFlightHelper.wrap(GreengrassV2Client.class, new SafeProvider<>(greengrassV2ClientBuilder::build).get());
     }
 
     @Provides
@@ -225,8 +314,8 @@ public class ResultsIteratorModule {
 
     @Provides
     @Singleton
-    public LambdaClient lambdaClient(LambdaClientBuilder lambdaClientBuilder) {
-        return new SafeProvider<>(lambdaClientBuilder::build).get();
+    public LambdaClient lambdaClient(LambdaClientBuilder lambdaClientBuilder, SingleFlightHelper singleFlightHelper) {
+        return singleFlightHelper.wrap(LambdaClient.class, new SafeProvider<>(lambdaClientBuilder::build).get());
     }
 
     @Provides
@@ -236,8 +325,8 @@ public class ResultsIteratorModule {
 
     @Provides
     @Singleton
-    public Ec2Client ec2Client(Ec2ClientBuilder ec2ClientBuilder) {
-        return new SafeProvider<>(ec2ClientBuilder::build).get();
+    public Ec2Client ec2Client(Ec2ClientBuilder ec2ClientBuilder, SingleFlightHelper singleFlightHelper) {
+        return singleFlightHelper.wrap(Ec2Client.class, new SafeProvider<>(ec2ClientBuilder::build).get());
     }
 
     @Provides
@@ -247,8 +336,8 @@ public class ResultsIteratorModule {
 
     @Provides
     @Singleton
-    public CloudFormationClient cloudFormationClient(CloudFormationClientBuilder cloudFormationClientBuilder) {
-        return new SafeProvider<>(cloudFormationClientBuilder::build).get();
+    public CloudFormationClient cloudFormationClient(CloudFormationClientBuilder cloudFormationClientBuilder, SingleFlightHelper singleFlightHelper) {
+        return singleFlightHelper.wrap(CloudFormationClient.class, new SafeProvider<>(cloudFormationClientBuilder::build).get());
     }
 
     @Provides
@@ -262,6 +351,17 @@ public class ResultsIteratorModule {
         return new SafeProvider<>(dynamoDbClientBuilder::build).get();
     }
 
+    @Provides
+    public DynamoDbAsyncClientBuilder dynamoDbAsyncClientBuilder(AwsCredentialsProvider awsCredentialsProvider, NettyNioAsyncHttpClient.Builder nettyNioAsyncHttpClientBuilder) {
+        return DynamoDbAsyncClient.builder().httpClientBuilder(nettyNioAsyncHttpClientBuilder).credentialsProvider(awsCredentialsProvider);
+    }
+
+    @Provides
+    @Singleton
+    public DynamoDbAsyncClient dynamoDbAsyncClient(DynamoDbAsyncClientBuilder dynamoDbAsyncClientBuilder) {
+        return new SafeProvider<>(dynamoDbAsyncClientBuilder::build).get();
+    }
+
     // Clients that need special configuration
     // NOTE: Using this pattern allows us to wrap the creation of these clients in some error checking code that can give the user information on what to do in the case of a failure
     @Provides
@@ -271,8 +371,8 @@ public class ResultsIteratorModule {
 
     @Provides
     @Singleton
-    public IamClient iamClient(IamClientBuilder iamClientBuilder) {
-        return new SafeProvider<>(iamClientBuilder::build).get();
+    public IamClient iamClient(IamClientBuilder iamClientBuilder, SingleFlightHelper singleFlightHelper) {
+        return singleFlightHelper.wrap(IamClient.class, new SafeProvider<>(iamClientBuilder::build).get());
     }
 
     @Provides
@@ -304,6 +404,12 @@ public class ResultsIteratorModule {
         return basicDynamoDbHelper;
     }
 
+    @Provides
+    @Singleton
+    public LeaseCoordinator leaseCoordinator(BasicLeaseCoordinator basicLeaseCoordinator) {
+        return basicLeaseCoordinator;
+    }
+
     @Provides
     @Singleton
     public GreengrassV1Helper greengrassHelper(BasicGreengrassV1Helper basicGreengrassHelper) {
@@ -328,6 +434,37 @@ public class ResultsIteratorModule {
         return basicIotHelper;
     }
 
+    @Provides
+    @Singleton
+    public IotRegistryGraph iotRegistryGraph(BasicIotRegistryGraph basicIotRegistryGraph) {
+        return basicIotRegistryGraph;
+    }
+
+    // IotHelper.publish uses HTTPS by default, override this binding to publish over MQTT
+    @Provides
+    @Singleton
+    public PublishTransport publishTransport(HttpsPublishTransport httpsPublishTransport) {
+        return httpsPublishTransport;
+    }
+
+    @Provides
+    @Singleton
+    public KeyPairPool keyPairPool(BasicKeyPairPool basicKeyPairPool) {
+        return basicKeyPairPool;
+    }
+
+    @Provides
+    @Singleton
+    public IotAsyncPublisher iotAsyncPublisher(BasicIotAsyncPublisher basicIotAsyncPublisher) {
+        return basicIotAsyncPublisher;
+    }
+
+    @Provides
+    @Singleton
+    public BulkProvisioningHelper bulkProvisioningHelper(BasicBulkProvisioningHelper basicBulkProvisioningHelper) {
+        return basicBulkProvisioningHelper;
+    }
+
     @Provides
     @Singleton
     public SqsHelper sqsHelper(BasicSqsHelper basicSqsHelper) {
@@ -340,12 +477,24 @@ public class ResultsIteratorModule {
         return basicReflectionHelper;
     }
 
+    @Provides
+    @Singleton
+    public CryptoContext cryptoContext(BasicCryptoContext basicCryptoContext) {
+        return basicCryptoContext;
+    }
+
     @Provides
     @Singleton
     public SslContextHelper sslContextHelper(BasicSslContextHelper basicSslContextHelper) {
         return basicSslContextHelper;
     }
 
+    @Provides
+    @Singleton
+    public FanOutHelper fanOutHelper(BasicFanOutHelper basicFanOutHelper) {
+        return basicFanOutHelper;
+    }
+
     @Provides
     @Singleton
     public S3Utilities s3Utilities(AwsRegionProviderChain awsRegionProviderChain) {
@@ -0,0 +1,28 @@
+package com.awslabs.resultsiterator.data;
+
+import com.awslabs.data.NoToString;
+import io.vavr.collection.List;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class FilterCondition extends NoToString {
+    // Dot separated path to the field, map keys are path segments too (e.g. "attributes.color")
+    public abstract String getFieldPath();
+
+    public abstract FilterOperator getOperator();
+
+    public abstract List<String> getValues();
+
+    @Value.Check
+    protected void check() {
+        if (getValues().isEmpty()) {
+            throw new IllegalArgumentException("A filter condition needs at least one value");
+        }
+
+        if (!FilterOperator.IN.equals(getOperator()) && (getValues().size() != 1)) {
+            throw new IllegalArgumentException("Only IN filter conditions can have more than one value");
+        }
+    }
+}
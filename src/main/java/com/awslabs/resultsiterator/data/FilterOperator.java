@@ -0,0 +1,7 @@
+package com.awslabs.resultsiterator.data;
+
+public enum FilterOperator {
+    EQUALS,
+    PREFIX,
+    IN
+}
@@ -0,0 +1,13 @@
+package com.awslabs.resultsiterator.data;
+
+import com.awslabs.data.NoToString;
+import io.vavr.collection.List;
+import org.immutables.gson.Gson;
+import org.immutables.value.Value;
+
+@Gson.TypeAdapters
+@Value.Immutable
+public abstract class ResultsFilter extends NoToString {
+    // All conditions must match
+    public abstract List<FilterCondition> getConditions();
+}
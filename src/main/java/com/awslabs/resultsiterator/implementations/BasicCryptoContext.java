@@ -0,0 +1,81 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.resultsiterator.interfaces.CryptoContext;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
+import org.bouncycastle.jce.spec.ECNamedCurveSpec;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import javax.inject.Inject;
+import java.security.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class BasicCryptoContext implements CryptoContext {
+    // Creating a BouncyCastleProvider registers hundreds of algorithms so the registered instance is reused when there is one
+    private final Provider provider = Option.of(Security.getProvider(BouncyCastleProvider.PROVIDER_NAME))
+            .getOrElse(BouncyCastleProvider::new);
+    // The converters only hold the provider so one instance can be shared by all threads
+    private final JcaPEMKeyConverter pemKeyConverter = new JcaPEMKeyConverter().setProvider(provider);
+    private final JcaX509CertificateConverter certificateConverter = new JcaX509CertificateConverter().setProvider(provider);
+    private final Map<String, ECNamedCurveSpec> namedCurveSpecs = new ConcurrentHashMap<>();
+    private final Map<String, KeyFactory> keyFactories = new ConcurrentHashMap<>();
+
+    @Inject
+    public BasicCryptoContext() {
+    }
+
+    @Override
+    public Provider getProvider() {
+        return provider;
+    }
+
+    @Override
+    public JcaPEMKeyConverter getPemKeyConverter() {
+        return pemKeyConverter;
+    }
+
+    @Override
+    public JcaX509CertificateConverter getCertificateConverter() {
+        return certificateConverter;
+    }
+
+    @Override
+    public ECNamedCurveSpec getNamedCurveSpec(String curveName) {
+        return namedCurveSpecs.computeIfAbsent(curveName, this::toNamedCurveSpec);
+    }
+
+    private ECNamedCurveSpec toNamedCurveSpec(String curveName) {
+        ECNamedCurveParameterSpec parameterSpec = Option.of(ECNamedCurveTable.getParameterSpec(curveName))
+                .getOrElseThrow(() -> new RuntimeException(String.join("", "Unknown named curve [", curveName, "]")));
+
+        return new ECNamedCurveSpec(curveName, parameterSpec.getCurve(), parameterSpec.getG(), parameterSpec.getN());
+    }
+
+    @Override
+    public KeyFactory getKeyFactory(String algorithm) {
+        return keyFactories.computeIfAbsent(algorithm, key -> Try.of(() -> KeyFactory.getInstance(key, provider)).get());
+    }
+
+    @Override
+    public MessageDigest getMessageDigest(String algorithm) {
+        // The JDK's own digests are looked up without searching the Bouncy Castle provider
+        return Try.of(() -> MessageDigest.getInstance(algorithm)).get();
+    }
+
+    @Override
+    public ContentSigner getContentSigner(String signatureAlgorithm, PrivateKey privateKey) {
+        // Content signers are returned to callers that may hold on to them so each one gets its own Signature
+        return Try.of(() -> new JcaContentSignerBuilder(signatureAlgorithm)
+                        .setProvider(provider)
+                        .build(privateKey))
+                // Rethrow all exceptions
+                .get();
+    }
+}
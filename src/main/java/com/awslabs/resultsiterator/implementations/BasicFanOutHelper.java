@@ -0,0 +1,240 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.general.helpers.implementations.ConcurrencyHelper;
+import com.awslabs.iam.data.AccountId;
+import com.awslabs.iam.data.ImmutableAccountId;
+import com.awslabs.iam.data.RoleArn;
+import com.awslabs.resultsiterator.interfaces.FanOutHelper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.RateLimiter;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.SdkClient;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sts.StsClient;
+import software.amazon.awssdk.services.sts.auth.StsAssumeRoleCredentialsProvider;
+import software.amazon.awssdk.services.sts.model.AssumeRoleRequest;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Consumer;
+
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newBlockingExecutor;
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newScheduledDaemonExecutor;
+
+public class BasicFanOutHelper implements FanOutHelper {
+    private static final int MAX_PLATFORM_THREADS = 32;
+    private static final int MERGE_BUFFER_SIZE = 1000;
+    private static final String ROLE_SESSION_NAME = "results-iterator-fan-out";
+    private static final ExecutorService fanOutExecutor = newBlockingExecutor("fan-out", MAX_PLATFORM_THREADS);
+    private static final ScheduledExecutorService cleanupExecutor = newScheduledDaemonExecutor("fan-out-cleanup");
+    private static final long ACCOUNT_CLIENT_IDLE_MINUTES = 15;
+    private final Logger log = LoggerFactory.getLogger(BasicFanOutHelper.class);
+    // Rate limiters are shared by every fan-out that hits the same service in the same region so concurrent fan-outs
+    //   can't add up to more than one rate. Each fan-out sets the shared limiter to the rate it asked for.
+    final ConcurrentMap<Tuple2<Region, Class<?>>, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    // Clients are pooled per role and service so repeated fan-outs reuse their connections and assumed role
+    //   credentials. Idle clients are closed along with their credentials provider and its refresh thread.
+    final Cache<Tuple2<RoleArn, Class<?>>, AccountClient> accountClients = CacheBuilder.newBuilder()
+            .expireAfterAccess(ACCOUNT_CLIENT_IDLE_MINUTES, TimeUnit.MINUTES)
+            .removalListener((RemovalListener<Tuple2<RoleArn, Class<?>>, AccountClient>) notification -> notification.getValue().evict())
+            .build();
+    @Inject
+    Provider<StsClient> stsClientProvider;
+
+    @Inject
+    public BasicFanOutHelper() {
+        // Expired entries are otherwise only removed when the cache is used again, which may never happen
+        cleanupExecutor.scheduleWithFixedDelay(accountClients::cleanUp, ACCOUNT_CLIENT_IDLE_MINUTES, ACCOUNT_CLIENT_IDLE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<Region, T>> listAcrossRegions(List<Region> regions, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister) {
+        return listAcrossRegions(regions, clientBuilderProvider, lister, DEFAULT_REQUESTS_PER_SECOND_PER_REGION);
+    }
+
+    @Override
+    public <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<Region, T>> listAcrossRegions(List<Region> regions, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerRegion) {
+        return listAcrossRegions(regions, clientBuilderProvider, lister, requestsPerSecondPerRegion, ClientOverrideConfiguration.builder().build());
+    }
+
+    @Override
+    public <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<Region, T>> listAcrossRegions(List<Region> regions, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerRegion, ClientOverrideConfiguration clientOverrideConfiguration) {
+        List<Consumer<Consumer<Tuple2<Region, T>>>> producers = regions.distinct()
+                .map(region -> sink -> listInRegion(region, clientBuilderProvider, lister, requestsPerSecondPerRegion, clientOverrideConfiguration, sink));
+
+        return ConcurrencyHelper.merge(fanOutExecutor, MERGE_BUFFER_SIZE, producers);
+    }
+
+    private <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> void listInRegion(Region region, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerRegion, ClientOverrideConfiguration clientOverrideConfiguration, Consumer<Tuple2<Region, T>> sink) {
+        B clientBuilder = clientBuilderProvider.get();
+
+        RateLimiter rateLimiter = rateLimiters.computeIfAbsent(Tuple.of(region, clientBuilder.getClass()), key -> RateLimiter.create(requestsPerSecondPerRegion));
+        setRate(rateLimiter, requestsPerSecondPerRegion);
+
+        C client = clientBuilder
+                .region(region)
+                .overrideConfiguration(withRateLimiter(clientOverrideConfiguration, rateLimiter))
+                .build();
+
+        log.debug(String.join("", "Listing in region [", region.id(), "]"));
+
+        // The listing is consumed completely on this thread so the client can be closed when it is done
+        Try.withResources(() -> client)
+                .of(regionClient -> {
+                    lister.apply(regionClient).forEach(value -> sink.accept(Tuple.of(region, value)));
+                    return null;
+                })
+                .get();
+    }
+
+    private ClientOverrideConfiguration withRateLimiter(ClientOverrideConfiguration clientOverrideConfiguration, RateLimiter rateLimiter) {
+        // Keeps the caller's interceptors, retry policy, timeouts, etc. and adds the rate limiter to them
+        return clientOverrideConfiguration.toBuilder()
+                .addExecutionInterceptor(new RateLimitingExecutionInterceptor(rateLimiter))
+                .build();
+    }
+
+    @Override
+    public <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<AccountId, T>> listAcrossAccounts(List<RoleArn> roleArns, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister) {
+        return listAcrossAccounts(roleArns, clientBuilderProvider, lister, DEFAULT_REQUESTS_PER_SECOND_PER_ACCOUNT);
+    }
+
+    @Override
+    public <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<AccountId, T>> listAcrossAccounts(List<RoleArn> roleArns, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerAccount) {
+        return listAcrossAccounts(roleArns, clientBuilderProvider, lister, requestsPerSecondPerAccount, ClientOverrideConfiguration.builder().build());
+    }
+
+    @Override
+    public <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<AccountId, T>> listAcrossAccounts(List<RoleArn> roleArns, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerAccount, ClientOverrideConfiguration clientOverrideConfiguration) {
+        List<Consumer<Consumer<Tuple2<AccountId, T>>>> producers = roleArns.distinct()
+                .map(roleArn -> sink -> listInAccount(roleArn, clientBuilderProvider, lister, requestsPerSecondPerAccount, clientOverrideConfiguration, sink));
+
+        return ConcurrencyHelper.merge(fanOutExecutor, MERGE_BUFFER_SIZE, producers);
+    }
+
+    private <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> void listInAccount(RoleArn roleArn, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerAccount, ClientOverrideConfiguration clientOverrideConfiguration, Consumer<Tuple2<AccountId, T>> sink) {
+        AccountId accountId = getAccountId(roleArn);
+        AccountClient accountClient = acquireAccountClient(roleArn, clientBuilderProvider, requestsPerSecondPerAccount, clientOverrideConfiguration);
+
+        log.debug(String.join("", "Listing in account [", accountId.getId(), "]"));
+
+        try {
+            // The builder class identifies the service, the cast is safe because the builder always builds the same client type
+            lister.apply((C) accountClient.client).forEach(value -> sink.accept(Tuple.of(accountId, value)));
+        } finally {
+            accountClient.release();
+        }
+    }
+
+    private <B extends AwsClientBuilder<B, C>, C extends SdkClient> AccountClient acquireAccountClient(RoleArn roleArn, Provider<B> clientBuilderProvider, double requestsPerSecondPerAccount, ClientOverrideConfiguration clientOverrideConfiguration) {
+        B clientBuilder = clientBuilderProvider.get();
+        Tuple2<RoleArn, Class<?>> key = Tuple.of(roleArn, clientBuilder.getClass());
+
+        while (true) {
+            AccountClient accountClient = Try.of(() -> accountClients.get(key, () -> newAccountClient(roleArn, clientBuilder, requestsPerSecondPerAccount, clientOverrideConfiguration))).get();
+
+            // A client that was evicted between the lookup and here is being closed, look it up again to get a new one
+            if (accountClient.acquire()) {
+                setRate(accountClient.rateLimiter, requestsPerSecondPerAccount);
+                return accountClient;
+            }
+        }
+    }
+
+    private <B extends AwsClientBuilder<B, C>, C extends SdkClient> AccountClient newAccountClient(RoleArn roleArn, B clientBuilder, double requestsPerSecondPerAccount, ClientOverrideConfiguration clientOverrideConfiguration) {
+        // Each pooled client owns its credentials provider so they can be closed together
+        StsAssumeRoleCredentialsProvider credentialsProvider = StsAssumeRoleCredentialsProvider.builder()
+                .stsClient(stsClientProvider.get())
+                .refreshRequest(AssumeRoleRequest.builder()
+                        .roleArn(roleArn.getArn())
+                        .roleSessionName(ROLE_SESSION_NAME)
+                        .build())
+                .asyncCredentialUpdateEnabled(true)
+                .build();
+
+        RateLimiter rateLimiter = RateLimiter.create(requestsPerSecondPerAccount);
+
+        C client = clientBuilder
+                .credentialsProvider(credentialsProvider)
+                .overrideConfiguration(withRateLimiter(clientOverrideConfiguration, rateLimiter))
+                .build();
+
+        return new AccountClient(client, credentialsProvider, rateLimiter);
+    }
+
+    private void setRate(RateLimiter rateLimiter, double requestsPerSecond) {
+        // Setting the rate resets the limiter's stored permits so it is only done when the rate changes
+        if (rateLimiter.getRate() != requestsPerSecond) {
+            rateLimiter.setRate(requestsPerSecond);
+        }
+    }
+
+    private AccountId getAccountId(RoleArn roleArn) {
+        // Role ARNs look like this: arn:PARTITION:iam::ACCOUNT_ID:role/ROLE_NAME
+        String[] arnComponents = roleArn.getArn().split(":");
+
+        if ((arnComponents.length < 6) || arnComponents[4].isEmpty()) {
+            throw new RuntimeException("Could not parse the account ID out of the role ARN [" + roleArn.getArn() + "]");
+        }
+
+        return ImmutableAccountId.builder().id(arnComponents[4]).build();
+    }
+
+    // A pooled client is only closed once it has been evicted and no listing is using it anymore
+    static class AccountClient {
+        private final SdkClient client;
+        private final StsAssumeRoleCredentialsProvider credentialsProvider;
+        private final RateLimiter rateLimiter;
+        private int activeListings = 0;
+        private boolean evicted = false;
+
+        AccountClient(SdkClient client, StsAssumeRoleCredentialsProvider credentialsProvider, RateLimiter rateLimiter) {
+            this.client = client;
+            this.credentialsProvider = credentialsProvider;
+            this.rateLimiter = rateLimiter;
+        }
+
+        synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+
+            activeListings++;
+
+            return true;
+        }
+
+        synchronized void release() {
+            activeListings--;
+            closeIfUnused();
+        }
+
+        synchronized void evict() {
+            evicted = true;
+            closeIfUnused();
+        }
+
+        private void closeIfUnused() {
+            if (evicted && (activeListings == 0)) {
+                client.close();
+                credentialsProvider.close();
+            }
+        }
+    }
+}
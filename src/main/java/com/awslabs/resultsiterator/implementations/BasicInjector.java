@@ -2,20 +2,33 @@ package com.awslabs.resultsiterator.implementations;
 
 import com.awslabs.cloudformation.interfaces.CloudFormationHelper;
 import com.awslabs.dynamodb.interfaces.DynamoDbHelper;
+import com.awslabs.dynamodb.interfaces.LeaseCoordinator;
+import com.awslabs.general.helpers.interfaces.SnapshotHelper;
+import com.awslabs.general.helpers.interfaces.SortHelper;
 import com.awslabs.iam.helpers.interfaces.IamHelper;
 import com.awslabs.iot.helpers.interfaces.GreengrassV1Helper;
 import com.awslabs.iot.helpers.interfaces.GreengrassV2Helper;
+import com.awslabs.iot.helpers.interfaces.BulkProvisioningHelper;
+import com.awslabs.iot.helpers.interfaces.IotAsyncPublisher;
 import com.awslabs.iot.helpers.interfaces.IotHelper;
+import com.awslabs.iot.helpers.interfaces.KeyPairPool;
 import com.awslabs.iot.helpers.interfaces.IotIdExtractor;
+import com.awslabs.iot.helpers.interfaces.IotRegistryGraph;
 import com.awslabs.resultsiterator.ResultsIteratorModule;
 import com.awslabs.resultsiterator.interfaces.CertificateCredentialsProvider;
+import com.awslabs.resultsiterator.interfaces.FanOutHelper;
+import com.awslabs.resultsiterator.interfaces.ResultsCache;
+import com.awslabs.resultsiterator.interfaces.CryptoContext;
 import com.awslabs.resultsiterator.interfaces.SslContextHelper;
 import com.awslabs.s3.helpers.interfaces.S3Helper;
 import com.awslabs.sqs.helpers.interfaces.SqsHelper;
 import dagger.Component;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.services.greengrass.GreengrassClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.iot.IotAsyncClient;
 import software.amazon.awssdk.services.iot.IotClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 
 import javax.inject.Singleton;
@@ -25,18 +38,30 @@ import javax.inject.Singleton;
 public interface BasicInjector {
     IotClient iotClient();
 
+    IotAsyncClient iotAsyncClient();
+
     GreengrassClient greengrassClient();
 
     S3Helper s3Helper();
 
     S3Client s3Client();
 
+    S3AsyncClient s3AsyncClient();
+
     CertificateCredentialsProvider certificateCredentialsProvider();
 
     AwsCredentialsProvider awsCredentialsProvider();
 
     IotHelper iotHelper();
 
+    IotRegistryGraph iotRegistryGraph();
+
+    BulkProvisioningHelper bulkProvisioningHelper();
+
+    IotAsyncPublisher iotAsyncPublisher();
+
+    KeyPairPool keyPairPool();
+
     SqsHelper sqsHelper();
 
     GreengrassV1Helper greengrassV1Helper();
@@ -45,6 +70,8 @@ public interface BasicInjector {
 
     SslContextHelper sslContextHelper();
 
+    CryptoContext cryptoContext();
+
     IamHelper iamHelper();
 
     IotIdExtractor iotIdExtractor();
@@ -52,4 +79,16 @@ public interface BasicInjector {
     CloudFormationHelper cloudFormationHelper();
 
     DynamoDbHelper dynamoDbHelper();
+
+    LeaseCoordinator leaseCoordinator();
+
+    DynamoDbAsyncClient dynamoDbAsyncClient();
+
+    FanOutHelper fanOutHelper();
+
+    SnapshotHelper snapshotHelper();
+
+    SortHelper sortHelper();
+
+    ResultsCache resultsCache();
 }
@@ -0,0 +1,208 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.general.helpers.data.SnapshotFormat;
+import com.awslabs.general.helpers.implementations.JacksonHelper;
+import com.awslabs.general.helpers.implementations.SdkPojoHelper;
+import com.awslabs.general.helpers.interfaces.SnapshotHelper;
+import com.awslabs.resultsiterator.interfaces.ResultsCache;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.vavr.Lazy;
+import io.vavr.Tuple;
+import io.vavr.Tuple3;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.core.SdkClient;
+import software.amazon.awssdk.core.SdkPojo;
+import software.amazon.awssdk.regions.providers.AwsRegionProviderChain;
+
+import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newDaemonExecutor;
+import static com.awslabs.general.helpers.implementations.SettingsHelper.getSetting;
+
+public class BasicResultsCache implements ResultsCache {
+    private static final long DEFAULT_TTL_SECONDS = 0;
+    // The persistent tier serves stale results while it revalidates them, so it needs a TTL of its own even when the
+    //   in-memory tier is disabled, otherwise every read would start a full listing in the background
+    private static final long DEFAULT_PERSISTENT_TTL_SECONDS = 3600;
+    private static final long DEFAULT_MAX_ENTRIES = 1000;
+    private static final String CACHE_FILE_SUFFIX = ".snapshot";
+    private static final SnapshotFormat CACHE_FILE_FORMAT = SnapshotFormat.LENGTH_PREFIXED;
+    private static final ExecutorService revalidationExecutor = newDaemonExecutor("results-cache-revalidation", 4);
+    private final Logger log = LoggerFactory.getLogger(BasicResultsCache.class);
+    Duration ttl = Duration.ofSeconds(getSetting(RESULTS_CACHE_TTL_SECONDS).map(Long::parseLong).getOrElse(DEFAULT_TTL_SECONDS));
+    private final long maxEntries = getSetting(RESULTS_CACHE_MAX_ENTRIES).map(Long::parseLong).getOrElse(DEFAULT_MAX_ENTRIES);
+    Duration persistentTtl = Duration.ofSeconds(getSetting(RESULTS_CACHE_PERSISTENT_TTL_SECONDS).map(Long::parseLong).getOrElse(DEFAULT_PERSISTENT_TTL_SECONDS));
+    Option<Path> persistentDirectoryOption = getSetting(RESULTS_CACHE_DIRECTORY).map(Paths::get);
+    // Only read when the in-memory cache is first used, tests replace it and the TTL to control expiry
+    Ticker ticker = Ticker.systemTicker();
+    // Keyed by the client (by identity), the request class, and the request itself so different parameters are cached separately
+    private final Lazy<Cache<Tuple3<SdkClient, Class<? extends AwsRequest>, AwsRequest>, List<?>>> lazyCache = Lazy.of(() -> CacheBuilder.newBuilder()
+            .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+            .ticker(ticker)
+            // Guava evicts the least recently used entries first when the cache is full
+            .maximumSize(maxEntries)
+            .build());
+    // Persistent cache files that are currently being revalidated, so each one is only refreshed once at a time
+    final Set<Path> revalidating = ConcurrentHashMap.newKeySet();
+    @Inject
+    SnapshotHelper snapshotHelper;
+    @Inject
+    AwsRegionProviderChain awsRegionProviderChain;
+    @Inject
+    AwsCredentialsProvider awsCredentialsProvider;
+
+    @Inject
+    public BasicResultsCache() {
+    }
+
+    @Override
+    public <T> Stream<T> get(SdkClient sdkClient, AwsRequest awsRequest, Class<T> elementClass, Supplier<Stream<T>> lister) {
+        boolean inMemoryCacheEnabled = !ttl.isZero() && !ttl.isNegative();
+
+        if (!inMemoryCacheEnabled && persistentDirectoryOption.isEmpty()) {
+            // Caching is disabled, keep the listing lazy
+            return lister.get();
+        }
+
+        Supplier<Stream<T>> loader = () -> persistentDirectoryOption
+                .map(persistentDirectory -> getPersistent(persistentDirectory, sdkClient, awsRequest, elementClass, lister))
+                .getOrElse(lister);
+
+        if (!inMemoryCacheEnabled) {
+            // Read straight from the cache file so large listings are never held in memory
+            return loader.get();
+        }
+
+        Tuple3<SdkClient, Class<? extends AwsRequest>, AwsRequest> key = Tuple.of(sdkClient, awsRequest.getClass(), awsRequest);
+
+        Try<List<?>> cachedResults = Try.of(() -> lazyCache.get().get(key, () -> {
+                    log.debug(String.join("", "Caching results for [", awsRequest.getClass().getSimpleName(), "]"));
+                    return loader.get().toList();
+                }))
+                // Guava wraps exceptions thrown by the loader, rethrow the original exception
+                .recoverWith(ExecutionException.class, e -> Try.failure(e.getCause()))
+                .recoverWith(UncheckedExecutionException.class, e -> Try.failure(e.getCause()))
+                .recoverWith(ExecutionError.class, e -> Try.failure(e.getCause()));
+
+        return Stream.ofAll((List<T>) cachedResults.get());
+    }
+
+    @Override
+    public void invalidate(SdkClient sdkClient, Class<? extends AwsRequest> awsRequestClass) {
+        lazyCache.get().asMap().keySet().removeIf(key -> (key._1 == sdkClient) && key._2.equals(awsRequestClass));
+
+        // Persistent cache file names start with the service and request class, this removes every set of request parameters
+        persistentDirectoryOption.forEach(persistentDirectory -> deleteCacheFiles(persistentDirectory, getServicePrefix(sdkClient, awsRequestClass)));
+    }
+
+    @Override
+    public void invalidateAll() {
+        lazyCache.get().invalidateAll();
+
+        persistentDirectoryOption.forEach(persistentDirectory -> deleteCacheFiles(persistentDirectory, ""));
+    }
+
+    private <T> Stream<T> getPersistent(Path persistentDirectory, SdkClient sdkClient, AwsRequest awsRequest, Class<T> elementClass, Supplier<Stream<T>> lister) {
+        Path cacheFile = getCacheFile(persistentDirectory, sdkClient, awsRequest);
+
+        // If the file is missing or can't be opened it is treated as a cache miss
+        Option<Stream<T>> cachedOption = Try.of(() -> Files.getLastModifiedTime(cacheFile).toInstant())
+                .flatMap(lastModified -> Try.of(() -> snapshotHelper.read(cacheFile, CACHE_FILE_FORMAT, elementClass))
+                        .map(cached -> Tuple.of(lastModified, cached)))
+                .onFailure(throwable -> log.debug(String.join("", "No usable persistent cache entry for [", awsRequest.getClass().getSimpleName(), "]")))
+                .toOption()
+                .peek(tuple -> {
+                    Duration age = Duration.between(tuple._1, Instant.now());
+
+                    if (age.compareTo(getPersistentTtl(awsRequest.getClass())) > 0) {
+                        // Serve the stale results now and refresh them for the next caller. The new file replaces the
+                        //   old one atomically and the open mapping keeps reading the old contents.
+                        revalidate(cacheFile, lister);
+                    }
+                })
+                .map(tuple -> tuple._2);
+
+        return cachedOption.getOrElse(() -> listAndStore(cacheFile, elementClass, lister));
+    }
+
+    private <T> void revalidate(Path cacheFile, Supplier<Stream<T>> lister) {
+        if (!revalidating.add(cacheFile)) {
+            // Already being revalidated
+            return;
+        }
+
+        revalidationExecutor.execute(() -> store(cacheFile, lister)
+                .onFailure(throwable -> log.warn(String.join("", "Failed to revalidate the persistent cache entry [", cacheFile.toString(), "]"), throwable))
+                .andFinally(() -> revalidating.remove(cacheFile)));
+    }
+
+    private <T> Stream<T> listAndStore(Path cacheFile, Class<T> elementClass, Supplier<Stream<T>> lister) {
+        // Failing to write the cache should never fail the listing, it is listed again without the cache instead
+        return store(cacheFile, lister)
+                .map(unused -> snapshotHelper.read(cacheFile, CACHE_FILE_FORMAT, elementClass))
+                .onFailure(throwable -> log.warn(String.join("", "Failed to write the persistent cache entry [", cacheFile.toString(), "]"), throwable))
+                .getOrElse(lister);
+    }
+
+    private <T> Try<Long> store(Path cacheFile, Supplier<Stream<T>> lister) {
+        // Only the iterator is kept so the results are written as they are listed instead of being held in memory
+        return Try.run(() -> Files.createDirectories(cacheFile.getParent()))
+                .mapTry(unused -> snapshotHelper.write(cacheFile, CACHE_FILE_FORMAT, lister.get().iterator()));
+    }
+
+    private Path getCacheFile(Path persistentDirectory, SdkClient sdkClient, AwsRequest awsRequest) {
+        // The key must be stable across processes so it is built from the service, region, credentials, and request contents
+        String accessKeyId = Try.of(() -> awsCredentialsProvider.resolveCredentials().accessKeyId()).getOrElse("");
+        String region = Try.of(() -> awsRegionProviderChain.getRegion().id()).getOrElse("");
+        String requestJson = JacksonHelper.tryToJsonString(SdkPojoHelper.toJsonNode((SdkPojo) awsRequest)).get();
+
+        String key = String.join("|", region, Hashing.sha256().hashString(accessKeyId, StandardCharsets.UTF_8).toString(), requestJson);
+
+        return persistentDirectory.resolve(String.join("", getServicePrefix(sdkClient, awsRequest.getClass()), Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString(), CACHE_FILE_SUFFIX));
+    }
+
+    private String getServicePrefix(SdkClient sdkClient, Class<? extends AwsRequest> awsRequestClass) {
+        return String.join("", sdkClient.serviceName(), "-", awsRequestClass.getSimpleName(), "-");
+    }
+
+    private void deleteCacheFiles(Path persistentDirectory, String prefix) {
+        Try.withResources(() -> Files.list(persistentDirectory))
+                .of(paths -> {
+                    paths.filter(path -> path.getFileName().toString().startsWith(prefix))
+                            .filter(path -> path.getFileName().toString().endsWith(CACHE_FILE_SUFFIX))
+                            .forEach(path -> Try.run(() -> Files.deleteIfExists(path)));
+                    return null;
+                });
+    }
+
+    private Duration getPersistentTtl(Class<? extends AwsRequest> awsRequestClass) {
+        return getSetting(RESULTS_CACHE_TTL_SECONDS_PREFIX + awsRequestClass.getSimpleName())
+                .map(Long::parseLong)
+                .map(Duration::ofSeconds)
+                .getOrElse(persistentTtl);
+    }
+}
@@ -0,0 +1,186 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.resultsiterator.interfaces.SingleFlightHelper;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.Tuple3;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.SdkClient;
+
+import javax.inject.Inject;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+public class BasicSingleFlightHelper implements SingleFlightHelper {
+    private final List<String> readOnlyMethodPrefixes = List.of("describe", "get");
+
+    @Inject
+    public BasicSingleFlightHelper() {
+    }
+
+    @Override
+    public <T extends SdkClient> T wrap(Class<T> clientInterface, T sdkClient) {
+        if (!clientInterface.isInterface()) {
+            throw new UnsupportedOperationException("Single-flight wrapping requires an SDK client interface (e.g. IotClient), not an implementation class");
+        }
+
+        // Requests that are currently in flight, keyed by the client method, the request, and its override configuration
+        ConcurrentMap<Tuple3<Method, AwsRequest, Optional<AwsRequestOverrideConfiguration>>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+        Object proxy = Proxy.newProxyInstance(clientInterface.getClassLoader(),
+                new Class[]{clientInterface},
+                (proxyInstance, method, args) -> invokeOnProxy(proxyInstance, sdkClient, inFlight, method, args));
+
+        return clientInterface.cast(proxy);
+    }
+
+    private Object invokeOnProxy(Object proxyInstance,
+                                 SdkClient sdkClient,
+                                 ConcurrentMap<Tuple3<Method, AwsRequest, Optional<AwsRequestOverrideConfiguration>>, CompletableFuture<Object>> inFlight,
+                                 Method method,
+                                 Object[] args) throws Throwable {
+        // The proxy must be equal to itself so it can be used as a key (e.g. in the results cache)
+        if (method.getName().equals("equals") && (method.getParameterCount() == 1)) {
+            return proxyInstance == args[0];
+        }
+
+        if (method.getName().equals("hashCode") && (method.getParameterCount() == 0)) {
+            return System.identityHashCode(proxyInstance);
+        }
+
+        Option<Tuple2<Method, AwsRequest>> requestOverloadOption = toRequestOverload(method, args);
+
+        if (requestOverloadOption.isDefined()) {
+            // Default methods would call the wrapped client's own overload, calling it here keeps the request single-flight
+            return invoke(sdkClient, inFlight, requestOverloadOption.get()._1, new Object[]{requestOverloadOption.get()._2});
+        }
+
+        return invoke(sdkClient, inFlight, method, args);
+    }
+
+    // Maps the default convenience overloads (e.g. describeThing(Consumer<DescribeThingRequest.Builder>) and no argument
+    //   methods like listThings()) to the overload that takes the request object, and builds that request
+    private Option<Tuple2<Method, AwsRequest>> toRequestOverload(Method method, Object[] args) {
+        if (!method.isDefault()) {
+            return Option.none();
+        }
+
+        int parameterCount = method.getParameterCount();
+
+        Option<Class<?>> requestClassOption;
+
+        if (parameterCount == 0) {
+            // The request class is the parameter type of the only single request overload with the same name
+            requestClassOption = List.of(method.getDeclaringClass().getMethods())
+                    .filter(overload -> overload.getName().equals(method.getName()))
+                    .filter(overload -> overload.getParameterCount() == 1)
+                    .map(overload -> overload.getParameterTypes()[0])
+                    .filter(AwsRequest.class::isAssignableFrom)
+                    .singleOption();
+        } else if ((parameterCount == 1) && Consumer.class.equals(method.getParameterTypes()[0])) {
+            // Consumer<DescribeThingRequest.Builder>, the builder interface is nested in the request class
+            requestClassOption = Option.of(method.getGenericParameterTypes()[0])
+                    .filter(ParameterizedType.class::isInstance)
+                    .map(type -> ((ParameterizedType) type).getActualTypeArguments()[0])
+                    .filter(Class.class::isInstance)
+                    .map(type -> ((Class<?>) type).getDeclaringClass())
+                    .filter(Objects::nonNull)
+                    .filter(AwsRequest.class::isAssignableFrom);
+        } else {
+            requestClassOption = Option.none();
+        }
+
+        return requestClassOption
+                .flatMap(requestClass -> Try.of(() -> Tuple.of(method.getDeclaringClass().getMethod(method.getName(), requestClass),
+                        (AwsRequest.Builder) requestClass.getMethod("builder").invoke(null))).toOption())
+                .map(tuple -> {
+                    if (parameterCount == 1) {
+                        // Outside of the lookup so an exception thrown by the caller's consumer reaches the caller
+                        ((Consumer<Object>) args[0]).accept(tuple._2);
+                    }
+
+                    return Tuple.of(tuple._1, tuple._2.build());
+                });
+    }
+
+    private Object invoke(SdkClient sdkClient,
+                          ConcurrentMap<Tuple3<Method, AwsRequest, Optional<AwsRequestOverrideConfiguration>>, CompletableFuture<Object>> inFlight,
+                          Method method,
+                          Object[] args) throws Throwable {
+        if (!isSingleFlightCandidate(method, args)) {
+            return invokeDirectly(sdkClient, method, args);
+        }
+
+        AwsRequest awsRequest = (AwsRequest) args[0];
+        Tuple3<Method, AwsRequest, Optional<AwsRequestOverrideConfiguration>> key = Tuple.of(method, awsRequest, awsRequest.overrideConfiguration());
+
+        CompletableFuture<Object> ownFuture = new CompletableFuture<>();
+        CompletableFuture<Object> existingFuture = inFlight.putIfAbsent(key, ownFuture);
+
+        if (existingFuture != null) {
+            // An identical request is already in flight, share its result instead of calling the service again
+            return await(existingFuture);
+        }
+
+        try {
+            Object result = invokeDirectly(sdkClient, method, args);
+            ownFuture.complete(result);
+
+            return result;
+        } catch (Throwable throwable) {
+            ownFuture.completeExceptionally(throwable);
+
+            throw throwable;
+        } finally {
+            // Results are only shared while the request is in flight, later requests always go to the service
+            inFlight.remove(key, ownFuture);
+        }
+    }
+
+    private boolean isSingleFlightCandidate(Method method, Object[] args) {
+        if ((args == null) || (args.length != 1) || !(args[0] instanceof AwsRequest)) {
+            // Only calls that take a single request object can be coalesced
+            return false;
+        }
+
+        if (AutoCloseable.class.isAssignableFrom(method.getReturnType())) {
+            // Streaming responses (e.g. S3's getObject) can only be consumed once so they can't be shared
+            return false;
+        }
+
+        return readOnlyMethodPrefixes.exists(method.getName()::startsWith);
+    }
+
+    private Object invokeDirectly(SdkClient sdkClient, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(sdkClient, args);
+        } catch (InvocationTargetException e) {
+            // Rethrow the original exception so callers can still recover from specific SDK exceptions
+            throw e.getTargetException();
+        }
+    }
+
+    private Object await(CompletableFuture<Object> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
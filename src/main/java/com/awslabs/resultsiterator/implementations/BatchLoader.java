@@ -0,0 +1,107 @@
+package com.awslabs.resultsiterator.implementations;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newDaemonExecutor;
+import static com.awslabs.general.helpers.implementations.ExecutorHelper.newScheduledDaemonExecutor;
+
+/**
+ * Collects individual lookups made within a short window and resolves them with a single batch call. Each key gets
+ * its own future, keys missing from the batch result complete with an empty option.
+ */
+public class BatchLoader<K, V> {
+    private static final ScheduledExecutorService flushScheduler = newScheduledDaemonExecutor("batch-loader-scheduler");
+    private static final ExecutorService batchExecutor = newDaemonExecutor("batch-loader", 16);
+
+    private final Function<List<K>, Map<K, V>> batchFunction;
+    private final int maxBatchSize;
+    private final Duration window;
+    private final Object lock = new Object();
+    ScheduledExecutorService scheduler = flushScheduler;
+    Executor executor = batchExecutor;
+    private LinkedHashMap<K, CompletableFuture<Option<V>>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush = null;
+
+    public BatchLoader(Function<List<K>, Map<K, V>> batchFunction, int maxBatchSize, Duration window) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size must be at least 1");
+        }
+
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+    }
+
+    public CompletableFuture<Option<V>> load(K key) {
+        CompletableFuture<Option<V>> future;
+        LinkedHashMap<K, CompletableFuture<Option<V>>> fullBatch = null;
+
+        synchronized (lock) {
+            future = pending.get(key);
+
+            if (future != null) {
+                // This key is already waiting in the current batch, share its future
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+
+            if (pending.size() >= maxBatchSize) {
+                // The batch is full, send it now instead of waiting for the window to close
+                fullBatch = takePending();
+            } else if (pending.size() == 1) {
+                // First key in a new batch, start the window
+                scheduledFlush = scheduler.schedule(this::flush, window.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+
+        return future;
+    }
+
+    public void flush() {
+        LinkedHashMap<K, CompletableFuture<Option<V>>> batch;
+
+        synchronized (lock) {
+            batch = takePending();
+        }
+
+        dispatch(batch);
+    }
+
+    private LinkedHashMap<K, CompletableFuture<Option<V>>> takePending() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+
+        LinkedHashMap<K, CompletableFuture<Option<V>>> batch = pending;
+        pending = new LinkedHashMap<>();
+
+        return batch;
+    }
+
+    private void dispatch(LinkedHashMap<K, CompletableFuture<Option<V>>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        executor.execute(() -> Try.of(() -> batchFunction.apply(List.ofAll(batch.keySet())))
+                // Complete every future with its own result, missing keys get an empty option
+                .onSuccess(results -> batch.forEach((key, future) -> future.complete(results.get(key))))
+                // If the batch call failed every caller in the batch sees the failure
+                .onFailure(throwable -> batch.values().forEach(future -> future.completeExceptionally(throwable))));
+    }
+}
@@ -0,0 +1,402 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.resultsiterator.interfaces.ResultsIteratorInterface;
+import io.vavr.collection.Stream;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Stores only the projected fields of a large listing in columns instead of keeping the SDK objects. Repeated strings
+ * are dictionary encoded, ARNs are split into a shared prefix and a compact UTF-8 suffix, and numbers are stored as
+ * primitives. Filters return a {@link BitSet} of matching rows that can be combined with and/or before reading values.
+ */
+public class ColumnarResults<T> {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NULL_CODE = -1;
+    // The largest array most JVMs will allocate
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final LinkedHashMap<String, StringColumn<T>> stringColumns;
+    private final LinkedHashMap<String, LongColumn<T>> longColumns;
+    private int size = 0;
+
+    private ColumnarResults(LinkedHashMap<String, StringColumn<T>> stringColumns, LinkedHashMap<String, LongColumn<T>> longColumns) {
+        this.stringColumns = stringColumns;
+        this.longColumns = longColumns;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public ColumnarResults<T> addAll(ResultsIteratorInterface<T> resultsIterator) {
+        // Only the iterator is kept so the memoized stream and the SDK objects can be garbage collected as they are added
+        return addAll(resultsIterator.stream().iterator());
+    }
+
+    public ColumnarResults<T> addAll(Iterator<T> values) {
+        values.forEachRemaining(this::add);
+
+        return this;
+    }
+
+    public ColumnarResults<T> add(T value) {
+        // Every extractor runs before any column is changed, if one throws the columns still all have the same length
+        ArrayList<Runnable> appends = new ArrayList<>(stringColumns.size() + longColumns.size());
+        stringColumns.values().forEach(column -> appends.add(column.prepare(value)));
+        longColumns.values().forEach(column -> appends.add(column.prepare(value)));
+
+        appends.forEach(Runnable::run);
+        size++;
+
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public BitSet all() {
+        BitSet bitSet = new BitSet(size);
+        bitSet.set(0, size);
+
+        return bitSet;
+    }
+
+    public String getString(String columnName, int row) {
+        return getStringColumn(columnName).get(checkRow(row));
+    }
+
+    public Long getLong(String columnName, int row) {
+        return getLongColumn(columnName).get(checkRow(row));
+    }
+
+    public BitSet filterEquals(String columnName, String value) {
+        return getStringColumn(columnName).filter(value::equals);
+    }
+
+    public BitSet filter(String columnName, Predicate<String> predicate) {
+        return getStringColumn(columnName).filter(predicate);
+    }
+
+    public BitSet filterLong(String columnName, LongPredicate predicate) {
+        return getLongColumn(columnName).filter(predicate);
+    }
+
+    public Stream<Integer> rows(BitSet bitSet) {
+        return Stream.iterate(bitSet.nextSetBit(0), row -> bitSet.nextSetBit(row + 1))
+                .takeWhile(row -> (row >= 0) && (row < size));
+    }
+
+    public Stream<String> strings(String columnName, BitSet bitSet) {
+        StringColumn<T> column = getStringColumn(columnName);
+
+        return rows(bitSet).map(column::get);
+    }
+
+    public Stream<Long> longs(String columnName, BitSet bitSet) {
+        LongColumn<T> column = getLongColumn(columnName);
+
+        return rows(bitSet).map(column::get);
+    }
+
+    private int checkRow(int row) {
+        if ((row < 0) || (row >= size)) {
+            throw new IndexOutOfBoundsException("Row [" + row + "] is out of range, there are [" + size + "] rows");
+        }
+
+        return row;
+    }
+
+    private StringColumn<T> getStringColumn(String columnName) {
+        return Optional.ofNullable(stringColumns.get(columnName))
+                .orElseThrow(() -> new IllegalArgumentException("There is no string column named [" + columnName + "]"));
+    }
+
+    private LongColumn<T> getLongColumn(String columnName) {
+        return Optional.ofNullable(longColumns.get(columnName))
+                .orElseThrow(() -> new IllegalArgumentException("There is no long column named [" + columnName + "]"));
+    }
+
+    public static class Builder<T> {
+        private final LinkedHashMap<String, StringColumn<T>> stringColumns = new LinkedHashMap<>();
+        private final LinkedHashMap<String, LongColumn<T>> longColumns = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        // For values with few distinct values (e.g. thing types, regions, statuses)
+        public Builder<T> dictionaryColumn(String columnName, Function<T, String> extractor) {
+            return addStringColumn(columnName, new DictionaryColumn<>(extractor));
+        }
+
+        // For ARNs and keys that share a few prefixes but have mostly unique names (e.g. thing ARNs, S3 keys)
+        public Builder<T> prefixColumn(String columnName, Function<T, String> extractor) {
+            return addStringColumn(columnName, new PrefixColumn<>(extractor));
+        }
+
+        public Builder<T> longColumn(String columnName, Function<T, ? extends Number> extractor) {
+            checkColumnName(columnName);
+            longColumns.put(columnName, new LongColumn<>(extractor));
+
+            return this;
+        }
+
+        public ColumnarResults<T> build() {
+            if (stringColumns.isEmpty() && longColumns.isEmpty()) {
+                throw new IllegalStateException("At least one column must be specified");
+            }
+
+            return new ColumnarResults<>(stringColumns, longColumns);
+        }
+
+        private Builder<T> addStringColumn(String columnName, StringColumn<T> column) {
+            checkColumnName(columnName);
+            stringColumns.put(columnName, column);
+
+            return this;
+        }
+
+        private void checkColumnName(String columnName) {
+            if (stringColumns.containsKey(columnName) || longColumns.containsKey(columnName)) {
+                throw new IllegalArgumentException("The column [" + columnName + "] was specified more than once");
+            }
+        }
+    }
+
+    private interface StringColumn<T> {
+        // Extracts and checks the value, the returned action appends it and must not fail
+        Runnable prepare(T value);
+
+        String get(int row);
+
+        BitSet filter(Predicate<String> predicate);
+    }
+
+    // Repeated strings are stored once, each row only holds a code into the dictionary
+    private static class Dictionary {
+        private final HashMap<String, Integer> codes = new HashMap<>();
+        private final ArrayList<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+
+            return codes.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        String decode(int code) {
+            return (code == NULL_CODE) ? null : values.get(code);
+        }
+
+        // Evaluates the predicate once per distinct value rather than once per row
+        BitSet matchingCodes(Predicate<String> predicate) {
+            BitSet matchingCodes = new BitSet(values.size());
+
+            for (int code = 0; code < values.size(); code++) {
+                if (predicate.test(values.get(code))) {
+                    matchingCodes.set(code);
+                }
+            }
+
+            return matchingCodes;
+        }
+    }
+
+    private static class IntArray {
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    private static class DictionaryColumn<T> implements StringColumn<T> {
+        private final Function<T, String> extractor;
+        private final Dictionary dictionary = new Dictionary();
+        private final IntArray codes = new IntArray();
+
+        DictionaryColumn(Function<T, String> extractor) {
+            this.extractor = extractor;
+        }
+
+        @Override
+        public Runnable prepare(T value) {
+            String string = extractor.apply(value);
+
+            return () -> codes.add(dictionary.encode(string));
+        }
+
+        @Override
+        public String get(int row) {
+            return dictionary.decode(codes.get(row));
+        }
+
+        @Override
+        public BitSet filter(Predicate<String> predicate) {
+            BitSet matchingCodes = dictionary.matchingCodes(predicate);
+            BitSet matchingRows = new BitSet(codes.size());
+
+            for (int row = 0; row < codes.size(); row++) {
+                int code = codes.get(row);
+
+                if ((code != NULL_CODE) && matchingCodes.get(code)) {
+                    matchingRows.set(row);
+                }
+            }
+
+            return matchingRows;
+        }
+    }
+
+    private static class PrefixColumn<T> implements StringColumn<T> {
+        private final Function<T, String> extractor;
+        private final Dictionary prefixes = new Dictionary();
+        private final IntArray prefixCodes = new IntArray();
+        // The suffixes of all rows are stored back to back as UTF-8, each row holds the offset of its suffix
+        private final IntArray suffixOffsets = new IntArray();
+        private byte[] suffixBytes = new byte[INITIAL_CAPACITY * 16];
+        private int suffixBytesSize = 0;
+
+        PrefixColumn(Function<T, String> extractor) {
+            this.extractor = extractor;
+        }
+
+        @Override
+        public Runnable prepare(T value) {
+            String string = extractor.apply(value);
+
+            if (string == null) {
+                return () -> {
+                    prefixCodes.add(NULL_CODE);
+                    suffixOffsets.add(suffixBytesSize);
+                };
+            }
+
+            // Split after the last separator so "arn:aws:iot:us-east-1:123456789012:thing/name" shares everything but "name"
+            int splitIndex = Math.max(string.lastIndexOf('/'), string.lastIndexOf(':')) + 1;
+            String prefix = string.substring(0, splitIndex);
+            byte[] suffix = string.substring(splitIndex).getBytes(StandardCharsets.UTF_8);
+
+            // Offsets are ints into a single array, checked here so the row is rejected before anything is appended
+            if (suffix.length > MAX_ARRAY_SIZE - suffixBytesSize) {
+                throw new IllegalStateException("The column can't hold more than [" + MAX_ARRAY_SIZE + "] bytes of suffixes, there are already [" + suffixBytesSize + "]");
+            }
+
+            return () -> {
+                prefixCodes.add(prefixes.encode(prefix));
+                suffixOffsets.add(suffixBytesSize);
+                appendSuffix(suffix);
+            };
+        }
+
+        @Override
+        public String get(int row) {
+            int prefixCode = prefixCodes.get(row);
+
+            if (prefixCode == NULL_CODE) {
+                return null;
+            }
+
+            int start = suffixOffsets.get(row);
+            int end = (row + 1 < suffixOffsets.size()) ? suffixOffsets.get(row + 1) : suffixBytesSize;
+
+            return prefixes.decode(prefixCode) + new String(suffixBytes, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public BitSet filter(Predicate<String> predicate) {
+            // Full values are only rebuilt for rows, the prefixes alone can't answer an arbitrary predicate
+            BitSet matchingRows = new BitSet(prefixCodes.size());
+
+            for (int row = 0; row < prefixCodes.size(); row++) {
+                String value = get(row);
+
+                if ((value != null) && predicate.test(value)) {
+                    matchingRows.set(row);
+                }
+            }
+
+            return matchingRows;
+        }
+
+        private void appendSuffix(byte[] bytes) {
+            if (suffixBytesSize + bytes.length > suffixBytes.length) {
+                // Doubled in a long so the new length can't overflow past the largest array
+                int doubled = (int) Math.min(suffixBytes.length * 2L, MAX_ARRAY_SIZE);
+                suffixBytes = Arrays.copyOf(suffixBytes, Math.max(doubled, suffixBytesSize + bytes.length));
+            }
+
+            System.arraycopy(bytes, 0, suffixBytes, suffixBytesSize, bytes.length);
+            suffixBytesSize += bytes.length;
+        }
+    }
+
+    private static class LongColumn<T> {
+        private final Function<T, ? extends Number> extractor;
+        private final BitSet nulls = new BitSet();
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size = 0;
+
+        LongColumn(Function<T, ? extends Number> extractor) {
+            this.extractor = extractor;
+        }
+
+        Runnable prepare(T value) {
+            Number number = extractor.apply(value);
+
+            return () -> append(number);
+        }
+
+        private void append(Number number) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+
+            if (number == null) {
+                nulls.set(size);
+            } else {
+                values[size] = number.longValue();
+            }
+
+            size++;
+        }
+
+        Long get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        BitSet filter(LongPredicate predicate) {
+            BitSet matchingRows = new BitSet(size);
+
+            for (int row = 0; row < size; row++) {
+                if (!nulls.get(row) && predicate.test(values[row])) {
+                    matchingRows.set(row);
+                }
+            }
+
+            return matchingRows;
+        }
+    }
+}
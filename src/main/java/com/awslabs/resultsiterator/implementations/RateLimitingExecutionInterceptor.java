@@ -0,0 +1,20 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.google.common.util.concurrent.RateLimiter;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+
+public class RateLimitingExecutionInterceptor implements ExecutionInterceptor {
+    private final RateLimiter rateLimiter;
+
+    public RateLimitingExecutionInterceptor(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        // Blocks until the limiter allows another request, this also applies to paginated follow-up requests
+        rateLimiter.acquire();
+    }
+}
@@ -0,0 +1,117 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.resultsiterator.data.*;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import software.amazon.awssdk.core.SdkField;
+import software.amazon.awssdk.core.SdkPojo;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+public class ResultsFilters {
+    public static final ResultsFilter NO_FILTER = ImmutableResultsFilter.builder().build();
+
+    public static ResultsFilter of(FilterCondition... filterConditions) {
+        return ImmutableResultsFilter.builder()
+                .conditions(List.of(filterConditions))
+                .build();
+    }
+
+    public static FilterCondition equalTo(String fieldPath, String value) {
+        return condition(fieldPath, FilterOperator.EQUALS, List.of(value));
+    }
+
+    public static FilterCondition prefix(String fieldPath, String value) {
+        return condition(fieldPath, FilterOperator.PREFIX, List.of(value));
+    }
+
+    public static FilterCondition in(String fieldPath, String... values) {
+        return condition(fieldPath, FilterOperator.IN, List.of(values));
+    }
+
+    // Finds the first condition on this field path that uses one of the given operators, helpers use this to push conditions down into requests
+    public static Option<FilterCondition> find(ResultsFilter resultsFilter, String fieldPath, FilterOperator... filterOperators) {
+        List<FilterOperator> filterOperatorList = List.of(filterOperators);
+
+        return resultsFilter.getConditions()
+                .find(filterCondition -> filterCondition.getFieldPath().equalsIgnoreCase(fieldPath) && filterOperatorList.contains(filterCondition.getOperator()));
+    }
+
+    public static ResultsFilter without(ResultsFilter resultsFilter, Option<FilterCondition> filterConditionOption) {
+        return filterConditionOption
+                .map(filterCondition -> (ResultsFilter) ImmutableResultsFilter.builder()
+                        .conditions(resultsFilter.getConditions().remove(filterCondition))
+                        .build())
+                .getOrElse(resultsFilter);
+    }
+
+    // Client-side evaluation for conditions that could not be pushed down into the request
+    public static <T> Predicate<T> toPredicate(ResultsFilter resultsFilter) {
+        return value -> resultsFilter.getConditions().forAll(filterCondition -> matches(filterCondition, value));
+    }
+
+    public static <T> Stream<T> apply(ResultsFilter resultsFilter, Stream<T> stream) {
+        if (resultsFilter.getConditions().isEmpty()) {
+            return stream;
+        }
+
+        return stream.filter(toPredicate(resultsFilter));
+    }
+
+    private static FilterCondition condition(String fieldPath, FilterOperator filterOperator, List<String> values) {
+        return ImmutableFilterCondition.builder()
+                .fieldPath(fieldPath)
+                .operator(filterOperator)
+                .values(values)
+                .build();
+    }
+
+    private static boolean matches(FilterCondition filterCondition, Object value) {
+        Option<String> fieldValueOption = getFieldValue(value, List.of(filterCondition.getFieldPath().split("\\.")));
+
+        if (fieldValueOption.isEmpty()) {
+            // Missing fields never match
+            return false;
+        }
+
+        String fieldValue = fieldValueOption.get();
+
+        switch (filterCondition.getOperator()) {
+            case EQUALS:
+            case IN:
+                return filterCondition.getValues().contains(fieldValue);
+            case PREFIX:
+                return fieldValue.startsWith(filterCondition.getValues().get());
+            default:
+                throw new UnsupportedOperationException("Unsupported filter operator [" + filterCondition.getOperator().name() + "]");
+        }
+    }
+
+    private static Option<String> getFieldValue(Object value, List<String> path) {
+        if (value == null) {
+            return Option.none();
+        }
+
+        if (path.isEmpty()) {
+            return Option.of(String.valueOf(value));
+        }
+
+        String segment = path.head();
+
+        if (value instanceof SdkPojo) {
+            // SDK field names are camel case in some services and pascal case in others so they are matched case-insensitively
+            return Stream.ofAll(((SdkPojo) value).sdkFields())
+                    .find(sdkField -> sdkField.memberName().equalsIgnoreCase(segment))
+                    .flatMap(sdkField -> getFieldValue(((SdkField<?>) sdkField).getValueOrDefault(value), path.tail()));
+        }
+
+        if (value instanceof Map) {
+            return Option.of(((Map<?, ?>) value).get(segment))
+                    .flatMap(mapValue -> getFieldValue(mapValue, path.tail()));
+        }
+
+        return Option.none();
+    }
+}
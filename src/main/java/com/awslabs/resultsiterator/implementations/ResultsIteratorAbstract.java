@@ -1,7 +1,8 @@
 package com.awslabs.resultsiterator.implementations;
 
-import com.awslabs.resultsiterator.interfaces.ResultsIteratorInterface;
 import com.awslabs.resultsiterator.interfaces.ReflectionHelper;
+import com.awslabs.resultsiterator.interfaces.ResultsCache;
+import com.awslabs.resultsiterator.interfaces.ResultsIteratorInterface;
 import io.vavr.collection.Iterator;
 import io.vavr.collection.List;
 import io.vavr.collection.Stream;
@@ -36,6 +37,7 @@ public abstract class ResultsIteratorAbstract<T> implements ResultsIteratorInter
     private Option<Method> clientGetMethodReturningString = null;
     // NOTE: This is initialized to null so we can determine if we have tried to initialize it already
     private Option<Method> clientSetMethodAcceptingString = null;
+    private Option<ResultsCache> resultsCacheOption = Option.none();
 
     public ResultsIteratorAbstract(ReflectionHelper reflectionHelper, SdkClient sdkClient, Class<? extends AwsRequest> awsRequestClass) {
         this.reflectionHelper = reflectionHelper;
@@ -65,8 +67,23 @@ public abstract class ResultsIteratorAbstract<T> implements ResultsIteratorInter
         this.originalAwsRequest = originalAwsRequest;
     }
 
+    // Serve this listing from the cache when an identical request was listed recently
+    public ResultsIteratorAbstract<T> cached(ResultsCache resultsCache) {
+        this.resultsCacheOption = Option.of(resultsCache);
+
+        return this;
+    }
+
     @Override
     public Stream<T> stream() {
+        if (resultsCacheOption.isDefined()) {
+            return resultsCacheOption.get().get(sdkClient, configureRequest(), getElementClass(), this::uncachedStream);
+        }
+
+        return uncachedStream();
+    }
+
+    private Stream<T> uncachedStream() {
         Iterator<T> iterator = new Iterator<T>() {
             List<T> output = List.empty();
             boolean started = false;
@@ -184,6 +201,25 @@ public abstract class ResultsIteratorAbstract<T> implements ResultsIteratorInter
     }
 
     private List<T> getResultData() {
+        Method methodReturningListT = getClientMethodReturningListT();
+
+        try {
+            return List.ofAll((java.util.List<T>) methodReturningListT.invoke(awsResponse));
+        } catch (IllegalAccessException |
+                InvocationTargetException e) {
+            e.printStackTrace();
+            throw new UnsupportedOperationException(e);
+        }
+
+    }
+
+    private Class<T> getElementClass() {
+        // The type of the elements comes from the generic return type of the list method (e.g. List<GroupInformation>)
+        return Try.of(() -> (Class<T>) ((ParameterizedType) getClientMethodReturningListT().getGenericReturnType()).getActualTypeArguments()[0])
+                .getOrElseThrow(throwable -> new UnsupportedOperationException("Failed to determine the element type of the result list, this should never happen.", throwable));
+    }
+
+    private Method getClientMethodReturningListT() {
         if (clientMethodReturningListT == null) {
             // Look for a public method that takes no arguments and returns a java.util.List<T>.  If zero or more than one exists, fail.
             // From: https://stackoverflow.com/a/1901275/796579
@@ -197,14 +233,7 @@ public abstract class ResultsIteratorAbstract<T> implements ResultsIteratorInter
             throw new UnsupportedOperationException("Failed to find a method returning the expected list type, this should never happen.");
         }
 
-        try {
-            return List.ofAll((java.util.List<T>) clientMethodReturningListT.get().invoke(awsResponse));
-        } catch (IllegalAccessException |
-                InvocationTargetException e) {
-            e.printStackTrace();
-            throw new UnsupportedOperationException(e);
-        }
-
+        return clientMethodReturningListT.get();
     }
 
     private String getNextToken() {
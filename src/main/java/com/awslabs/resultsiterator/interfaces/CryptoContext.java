@@ -0,0 +1,26 @@
+package com.awslabs.resultsiterator.interfaces;
+
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.jce.spec.ECNamedCurveSpec;
+import org.bouncycastle.openssl.jcajce.JcaPEMKeyConverter;
+import org.bouncycastle.operator.ContentSigner;
+
+import java.security.*;
+
+public interface CryptoContext {
+    Provider getProvider();
+
+    JcaPEMKeyConverter getPemKeyConverter();
+
+    JcaX509CertificateConverter getCertificateConverter();
+
+    ECNamedCurveSpec getNamedCurveSpec(String curveName);
+
+    KeyFactory getKeyFactory(String algorithm);
+
+    // MessageDigest instances are not thread-safe so every call returns a new one. Creating one is cheap, and a
+    //   per-thread cache would never hit on virtual threads because every task runs on a new thread.
+    MessageDigest getMessageDigest(String algorithm);
+
+    ContentSigner getContentSigner(String signatureAlgorithm, PrivateKey privateKey);
+}
@@ -0,0 +1,34 @@
+package com.awslabs.resultsiterator.interfaces;
+
+import com.awslabs.iam.data.AccountId;
+import com.awslabs.iam.data.RoleArn;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.SdkClient;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.regions.Region;
+
+import javax.inject.Provider;
+import java.util.function.Function;
+
+public interface FanOutHelper {
+    double DEFAULT_REQUESTS_PER_SECOND_PER_REGION = 10;
+    double DEFAULT_REQUESTS_PER_SECOND_PER_ACCOUNT = 10;
+
+    <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<Region, T>> listAcrossRegions(List<Region> regions, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister);
+
+    <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<Region, T>> listAcrossRegions(List<Region> regions, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerRegion);
+
+    // The rate limiter is added to this override configuration. SDK client builders can't report an override configuration
+    //   that was already set on them and setting a new one replaces it, so pass it here instead of setting it on the builder.
+    <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<Region, T>> listAcrossRegions(List<Region> regions, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerRegion, ClientOverrideConfiguration clientOverrideConfiguration);
+
+    <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<AccountId, T>> listAcrossAccounts(List<RoleArn> roleArns, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister);
+
+    <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<AccountId, T>> listAcrossAccounts(List<RoleArn> roleArns, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerAccount);
+
+    // See listAcrossRegions for why the override configuration is passed here instead of being set on the builder
+    <B extends AwsClientBuilder<B, C>, C extends SdkClient, T> Stream<Tuple2<AccountId, T>> listAcrossAccounts(List<RoleArn> roleArns, Provider<B> clientBuilderProvider, Function<C, Stream<T>> lister, double requestsPerSecondPerAccount, ClientOverrideConfiguration clientOverrideConfiguration);
+}
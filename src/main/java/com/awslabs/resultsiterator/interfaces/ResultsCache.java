@@ -0,0 +1,25 @@
+package com.awslabs.resultsiterator.interfaces;
+
+import io.vavr.collection.Stream;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.core.SdkClient;
+
+import java.util.function.Supplier;
+
+public interface ResultsCache {
+    // Read from system properties first and then from environment variables, a TTL of zero disables the cache
+    String RESULTS_CACHE_TTL_SECONDS = "RESULTS_CACHE_TTL_SECONDS";
+    String RESULTS_CACHE_MAX_ENTRIES = "RESULTS_CACHE_MAX_ENTRIES";
+    // Enables the persistent cache, results are stored in this directory and reused by later processes
+    String RESULTS_CACHE_DIRECTORY = "RESULTS_CACHE_DIRECTORY";
+    // How old persistent cache entries can get before they are revalidated in the background, defaults to one hour
+    String RESULTS_CACHE_PERSISTENT_TTL_SECONDS = "RESULTS_CACHE_PERSISTENT_TTL_SECONDS";
+    // Per-operation TTLs for the persistent cache are read from this prefix plus the request class name (e.g. RESULTS_CACHE_TTL_SECONDS_ListThingsRequest)
+    String RESULTS_CACHE_TTL_SECONDS_PREFIX = "RESULTS_CACHE_TTL_SECONDS_";
+
+    <T> Stream<T> get(SdkClient sdkClient, AwsRequest awsRequest, Class<T> elementClass, Supplier<Stream<T>> lister);
+
+    void invalidate(SdkClient sdkClient, Class<? extends AwsRequest> awsRequestClass);
+
+    void invalidateAll();
+}
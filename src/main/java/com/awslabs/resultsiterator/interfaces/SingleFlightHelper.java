@@ -0,0 +1,9 @@
+package com.awslabs.resultsiterator.interfaces;
+
+import software.amazon.awssdk.core.SdkClient;
+
+public interface SingleFlightHelper {
+    // Concurrent identical describe and get calls on the returned client share one call to the service. The default
+    //   convenience overloads (builder consumers, no argument methods) are routed through the request overload too.
+    <T extends SdkClient> T wrap(Class<T> clientInterface, T sdkClient);
+}
@@ -1,11 +1,9 @@
 package com.awslabs.s3.helpers.implementations;
 
-import com.awslabs.resultsiterator.implementations.ResultsIterator;
 import com.awslabs.s3.helpers.data.*;
 import com.awslabs.s3.helpers.interfaces.S3Helper;
 import io.vavr.Tuple2;
 import io.vavr.collection.Stream;
-import io.vavr.control.Option;
 import io.vavr.control.Try;
 import org.jetbrains.annotations.NotNull;
 import software.amazon.awssdk.core.sync.RequestBody;
@@ -73,19 +71,16 @@ public class BasicS3Helper implements S3Helper {
             return false;
         }
 
+        // Keys are listed in lexicographic order so if the key exists it is the first key with itself as a prefix, one key is enough
         ListObjectsRequest listObjectsRequest = ListObjectsRequest.builder()
                 .bucket(bucket.name())
                 .prefix(key)
+                .maxKeys(1)
                 .build();
 
-        Stream<S3Object> s3Objects = new ResultsIterator<S3Object>(getRegionSpecificClientForBucket(bucket), listObjectsRequest).stream();
-
-        Option<S3Object> s3ObjectOption = Option.of(s3Objects
+        return Stream.ofAll(getRegionSpecificClientForBucket(bucket).listObjects(listObjectsRequest).contents())
                 // Require an exact match on the name
-                .filter(object -> object.key().equals(key))
-                .getOrNull());
-
-        return s3ObjectOption.isDefined();
+                .exists(object -> object.key().equals(key));
     }
 
     @Override
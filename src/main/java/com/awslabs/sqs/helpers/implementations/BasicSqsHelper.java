@@ -1,10 +1,14 @@
 package com.awslabs.sqs.helpers.implementations;
 
+import com.awslabs.resultsiterator.implementations.BatchLoader;
 import com.awslabs.resultsiterator.implementations.ResultsIterator;
 import com.awslabs.sqs.data.*;
 import com.awslabs.sqs.helpers.interfaces.SqsHelper;
+import io.vavr.Tuple;
 import io.vavr.collection.List;
+import io.vavr.collection.Map;
 import io.vavr.collection.Stream;
+import io.vavr.control.Either;
 import io.vavr.control.Option;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,9 +20,18 @@ import software.amazon.awssdk.services.sqs.model.*;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class BasicSqsHelper implements SqsHelper {
+    // DeleteMessageBatch accepts at most 10 entries per call
+    private static final int MAX_ENTRIES_PER_BATCH = 10;
+    private static final Duration BATCH_WINDOW = Duration.ofMillis(10);
     private final Logger log = LoggerFactory.getLogger(BasicSqsHelper.class);
+    // Batches can only contain messages from a single queue so each queue gets its own loader
+    private final ConcurrentMap<QueueUrl, BatchLoader<ReceiptHandle, Either<BatchResultErrorEntry, DeleteMessageBatchResultEntry>>> deleteMessageLoaders = new ConcurrentHashMap<>();
 
     @Inject
     Provider<SqsClientBuilder> sqsClientBuilderProvider;
@@ -60,6 +73,40 @@ public class BasicSqsHelper implements SqsHelper {
         getRegionSpecificClientForQueue(queueUrl).deleteMessage(deleteMessageRequest);
     }
 
+    @Override
+    public CompletableFuture<Void> deleteMessageBatched(QueueUrl queueUrl, ReceiptHandle receiptHandle) {
+        return deleteMessageLoaders.computeIfAbsent(queueUrl, key -> new BatchLoader<>(receiptHandles -> deleteMessages(queueUrl, receiptHandles), MAX_ENTRIES_PER_BATCH, BATCH_WINDOW))
+                .load(receiptHandle)
+                .thenApply(resultOption -> resultOption
+                        .getOrElseThrow(() -> new RuntimeException("No result was returned for the receipt handle [" + receiptHandle.getHandle() + "]"))
+                        .getOrElseThrow(errorEntry -> new RuntimeException(String.join("", "Failed to delete the message [", errorEntry.code(), ", ", errorEntry.message(), "]"))))
+                .thenApply(resultEntry -> null);
+    }
+
+    private Map<ReceiptHandle, Either<BatchResultErrorEntry, DeleteMessageBatchResultEntry>> deleteMessages(QueueUrl queueUrl, List<ReceiptHandle> receiptHandles) {
+        // Entry IDs only need to be unique within the batch so the index of each receipt handle is used
+        List<DeleteMessageBatchRequestEntry> entries = receiptHandles.zipWithIndex()
+                .map(tuple -> DeleteMessageBatchRequestEntry.builder()
+                        .id(String.valueOf(tuple._2))
+                        .receiptHandle(tuple._1.getHandle())
+                        .build());
+
+        DeleteMessageBatchRequest deleteMessageBatchRequest = DeleteMessageBatchRequest.builder()
+                .queueUrl(queueUrl.getUrl())
+                .entries(entries.toJavaList())
+                .build();
+
+        DeleteMessageBatchResponse deleteMessageBatchResponse = getRegionSpecificClientForQueue(queueUrl).deleteMessageBatch(deleteMessageBatchRequest);
+
+        Stream<Either<BatchResultErrorEntry, DeleteMessageBatchResultEntry>> successes = Stream.ofAll(deleteMessageBatchResponse.successful())
+                .map(Either::right);
+        Stream<Either<BatchResultErrorEntry, DeleteMessageBatchResultEntry>> failures = Stream.ofAll(deleteMessageBatchResponse.failed())
+                .map(Either::left);
+
+        return successes.appendAll(failures)
+                .toMap(result -> Tuple.of(receiptHandles.get(Integer.parseInt(result.fold(BatchResultErrorEntry::id, DeleteMessageBatchResultEntry::id))), result));
+    }
+
     @Override
     public Stream<QueueUrl> getQueueUrls() {
         return new ResultsIterator<String>(getDefaultSqsClient(), ListQueuesRequest.class).stream()
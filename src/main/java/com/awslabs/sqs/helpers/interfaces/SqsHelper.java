@@ -6,6 +6,8 @@ import io.vavr.collection.Stream;
 import io.vavr.control.Option;
 import software.amazon.awssdk.services.sqs.model.Message;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface SqsHelper {
     List<Message> receiveMessage(QueueUrl queueUrl, VisibilityTimeout visibilityTimeout);
 
@@ -15,6 +17,8 @@ public interface SqsHelper {
 
     void deleteMessage(QueueUrl queueUrl, ReceiptHandle receiptHandle);
 
+    CompletableFuture<Void> deleteMessageBatched(QueueUrl queueUrl, ReceiptHandle receiptHandle);
+
     Stream<QueueUrl> getQueueUrls();
 
     void deleteQueue(QueueUrl queueUrl);
@@ -0,0 +1,19 @@
+package com.awslabs.general.helpers.implementations;
+
+import io.vavr.control.Option;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Java 21+ version, loaded from META-INF/versions/21 of the multi-release jar instead of the Java 8 version
+public class VirtualThreadHelper {
+    public static boolean isAvailable() {
+        return true;
+    }
+
+    public static Option<ExecutorService> newVirtualThreadPerTaskExecutor(String name) {
+        return Option.of(Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name(String.join("-", name, ""), 0)
+                .factory()));
+    }
+}
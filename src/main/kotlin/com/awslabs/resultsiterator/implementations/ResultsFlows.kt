@@ -0,0 +1,97 @@
+@file:JvmName("ResultsFlows")
+
+package com.awslabs.resultsiterator.implementations
+
+import com.awslabs.dynamodb.data.TableName
+import com.awslabs.iot.data.ThingName
+import com.awslabs.resultsiterator.interfaces.ResultsIteratorInterface
+import com.awslabs.s3.helpers.data.S3Bucket
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flatMapMerge
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.future.await
+import kotlinx.coroutines.reactive.asFlow
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest
+import software.amazon.awssdk.services.iot.IotAsyncClient
+import software.amazon.awssdk.services.iot.model.Certificate
+import software.amazon.awssdk.services.iot.model.ListCertificatesRequest
+import software.amazon.awssdk.services.iot.model.ListThingPrincipalsRequest
+import software.amazon.awssdk.services.iot.model.ListThingsRequest
+import software.amazon.awssdk.services.iot.model.ThingAttribute
+import software.amazon.awssdk.services.s3.S3AsyncClient
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request
+import software.amazon.awssdk.services.s3.model.S3Object
+import java.util.concurrent.CompletableFuture
+import io.vavr.collection.Stream as VavrStream
+
+// ResultsIterator and the Basic*Helper listings are blocking, these wrappers only move them onto the IO dispatcher so
+// they never block the caller's dispatcher. Each collection holds an IO thread for the whole listing and the IO
+// dispatcher has 64 threads by default, so at most that many of these listings make progress at once. For large
+// fan-outs use the async client flows below (things, certificates, thing principals, S3 objects, DynamoDB scans) or
+// asyncListingFlow, they don't hold a thread while a page is in flight. Every collection starts a new listing.
+fun <T> ResultsIteratorInterface<T>.asBlockingFlow(): Flow<T> = blockingListingFlow { stream() }
+
+// For the Basic*Helper listings, e.g. blockingListingFlow { iotHelper.getThings() }
+fun <T> blockingListingFlow(lister: () -> VavrStream<T>): Flow<T> = flow {
+    for (value in lister()) {
+        emit(value)
+    }
+}.flowOn(Dispatchers.IO)
+
+// For operations without an SDK paginator. Nothing blocks while a page is in flight, so many of these listings can
+// run concurrently on a few threads.
+fun <Request, Response, T> asyncListingFlow(
+    initialRequest: Request,
+    call: (Request) -> CompletableFuture<Response>,
+    values: (Response) -> List<T>,
+    nextRequest: (Request, Response) -> Request?
+): Flow<T> = flow {
+    var request: Request? = initialRequest
+
+    while (request != null) {
+        val response = call(request).await()
+
+        for (value in values(response)) {
+            emit(value)
+        }
+
+        request = nextRequest(request, response)
+    }
+}
+
+// Runs one listing per key, at most concurrency of them at a time, and cancels all of them if any one fails
+@OptIn(FlowPreview::class)
+fun <K, T> Flow<K>.listConcurrently(concurrency: Int, lister: (K) -> Flow<T>): Flow<T> =
+    flatMapMerge(concurrency) { key -> lister(key) }
+
+fun IotAsyncClient.thingsFlow(): Flow<ThingAttribute> =
+    listThingsPaginator(ListThingsRequest.builder().build()).things().asFlow()
+
+fun IotAsyncClient.certificatesFlow(): Flow<Certificate> =
+    listCertificatesPaginator(ListCertificatesRequest.builder().build()).certificates().asFlow()
+
+fun IotAsyncClient.thingPrincipalsFlow(thingName: ThingName): Flow<String> =
+    asyncListingFlow(
+        ListThingPrincipalsRequest.builder().thingName(thingName.name).build(),
+        { request -> listThingPrincipals(request) },
+        { response -> response.principals() },
+        { request, response -> response.nextToken()?.let { request.toBuilder().nextToken(it).build() } }
+    )
+
+fun S3AsyncClient.objectsFlow(s3Bucket: S3Bucket, prefix: String? = null): Flow<S3Object> =
+    listObjectsV2Paginator(ListObjectsV2Request.builder().bucket(s3Bucket.bucket()).prefix(prefix).build()).contents().asFlow()
+
+// Scan segments map directly to the shards handed out by the lease coordinator
+fun DynamoDbAsyncClient.scanFlow(tableName: TableName, segment: Int, totalSegments: Int): Flow<Map<String, AttributeValue>> =
+    scanPaginator(
+        ScanRequest.builder()
+            .tableName(tableName.tableName)
+            .segment(segment)
+            .totalSegments(totalSegments)
+            .build()
+    ).items().asFlow()
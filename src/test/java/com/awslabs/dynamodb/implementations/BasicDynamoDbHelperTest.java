@@ -0,0 +1,106 @@
+package com.awslabs.dynamodb.implementations;
+
+import com.awslabs.dynamodb.data.ImmutableTableName;
+import com.awslabs.dynamodb.data.TableName;
+import io.vavr.collection.HashMap;
+import io.vavr.control.Option;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BasicDynamoDbHelperTest {
+    private final TableName tableName = ImmutableTableName.builder().tableName("table").build();
+    private BasicDynamoDbHelper dynamoDbHelper;
+    private DynamoDbClient mockDynamoDbClient;
+
+    @Before
+    public void setup() {
+        mockDynamoDbClient = mock(DynamoDbClient.class);
+
+        dynamoDbHelper = new BasicDynamoDbHelper();
+        dynamoDbHelper.dynamoDbClient = mockDynamoDbClient;
+    }
+
+    @Test
+    public void shouldMatchItemsToTheirCompositeKeys() throws Exception {
+        Map<String, AttributeValue> firstItem = item("device", "1", "value", "first");
+        Map<String, AttributeValue> secondItem = item("device", "2", "value", "second");
+        // The items come back in a different order than the keys were requested in
+        when(mockDynamoDbClient.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(BatchGetItemResponse.builder()
+                .responses(Collections.singletonMap("table", io.vavr.collection.List.of(secondItem, firstItem).toJavaList()))
+                .build());
+
+        CompletableFuture<Option<Map<String, AttributeValue>>> first = dynamoDbHelper.getItemBatched(tableName, key("device", "1"));
+        CompletableFuture<Option<Map<String, AttributeValue>>> second = dynamoDbHelper.getItemBatched(tableName, key("device", "2"));
+        CompletableFuture<Option<Map<String, AttributeValue>>> missing = dynamoDbHelper.getItemBatched(tableName, key("device", "3"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS), is(Option.of(firstItem)));
+        assertThat(second.get(5, TimeUnit.SECONDS), is(Option.of(secondItem)));
+        assertThat(missing.get(5, TimeUnit.SECONDS), is(Option.none()));
+    }
+
+    @Test
+    public void shouldOnlyFailTheTableThatFailed() throws Exception {
+        TableName missingTableName = ImmutableTableName.builder().tableName("missing").build();
+        Map<String, AttributeValue> item = item("device", "1", "value", "first");
+        when(mockDynamoDbClient.batchGetItem(any(BatchGetItemRequest.class))).thenAnswer(invocation -> {
+            if (invocation.<BatchGetItemRequest>getArgument(0).requestItems().containsKey("missing")) {
+                throw ResourceNotFoundException.builder().message("missing").build();
+            }
+
+            return BatchGetItemResponse.builder()
+                    .responses(Collections.singletonMap("table", Collections.singletonList(item)))
+                    .build();
+        });
+
+        CompletableFuture<Option<Map<String, AttributeValue>>> found = dynamoDbHelper.getItemBatched(tableName, key("device", "1"));
+        CompletableFuture<Option<Map<String, AttributeValue>>> failed = dynamoDbHelper.getItemBatched(missingTableName, key("device", "1"));
+
+        assertThat(found.get(5, TimeUnit.SECONDS), is(Option.of(item)));
+        assertThat(assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS)).getCause() instanceof ResourceNotFoundException, is(true));
+    }
+
+    @Test
+    public void shouldMatchNumericKeysByValue() throws Exception {
+        Map<String, AttributeValue> item = HashMap.of("id", number("1"), "value", string("first")).toJavaMap();
+        when(mockDynamoDbClient.batchGetItem(any(BatchGetItemRequest.class))).thenReturn(BatchGetItemResponse.builder()
+                .responses(Collections.singletonMap("table", Collections.singletonList(item)))
+                .build());
+
+        CompletableFuture<Option<Map<String, AttributeValue>>> found = dynamoDbHelper.getItemBatched(tableName, HashMap.of("id", number("1.0")).toJavaMap());
+
+        assertThat(found.get(5, TimeUnit.SECONDS), is(Option.of(item)));
+    }
+
+    private Map<String, AttributeValue> key(String partitionKey, String sortKey) {
+        return HashMap.of("partitionKey", string(partitionKey), "sortKey", string(sortKey)).toJavaMap();
+    }
+
+    private Map<String, AttributeValue> item(String partitionKey, String sortKey, String attributeName, String attributeValue) {
+        return HashMap.of("partitionKey", string(partitionKey), "sortKey", string(sortKey), attributeName, string(attributeValue)).toJavaMap();
+    }
+
+    private AttributeValue string(String value) {
+        return AttributeValue.builder().s(value).build();
+    }
+
+    private AttributeValue number(String value) {
+        return AttributeValue.builder().n(value).build();
+    }
+}
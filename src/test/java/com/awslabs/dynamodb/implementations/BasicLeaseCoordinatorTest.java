@@ -0,0 +1,81 @@
+package com.awslabs.dynamodb.implementations;
+
+import com.awslabs.dynamodb.data.*;
+import com.awslabs.dynamodb.interfaces.ShardProcessor;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BasicLeaseCoordinatorTest {
+    private static final Duration LEASE_DURATION = Duration.ofMillis(300);
+    private final TableName tableName = ImmutableTableName.builder().tableName("leases").build();
+    private final WorkerId workerId = ImmutableWorkerId.builder().workerId("worker").build();
+    private final WorkerId otherWorkerId = ImmutableWorkerId.builder().workerId("other").build();
+    private final ShardId shardId = ImmutableShardId.builder().shardId("shard").build();
+    private BasicLeaseCoordinator leaseCoordinator;
+
+    @Before
+    public void setup() {
+        leaseCoordinator = spy(new BasicLeaseCoordinator());
+        // The tests never wait for other workers
+        leaseCoordinator.sleeper = duration -> {
+        };
+    }
+
+    @Test
+    public void shouldTakeOverTheShardsOfAWorkerThatDied() {
+        Lease heldByOther = lease(Option.of(otherWorkerId), Instant.now().plusSeconds(60), false);
+        Lease acquired = lease(Option.of(workerId), Instant.now().plus(LEASE_DURATION), false);
+        AtomicInteger sleeps = new AtomicInteger();
+        leaseCoordinator.sleeper = duration -> sleeps.incrementAndGet();
+        // The other worker holds the lease twice, then it expires and this worker completes the shard
+        doReturn(List.of(heldByOther), List.of(heldByOther), List.of(lease(Option.of(otherWorkerId), Instant.EPOCH, false)), List.of(lease(Option.none(), Instant.EPOCH, true)))
+                .when(leaseCoordinator).getLeases(tableName);
+        doReturn(Option.of(acquired)).when(leaseCoordinator).tryAcquire(tableName, workerId, shardId, LEASE_DURATION);
+        doReturn(Try.success(acquired)).when(leaseCoordinator).complete(any(Lease.class));
+        ShardProcessor shardProcessor = mock(ShardProcessor.class);
+
+        int completed = leaseCoordinator.processShards(tableName, workerId, shardProcessor, LEASE_DURATION);
+
+        assertThat(completed, is(1));
+        assertThat(sleeps.get(), is(2));
+        verify(shardProcessor, times(1)).process(any(ShardId.class), any(), any());
+    }
+
+    @Test
+    public void shouldStopRenewingWhenTheProcessorThrowsAnError() {
+        Lease acquired = lease(Option.of(workerId), Instant.now().plus(LEASE_DURATION), false);
+        doReturn(List.of(lease(Option.none(), Instant.EPOCH, false))).when(leaseCoordinator).getLeases(tableName);
+        doReturn(Option.of(acquired)).when(leaseCoordinator).tryAcquire(tableName, workerId, shardId, LEASE_DURATION);
+        doReturn(Try.success(acquired)).when(leaseCoordinator).renew(any(Lease.class), any(Duration.class));
+
+        assertThrows(AssertionError.class, () -> leaseCoordinator.processShards(tableName, workerId, (processedShardId, checkpoint, checkpointer) -> {
+            throw new AssertionError("processor failed");
+        }, LEASE_DURATION));
+
+        // The first renewal would have run after a third of the lease duration
+        verify(leaseCoordinator, after(LEASE_DURATION.toMillis()).never()).renew(any(Lease.class), any(Duration.class));
+    }
+
+    private Lease lease(Option<WorkerId> owner, Instant expiresAt, boolean complete) {
+        return ImmutableLease.builder()
+                .tableName(tableName)
+                .shardId(shardId)
+                .owner(owner)
+                .expiresAt(expiresAt)
+                .isComplete(complete)
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.awslabs.general.helpers.implementations;
+
+import com.awslabs.general.helpers.data.SnapshotDifference;
+import com.awslabs.general.helpers.data.SnapshotDifferenceType;
+import com.awslabs.general.helpers.data.SnapshotFormat;
+import com.awslabs.general.helpers.interfaces.SnapshotHelper;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import software.amazon.awssdk.services.iot.model.ThingAttribute;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+public class BasicSnapshotHelperTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private SnapshotHelper snapshotHelper;
+
+    @Before
+    public void setup() {
+        snapshotHelper = new BasicSnapshotHelper();
+    }
+
+    @Test
+    public void shouldRoundTripSdkObjectsInBothFormats() throws Exception {
+        List<ThingAttribute> thingAttributes = List.of(
+                thingAttribute("thing1", "type1", 1L),
+                ThingAttribute.builder().thingName("thing2\nwith a newline").attributes(Collections.singletonMap("key", "value")).build());
+
+        for (SnapshotFormat snapshotFormat : SnapshotFormat.values()) {
+            Path path = temporaryFolder.newFile().toPath();
+
+            assertThat(snapshotHelper.write(path, snapshotFormat, thingAttributes.iterator()), is(2L));
+            assertThat(snapshotHelper.read(path, snapshotFormat, ThingAttribute.class).toList(), is(thingAttributes));
+        }
+    }
+
+    @Test
+    public void shouldReadRecordsThatCrossMappedWindows() throws Exception {
+        BasicSnapshotHelper smallWindowSnapshotHelper = new BasicSnapshotHelper();
+        // Smaller than most of the records so records start, end and span across window boundaries
+        smallWindowSnapshotHelper.mappedWindowSize = 16;
+
+        List<String> values = List.range(0, 200).map(index -> String.join("", "value-", String.valueOf(index), "-", String.join("", Collections.nCopies(index % 7, "x"))));
+
+        for (SnapshotFormat snapshotFormat : SnapshotFormat.values()) {
+            Path path = temporaryFolder.newFile().toPath();
+
+            smallWindowSnapshotHelper.write(path, snapshotFormat, values.iterator());
+
+            assertThat(smallWindowSnapshotHelper.read(path, snapshotFormat, String.class).toList(), is(values));
+        }
+    }
+
+    @Test
+    public void shouldKeepThePreviousSnapshotWhenAWriteFails() throws Exception {
+        Path path = temporaryFolder.newFolder().toPath().resolve("snapshot");
+        snapshotHelper.write(path, SnapshotFormat.LENGTH_PREFIXED, List.of("before").iterator());
+
+        Iterator<String> failingValues = Stream.<String>cons("after", () -> {
+            throw new RuntimeException("listing failed");
+        }).iterator();
+
+        assertThrows(RuntimeException.class, () -> snapshotHelper.write(path, SnapshotFormat.LENGTH_PREFIXED, failingValues));
+
+        assertThat(snapshotHelper.read(path, SnapshotFormat.LENGTH_PREFIXED, String.class).toList(), is(List.of("before")));
+        // The temporary file of the failed write is removed
+        try (java.util.stream.Stream<Path> paths = Files.list(path.getParent())) {
+            assertThat(paths.count(), is(1L));
+        }
+    }
+
+    @Test
+    public void shouldReportAddedRemovedAndChangedRecords() {
+        List<ThingAttribute> before = List.of(
+                thingAttribute("a", "type1", 1L),
+                thingAttribute("b", "type1", 1L),
+                thingAttribute("c", "type1", 1L));
+        List<ThingAttribute> after = List.of(
+                thingAttribute("b", "type1", 1L),
+                thingAttribute("c", "type2", 2L),
+                thingAttribute("d", "type1", 1L));
+
+        List<SnapshotDifference<ThingAttribute>> differences = snapshotHelper.diff(before.iterator(), after.iterator(), ThingAttribute::thingName).toList();
+
+        assertThat(differences.map(SnapshotDifference::getType), is(List.of(SnapshotDifferenceType.REMOVED, SnapshotDifferenceType.CHANGED, SnapshotDifferenceType.ADDED)));
+        assertThat(differences.get(0).getBefore().get().thingName(), is("a"));
+        assertThat(differences.get(1).getAfter().get().version(), is(2L));
+        assertThat(differences.get(2).getAfter().get().thingName(), is("d"));
+    }
+
+    @Test
+    public void shouldThrowWhenInputIsNotSorted() {
+        List<String> before = List.of("b", "a");
+        List<String> after = List.of("a", "b");
+
+        assertThrows(RuntimeException.class, () -> snapshotHelper.diff(before.iterator(), after.iterator(), value -> value).toList());
+    }
+
+    private ThingAttribute thingAttribute(String thingName, String thingTypeName, long version) {
+        return ThingAttribute.builder()
+                .thingName(thingName)
+                .thingTypeName(thingTypeName)
+                .version(version)
+                .build();
+    }
+}
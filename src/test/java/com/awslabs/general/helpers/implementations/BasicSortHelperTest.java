@@ -0,0 +1,172 @@
+package com.awslabs.general.helpers.implementations;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Try;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+public class BasicSortHelperTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private BasicSortHelper sortHelper;
+    private List<Integer> shuffledValues;
+
+    @Before
+    public void setup() {
+        sortHelper = new BasicSortHelper();
+        sortHelper.snapshotHelper = new BasicSnapshotHelper();
+        sortHelper.spillDirectory = temporaryFolder.getRoot().toPath();
+        shuffledValues = Stream.range(0, 1000).toList().shuffle(new Random(0));
+    }
+
+    @Test
+    public void shouldReturnTopKInDescendingOrder() {
+        assertThat(sortHelper.topK(shuffledValues.iterator(), 3, Comparator.<Integer>naturalOrder()), is(List.of(999, 998, 997)));
+    }
+
+    @Test
+    public void shouldReturnEverythingWhenKIsLargerThanTheInput() {
+        assertThat(sortHelper.topK(List.of(2, 1, 3).iterator(), 10, Comparator.<Integer>naturalOrder()), is(List.of(3, 2, 1)));
+    }
+
+    @Test
+    public void shouldSortInMemoryWhenInputFits() {
+        assertThat(sortHelper.externalSort(shuffledValues.iterator(), Integer.class, Comparator.naturalOrder(), 10_000).toList(), is(Stream.range(0, 1000).toList()));
+    }
+
+    @Test
+    public void shouldSortBySpillingRunsToDisk() {
+        assertThat(sortHelper.externalSort(shuffledValues.iterator(), Integer.class, Comparator.naturalOrder(), 64).toList(), is(Stream.range(0, 1000).toList()));
+    }
+
+    @Test
+    public void shouldDeleteTheRunsOnceTheMergeFinishes() {
+        Stream<Integer> sorted = sortHelper.externalSort(shuffledValues.iterator(), Integer.class, Comparator.naturalOrder(), 64);
+        assertThat(spillFileCount(), is(16L));
+
+        sorted.toList();
+
+        assertThat(spillFileCount(), is(0L));
+    }
+
+    @Test
+    public void shouldDeleteTheRunsWhenTheMergeIsAbandoned() throws InterruptedException {
+        assertThat(sortHelper.externalSort(shuffledValues.iterator(), Integer.class, Comparator.naturalOrder(), 64).take(4).toList(), is(List.of(0, 1, 2, 3)));
+
+        for (int attempt = 0; (attempt < 100) && (spillFileCount() > 0); attempt++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        assertThat(spillFileCount(), is(0L));
+    }
+
+    @Test
+    public void shouldDeleteTheRunsWhenTheInputFails() {
+        Iterator<Integer> values = Stream.range(0, 100).iterator();
+        // Fails after the first run has been spilled
+        Iterator<Integer> failingValues = new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (values.hasNext()) {
+                    return values.next();
+                }
+
+                throw new IllegalStateException("The input failed");
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> sortHelper.externalSort(failingValues, Integer.class, Comparator.naturalOrder(), 64));
+        assertThat(spillFileCount(), is(0L));
+    }
+
+    @Test
+    public void shouldMergeSortedSourcesWithPrefetch() {
+        // Each source holds every 20th value so the merge has to interleave all of them
+        List<Iterator<Integer>> sources = Stream.range(0, 20)
+                .map(offset -> Stream.range(0, 1000).filter(value -> value % 20 == offset).iterator())
+                .map(iterator -> (Iterator<Integer>) iterator)
+                .toList();
+
+        assertThat(sortHelper.merge(sources, Comparator.naturalOrder(), 2).toList(), is(Stream.range(0, 1000).toList()));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldThrowWhenASourceIsNotSorted() {
+        List<Iterator<Integer>> sources = List.of(List.of(1, 3, 2).iterator(), List.of(0, 4).iterator());
+
+        sortHelper.merge(sources, Comparator.naturalOrder(), 0).toList();
+    }
+
+    @Test
+    public void shouldStopPrefetchingWhenTheMergeIsAbandoned() throws InterruptedException {
+        CountDownLatch sourcesStopped = new CountDownLatch(2);
+        List<Iterator<Integer>> sources = List.of(endlessSource(0, sourcesStopped), endlessSource(1, sourcesStopped));
+
+        assertThat(sortHelper.merge(sources, Comparator.naturalOrder(), 2).take(4).toList(), is(List.of(0, 1, 2, 3)));
+
+        // The merged stream is no longer reachable, its prefetch threads are stopped once it has been collected
+        boolean stopped = false;
+
+        for (int attempt = 0; (attempt < 100) && !stopped; attempt++) {
+            System.gc();
+            stopped = sourcesStopped.await(100, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(stopped, is(true));
+    }
+
+    private long spillFileCount() {
+        return Try.withResources(() -> Files.list(temporaryFolder.getRoot().toPath()))
+                .of(java.util.stream.Stream::count)
+                .get();
+    }
+
+    // Emits offset, offset + 2, offset + 4, ... forever and counts down when whoever is reading it stops
+    private Iterator<Integer> endlessSource(int offset, CountDownLatch stopped) {
+        return new Iterator<Integer>() {
+            private int next = offset;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                int value = next;
+                next += 2;
+                return value;
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super Integer> action) {
+                try {
+                    Iterator.super.forEachRemaining(action);
+                } finally {
+                    stopped.countDown();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.awslabs.general.helpers.implementations;
+
+import io.vavr.collection.List;
+import io.vavr.control.Try;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConcurrencyHelperTest {
+    private ExecutorService executorService;
+
+    @Before
+    public void setup() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldMergeEveryProducersValues() {
+        List<Consumer<Consumer<Integer>>> producers = List.of(
+                sink -> List.range(0, 500).forEach(sink),
+                sink -> List.range(500, 1000).forEach(sink));
+
+        assertThat(ConcurrencyHelper.merge(executorService, 10, producers).sorted().toList(), is(List.range(0, 1000)));
+    }
+
+    @Test
+    public void shouldStopProducersWhenTheStreamIsAbandoned() throws InterruptedException {
+        CountDownLatch producerStopped = new CountDownLatch(1);
+
+        // Never finishes on its own, it would block on the full buffer forever if nothing stopped it
+        Consumer<Consumer<Integer>> endlessProducer = sink -> {
+            try {
+                for (int value = 0; ; value++) {
+                    sink.accept(value);
+                }
+            } finally {
+                producerStopped.countDown();
+            }
+        };
+
+        assertThat(ConcurrencyHelper.merge(executorService, 10, List.of(endlessProducer)).take(5).toList(), is(List.range(0, 5)));
+
+        // The stream is no longer reachable, its producers are stopped once it has been collected
+        assertThat(awaitWithGc(producerStopped), is(true));
+    }
+
+    @Test
+    public void shouldStopOtherProducersWhenOneFails() throws InterruptedException {
+        CountDownLatch blockedProducerStopped = new CountDownLatch(1);
+        CountDownLatch neverReleased = new CountDownLatch(1);
+
+        Consumer<Consumer<Integer>> blockedProducer = sink -> {
+            try {
+                // Simulates a producer that is stuck in a slow call
+                Try.run(neverReleased::await).get();
+            } finally {
+                blockedProducerStopped.countDown();
+            }
+        };
+
+        Consumer<Consumer<Integer>> failingProducer = sink -> {
+            throw new IllegalStateException("producer failed");
+        };
+
+        Try<List<Integer>> result = Try.of(() -> ConcurrencyHelper.merge(executorService, 10, List.of(blockedProducer, failingProducer)).toList());
+
+        assertThat(result.getCause() instanceof IllegalStateException, is(true));
+        assertThat(blockedProducerStopped.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    private boolean awaitWithGc(CountDownLatch countDownLatch) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            System.gc();
+
+            if (countDownLatch.await(100, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package com.awslabs.general.helpers.implementations;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class VirtualThreadHelperTest {
+    // Set by the java21Test task, which runs the tests on Java 21 against the multi-release jar
+    private static final String EXPECT_VIRTUAL_THREADS = "expectVirtualThreads";
+
+    @Test
+    public void shouldOnlyUseVirtualThreadsWhenTheJava21ClassIsLoaded() throws Exception {
+        boolean expectVirtualThreads = Boolean.getBoolean(EXPECT_VIRTUAL_THREADS);
+        assertThat(VirtualThreadHelper.isAvailable(), is(expectVirtualThreads));
+
+        ExecutorService executorService = ExecutorHelper.newBlockingExecutor("virtual-thread-test", 1);
+
+        try {
+            Thread thread = executorService.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            assertThat(thread.getName(), is("virtual-thread-test-0"));
+            // Thread.isVirtual doesn't exist on Java 8, virtual threads describe themselves as VirtualThread instead
+            assertThat(thread.toString().startsWith("VirtualThread"), is(expectVirtualThreads));
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.*;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.iot.IotClient;
+import software.amazon.awssdk.services.iot.model.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+public class BasicBulkProvisioningHelperTest {
+    private static final String THING_ARN_PREFIX = "arn:aws:iot:us-east-1:999999999999:thing/";
+    private static final String CERTIFICATE_ARN = "arn:aws:iot:us-east-1:999999999999:cert/certificate";
+    private BasicBulkProvisioningHelper bulkProvisioningHelper;
+    private IotClient mockIotClient;
+
+    @Before
+    public void setup() {
+        mockIotClient = mock(IotClient.class);
+
+        bulkProvisioningHelper = new BasicBulkProvisioningHelper();
+        bulkProvisioningHelper.iotClient = mockIotClient;
+
+        when(mockIotClient.createThing(any(CreateThingRequest.class))).thenAnswer(invocation -> CreateThingResponse.builder()
+                .thingArn(THING_ARN_PREFIX + invocation.<CreateThingRequest>getArgument(0).thingName())
+                .build());
+        when(mockIotClient.createCertificateFromCsr(any(CreateCertificateFromCsrRequest.class))).thenReturn(CreateCertificateFromCsrResponse.builder()
+                .certificateArn(CERTIFICATE_ARN)
+                .build());
+    }
+
+    @Test
+    public void shouldReportTheStepsThatCompletedWhenAThingFails() {
+        when(mockIotClient.attachThingPrincipal(argThat((AttachThingPrincipalRequest request) -> request.thingName().equals("broken"))))
+                .thenThrow(IotException.builder().statusCode(403).message("denied").build());
+
+        List<ThingProvisioningOutcome> outcomes = bulkProvisioningHelper.provision(Stream.of(request("working"), request("broken")))
+                .toList()
+                .sortBy(outcome -> outcome.getThingName().getName());
+
+        ThingProvisioningOutcome broken = outcomes.get(0);
+        assertThat(broken.isSuccessful(), is(false));
+        assertThat(broken.getThingArn().map(ThingArn::getArn).get(), is(THING_ARN_PREFIX + "broken"));
+        assertThat(broken.getCertificateArn().map(CertificateArn::getArn).get(), is(CERTIFICATE_ARN));
+
+        ThingProvisioningOutcome working = outcomes.get(1);
+        assertThat(working.isSuccessful(), is(true));
+        // The failure of one thing doesn't stop the others, the working thing still gets its policy
+        verify(mockIotClient, times(1)).attachPolicy(any(AttachPolicyRequest.class));
+    }
+
+    @Test
+    public void shouldOnlyRetryTheThrottledCall() {
+        when(mockIotClient.attachPolicy(any(AttachPolicyRequest.class)))
+                .thenThrow(ThrottlingException.builder().statusCode(429).message("throttled").build())
+                .thenReturn(AttachPolicyResponse.builder().build());
+
+        ThingProvisioningOutcome outcome = bulkProvisioningHelper.provision(Stream.of(request("thing"))).get();
+
+        assertThat(outcome.isSuccessful(), is(true));
+        verify(mockIotClient, times(2)).attachPolicy(any(AttachPolicyRequest.class));
+        // Retrying a later step must not create another certificate
+        verify(mockIotClient, times(1)).createCertificateFromCsr(any(CreateCertificateFromCsrRequest.class));
+        verify(mockIotClient, times(1)).createThing(any(CreateThingRequest.class));
+    }
+
+    @Test
+    public void shouldRetryAThrottledCertificateCreationWithoutFailingTheThing() {
+        when(mockIotClient.createCertificateFromCsr(any(CreateCertificateFromCsrRequest.class)))
+                .thenThrow(ThrottlingException.builder().statusCode(429).message("throttled").build())
+                .thenReturn(CreateCertificateFromCsrResponse.builder().certificateArn(CERTIFICATE_ARN).build());
+
+        ThingProvisioningOutcome outcome = bulkProvisioningHelper.provision(Stream.of(request("thing"))).get();
+
+        assertThat(outcome.isSuccessful(), is(true));
+        assertThat(outcome.getCertificateArn().map(CertificateArn::getArn).get(), is(CERTIFICATE_ARN));
+        verify(mockIotClient, times(2)).createCertificateFromCsr(any(CreateCertificateFromCsrRequest.class));
+    }
+
+    private ThingProvisioningRequest request(String thingName) {
+        return ImmutableThingProvisioningRequest.builder()
+                .thingName(ImmutableThingName.builder().name(thingName).build())
+                .certificateSigningRequest(ImmutableCertificateSigningRequest.builder().request("csr").build())
+                .policyNames(List.of(ImmutablePolicyName.builder().name("policy").build()))
+                .build();
+    }
+}
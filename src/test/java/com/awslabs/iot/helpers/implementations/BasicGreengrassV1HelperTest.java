@@ -0,0 +1,76 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.general.helpers.implementations.BasicSortHelper;
+import com.awslabs.iot.data.ImmutableGreengrassGroupId;
+import com.awslabs.resultsiterator.implementations.BasicResultsCache;
+import com.awslabs.resultsiterator.interfaces.ResultsCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.greengrass.GreengrassClient;
+import software.amazon.awssdk.services.greengrass.model.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BasicGreengrassV1HelperTest {
+    private BasicGreengrassV1Helper greengrassV1Helper;
+    private GreengrassClient mockGreengrassClient;
+
+    @Before
+    public void setup() {
+        // The cache reads its TTL when it is created
+        System.setProperty(ResultsCache.RESULTS_CACHE_TTL_SECONDS, "60");
+
+        mockGreengrassClient = mock(GreengrassClient.class);
+
+        greengrassV1Helper = new BasicGreengrassV1Helper();
+        greengrassV1Helper.greengrassClient = mockGreengrassClient;
+        greengrassV1Helper.resultsCache = new BasicResultsCache();
+        greengrassV1Helper.sortHelper = new BasicSortHelper();
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(ResultsCache.RESULTS_CACHE_TTL_SECONDS);
+    }
+
+    @Test
+    public void shouldListTheGroupsAgainAfterAGroupIsDeleted() {
+        when(mockGreengrassClient.listGroups(any(ListGroupsRequest.class))).thenReturn(ListGroupsResponse.builder()
+                .groups(GroupInformation.builder().id("group").name("group").build())
+                .build());
+
+        greengrassV1Helper.getGroups().toList();
+        greengrassV1Helper.getGroups().toList();
+        verify(mockGreengrassClient, times(1)).listGroups(any(ListGroupsRequest.class));
+
+        greengrassV1Helper.deleteGroup(ImmutableGreengrassGroupId.builder().groupId("group").build());
+        greengrassV1Helper.getGroups().toList();
+
+        verify(mockGreengrassClient, times(2)).listGroups(any(ListGroupsRequest.class));
+    }
+
+    @Test
+    public void shouldPickTheLastListedOfTheNewestDeployments() {
+        when(mockGreengrassClient.listDeployments(any(ListDeploymentsRequest.class))).thenReturn(ListDeploymentsResponse.builder()
+                .deployments(deployment("old", "2020-01-01T00:00:00.000Z"),
+                        deployment("first", "2020-01-02T00:00:00.000Z"),
+                        deployment("second", "2020-01-02T00:00:00.000Z"),
+                        deployment("older", "2019-12-31T00:00:00.000Z"))
+                .build());
+
+        GroupInformation groupInformation = GroupInformation.builder().id("group").name("group").build();
+
+        assertThat(greengrassV1Helper.getLatestDeployment(groupInformation).get().deploymentId(), is("second"));
+    }
+
+    private Deployment deployment(String deploymentId, String createdAt) {
+        return Deployment.builder()
+                .deploymentId(deploymentId)
+                .createdAt(createdAt)
+                .build();
+    }
+}
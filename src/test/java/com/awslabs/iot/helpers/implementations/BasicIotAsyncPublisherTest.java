@@ -0,0 +1,97 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.ImmutableTopicName;
+import com.awslabs.iot.data.Qos;
+import com.awslabs.iot.data.TopicName;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.iotdataplane.IotDataPlaneAsyncClient;
+import software.amazon.awssdk.services.iotdataplane.model.PublishRequest;
+import software.amazon.awssdk.services.iotdataplane.model.PublishResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BasicIotAsyncPublisherTest {
+    private final TopicName topicName = ImmutableTopicName.builder().name("topic").build();
+    private final ConcurrentLinkedQueue<CompletableFuture<PublishResponse>> pendingResponses = new ConcurrentLinkedQueue<>();
+    private BasicIotAsyncPublisher iotAsyncPublisher;
+
+    @Before
+    public void setup() {
+        IotDataPlaneAsyncClient mockIotDataPlaneAsyncClient = mock(IotDataPlaneAsyncClient.class);
+
+        when(mockIotDataPlaneAsyncClient.publish(any(PublishRequest.class))).thenAnswer(invocation -> {
+            CompletableFuture<PublishResponse> pendingResponse = new CompletableFuture<>();
+            pendingResponses.add(pendingResponse);
+            return pendingResponse;
+        });
+
+        iotAsyncPublisher = new BasicIotAsyncPublisher();
+        iotAsyncPublisher.iotDataPlaneAsyncClient = mockIotDataPlaneAsyncClient;
+    }
+
+    @Test
+    public void shouldBlockWhenTheWindowIsFull() throws InterruptedException {
+        List<CompletableFuture<PublishResponse>> futures = Stream.range(0, BasicIotAsyncPublisher.MAX_IN_FLIGHT)
+                .map(index -> iotAsyncPublisher.publish(topicName, Qos.ONE, "payload"))
+                .toList();
+
+        CountDownLatch published = new CountDownLatch(1);
+        Thread blockedPublisher = new Thread(() -> {
+            iotAsyncPublisher.publish(topicName, Qos.ONE, "payload");
+            published.countDown();
+        });
+        blockedPublisher.start();
+
+        awaitWaiting(blockedPublisher);
+        assertThat(published.getCount(), is(1L));
+        assertThat(pendingResponses.size(), is(BasicIotAsyncPublisher.MAX_IN_FLIGHT));
+
+        pendingResponses.poll().complete(PublishResponse.builder().build());
+
+        assertThat(published.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(pendingResponses.size(), is(BasicIotAsyncPublisher.MAX_IN_FLIGHT));
+        assertThat(futures.head().isDone(), is(true));
+    }
+
+    @Test
+    public void shouldOnlyFlushTheMessagesPublishedBeforeTheFlush() throws InterruptedException {
+        iotAsyncPublisher.publish(topicName, Qos.ONE, "before");
+        CompletableFuture<PublishResponse> before = pendingResponses.poll();
+
+        CountDownLatch flushed = new CountDownLatch(1);
+        Thread flushingThread = new Thread(() -> {
+            iotAsyncPublisher.flush();
+            flushed.countDown();
+        });
+        flushingThread.start();
+
+        awaitWaiting(flushingThread);
+        // A message published while the flush waits is still outstanding when the flush returns
+        CompletableFuture<PublishResponse> after = iotAsyncPublisher.publish(topicName, Qos.ONE, "after");
+        assertThat(flushed.getCount(), is(1L));
+
+        before.completeExceptionally(new RuntimeException("failed"));
+
+        assertThat(flushed.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(after.isDone(), is(false));
+    }
+
+    private void awaitWaiting(Thread thread) throws InterruptedException {
+        for (int attempt = 0; (attempt < 1000) && (thread.getState() != Thread.State.WAITING); attempt++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(thread.getState(), is(Thread.State.WAITING));
+    }
+}
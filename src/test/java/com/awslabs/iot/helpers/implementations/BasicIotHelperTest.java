@@ -0,0 +1,347 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.*;
+import com.awslabs.iot.helpers.interfaces.IotHelper;
+import com.awslabs.iot.helpers.interfaces.IotRegistryGraph;
+import com.awslabs.iot.helpers.interfaces.PublishTransport;
+import com.awslabs.resultsiterator.implementations.ResultsFilters;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.iot.IotClient;
+import software.amazon.awssdk.services.iot.model.*;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BasicIotHelperTest {
+    private static final String THING_ARN = "arn:aws:iot:us-east-1:999999999999:thing/thing";
+    private static final String CERTIFICATE_ARN_PREFIX = "arn:aws:iot:us-east-1:999999999999:cert/";
+    private final ThingName thingName = ImmutableThingName.builder().name("thing").build();
+    private BasicIotHelper iotHelper;
+    private IotClient mockIotClient;
+    private IotRegistryGraph mockIotRegistryGraph;
+
+    @Before
+    public void setup() {
+        // The describe thing cache is off by default and reads its TTL when the helper is created
+        System.setProperty(IotHelper.DESCRIBE_THING_CACHE_TTL_SECONDS, "30");
+
+        mockIotClient = mock(IotClient.class);
+
+        iotHelper = new BasicIotHelper();
+        iotHelper.iotClient = mockIotClient;
+        mockIotRegistryGraph = mock(IotRegistryGraph.class);
+        iotHelper.iotRegistryGraph = mockIotRegistryGraph;
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(IotHelper.DESCRIBE_THING_CACHE_TTL_SECONDS);
+    }
+
+    @Test
+    public void shouldCacheThingsThatDoNotExist() {
+        when(mockIotClient.describeThing(any(DescribeThingRequest.class))).thenThrow(ResourceNotFoundException.builder().message("thing").build());
+
+        assertThat(iotHelper.isThingImmutable(thingName), is(false));
+        assertThat(iotHelper.getThingArn(thingName).isEmpty(), is(true));
+
+        verify(mockIotClient, times(1)).describeThing(any(DescribeThingRequest.class));
+    }
+
+    @Test
+    public void shouldNotCacheDescribeThingByDefault() {
+        System.clearProperty(IotHelper.DESCRIBE_THING_CACHE_TTL_SECONDS);
+        iotHelper = new BasicIotHelper();
+        iotHelper.iotClient = mockIotClient;
+        when(mockIotClient.describeThing(any(DescribeThingRequest.class))).thenReturn(DescribeThingResponse.builder().thingArn(THING_ARN).build());
+
+        iotHelper.getThingArn(thingName);
+        iotHelper.getThingArn(thingName);
+
+        verify(mockIotClient, times(2)).describeThing(any(DescribeThingRequest.class));
+    }
+
+    @Test
+    public void shouldDescribeTheThingAgainAfterItIsCreated() {
+        when(mockIotClient.describeThing(any(DescribeThingRequest.class))).thenThrow(ResourceNotFoundException.builder().message("thing").build());
+        assertThat(iotHelper.getThingArn(thingName).isEmpty(), is(true));
+
+        when(mockIotClient.createThing(any(CreateThingRequest.class))).thenReturn(CreateThingResponse.builder().thingArn(THING_ARN).build());
+        doReturn(DescribeThingResponse.builder().thingArn(THING_ARN).build()).when(mockIotClient).describeThing(any(DescribeThingRequest.class));
+        iotHelper.createThing(thingName);
+
+        assertThat(iotHelper.getThingArn(thingName).get().getArn(), is(THING_ARN));
+    }
+
+    @Test
+    public void shouldRetryThrottledDeletionSteps() {
+        CertificateArn certificateArn = certificateArn("certificate");
+        stubAttachments(Collections.singletonList("thing"), Collections.singletonList("policy"));
+        when(mockIotClient.describeThing(any(DescribeThingRequest.class))).thenReturn(DescribeThingResponse.builder().thingArn(THING_ARN).build());
+        when(mockIotClient.detachPolicy(any(DetachPolicyRequest.class)))
+                .thenThrow(ThrottlingException.builder().statusCode(429).message("throttled").build())
+                .thenReturn(DetachPolicyResponse.builder().build());
+
+        List<CertificateDeletionOutcome> outcomes = iotHelper.recursiveDelete(Stream.of(certificateArn)).toList();
+
+        assertThat(outcomes.map(CertificateDeletionOutcome::getStatus), is(List.of(CertificateDeletionStatus.DELETED)));
+        verify(mockIotClient, times(2)).detachPolicy(any(DetachPolicyRequest.class));
+        verify(mockIotClient, times(1)).detachThingPrincipal(any(DetachThingPrincipalRequest.class));
+        verify(mockIotClient, times(1)).deleteCertificate(any(DeleteCertificateRequest.class));
+        verify(mockIotRegistryGraph, times(1)).refresh(certificateArn);
+    }
+
+    @Test
+    public void shouldSkipCertificatesAttachedToImmutableThings() {
+        stubAttachments(Collections.singletonList("thing"), Collections.emptyList());
+        when(mockIotClient.describeThing(any(DescribeThingRequest.class))).thenReturn(DescribeThingResponse.builder()
+                .thingArn(THING_ARN)
+                .attributes(Collections.singletonMap(IotHelper.IMMUTABLE_ATTRIBUTE_NAME_OR_VALUE, "true"))
+                .build());
+        CertificateArn caCertificateArn = ImmutableCertificateArn.builder().arn("arn:aws:iot:us-east-1:999999999999:cacert/ca").build();
+
+        List<CertificateDeletionStatus> statuses = iotHelper.recursiveDelete(Stream.of(certificateArn("certificate"), caCertificateArn))
+                .map(CertificateDeletionOutcome::getStatus)
+                .toList();
+
+        assertThat(statuses.sorted(), is(List.of(CertificateDeletionStatus.SKIPPED_CA_CERTIFICATE, CertificateDeletionStatus.SKIPPED_IMMUTABLE_THING)));
+        verify(mockIotClient, never()).deleteCertificate(any(DeleteCertificateRequest.class));
+        verify(mockIotRegistryGraph, never()).refresh(any(CertificateArn.class));
+    }
+
+    @Test
+    public void shouldReportFailuresWithoutRetryingThem() {
+        stubAttachments(Collections.emptyList(), Collections.emptyList());
+        when(mockIotClient.deleteCertificate(any(DeleteCertificateRequest.class))).thenThrow(IotException.builder().statusCode(403).message("denied").build());
+
+        CertificateDeletionOutcome outcome = iotHelper.recursiveDelete(Stream.of(certificateArn("certificate"))).get();
+
+        assertThat(outcome.getStatus(), is(CertificateDeletionStatus.FAILED));
+        assertThat(outcome.getErrorMessage().isDefined(), is(true));
+        verify(mockIotClient, times(1)).deleteCertificate(any(DeleteCertificateRequest.class));
+        verify(mockIotRegistryGraph, never()).refresh(any(CertificateArn.class));
+    }
+
+    @Test
+    public void shouldReportDeletedCertificatesWhenTheGraphRefreshFails() {
+        stubAttachments(Collections.emptyList(), Collections.emptyList());
+        doThrow(ThrottlingException.builder().statusCode(429).message("throttled").build()).when(mockIotRegistryGraph).refresh(any(CertificateArn.class));
+
+        CertificateDeletionOutcome outcome = iotHelper.recursiveDelete(Stream.of(certificateArn("certificate"))).get();
+
+        assertThat(outcome.getStatus(), is(CertificateDeletionStatus.DELETED));
+        assertThat(outcome.getErrorMessage().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldNotFailChangesWhenTheGraphRefreshFails() {
+        CertificateArn certificateArn = certificateArn("certificate");
+        doThrow(ThrottlingException.builder().statusCode(429).message("throttled").build()).when(mockIotRegistryGraph).refresh(any(ThingName.class));
+        doThrow(ThrottlingException.builder().statusCode(429).message("throttled").build()).when(mockIotRegistryGraph).refresh(any(CertificateArn.class));
+
+        iotHelper.attachThingPrincipal(thingName, certificateArn);
+        iotHelper.delete(thingName);
+
+        verify(mockIotClient, times(1)).attachThingPrincipal(any(AttachThingPrincipalRequest.class));
+        verify(mockIotClient, times(1)).deleteThing(any(DeleteThingRequest.class));
+    }
+
+    @Test
+    public void shouldOnlyDeleteAsTheOutcomesAreConsumed() {
+        stubAttachments(Collections.emptyList(), Collections.emptyList());
+        Stream<CertificateArn> certificateArns = Stream.range(0, 1000).map(index -> certificateArn("certificate" + index));
+
+        iotHelper.recursiveDelete(certificateArns).take(1).toList();
+
+        // Only about one window of deletions starts, nothing else is deleted once the reader stops
+        verify(mockIotClient, after(500).atMost(32)).deleteCertificate(any(DeleteCertificateRequest.class));
+    }
+
+    @Test
+    public void shouldSearchLargeResultSetsInParallelShards() {
+        String largeShardQuery = FleetIndexQueries.withThingNamePrefix(FleetIndexQueries.MATCH_ALL_QUERY, "d");
+        // The whole index and the "d" shard are too large to search serially, every other shard is small
+        when(mockIotClient.getStatistics(any(GetStatisticsRequest.class))).thenAnswer(invocation -> {
+            String queryString = invocation.<GetStatisticsRequest>getArgument(0).queryString();
+            int count = (queryString.equals(FleetIndexQueries.MATCH_ALL_QUERY) || queryString.equals(largeShardQuery)) ? 100000 : 1;
+
+            return GetStatisticsResponse.builder().statistics(Statistics.builder().count(count).build()).build();
+        });
+        // Every shard returns one thing named after the query that found it
+        when(mockIotClient.searchIndex(any(SearchIndexRequest.class))).thenAnswer(invocation -> SearchIndexResponse.builder()
+                .things(ThingDocument.builder().thingName(invocation.<SearchIndexRequest>getArgument(0).queryString()).build())
+                .build());
+
+        List<String> shardQueries = iotHelper.searchThings(ResultsFilters.NO_FILTER).map(ThingDocument::thingName).toList();
+
+        // 38 first level shards, the "d" shard split into 39 longer prefixes, and the thing named exactly "d"
+        assertThat(shardQueries.size(), is(38 + 39 + 1));
+        assertThat(shardQueries.distinct().size(), is(shardQueries.size()));
+        assertThat(shardQueries.contains(largeShardQuery), is(false));
+        assertThat(shardQueries.contains(FleetIndexQueries.withThingNamePrefix(FleetIndexQueries.MATCH_ALL_QUERY, "de")), is(true));
+        assertThat(shardQueries.contains(FleetIndexQueries.withThingName(FleetIndexQueries.MATCH_ALL_QUERY, "d")), is(true));
+    }
+
+    @Test
+    public void shouldSearchSeriallyWhenTheThingsCannotBeCounted() {
+        when(mockIotClient.getStatistics(any(GetStatisticsRequest.class))).thenThrow(IotException.builder().statusCode(403).message("denied").build());
+        when(mockIotClient.searchIndex(any(SearchIndexRequest.class))).thenAnswer(invocation -> SearchIndexResponse.builder()
+                .things(ThingDocument.builder().thingName(invocation.<SearchIndexRequest>getArgument(0).queryString()).build())
+                .build());
+
+        List<String> shardQueries = iotHelper.searchThings(ResultsFilters.NO_FILTER).map(ThingDocument::thingName).toList();
+
+        assertThat(shardQueries, is(List.of(FleetIndexQueries.MATCH_ALL_QUERY)));
+    }
+
+    @Test
+    public void shouldNotSplitShardsThatCannotBeCounted() {
+        String unknownShardQuery = FleetIndexQueries.withThingNamePrefix(FleetIndexQueries.MATCH_ALL_QUERY, "d");
+        when(mockIotClient.getStatistics(any(GetStatisticsRequest.class))).thenAnswer(invocation -> {
+            String queryString = invocation.<GetStatisticsRequest>getArgument(0).queryString();
+
+            if (queryString.equals(unknownShardQuery)) {
+                throw ThrottlingException.builder().statusCode(429).message("throttled").build();
+            }
+
+            int count = queryString.equals(FleetIndexQueries.MATCH_ALL_QUERY) ? 100000 : 1;
+
+            return GetStatisticsResponse.builder().statistics(Statistics.builder().count(count).build()).build();
+        });
+        when(mockIotClient.searchIndex(any(SearchIndexRequest.class))).thenAnswer(invocation -> SearchIndexResponse.builder()
+                .things(ThingDocument.builder().thingName(invocation.<SearchIndexRequest>getArgument(0).queryString()).build())
+                .build());
+
+        List<String> shardQueries = iotHelper.searchThings(ResultsFilters.NO_FILTER).map(ThingDocument::thingName).toList();
+
+        assertThat(shardQueries.size(), is(39));
+        assertThat(shardQueries.contains(unknownShardQuery), is(true));
+    }
+
+    @Test
+    public void shouldStopSearchingWhenAShardFails() {
+        when(mockIotClient.getStatistics(any(GetStatisticsRequest.class))).thenAnswer(invocation -> {
+            String queryString = invocation.<GetStatisticsRequest>getArgument(0).queryString();
+            int count = queryString.equals(FleetIndexQueries.MATCH_ALL_QUERY) ? 100000 : 1;
+
+            return GetStatisticsResponse.builder().statistics(Statistics.builder().count(count).build()).build();
+        });
+        when(mockIotClient.searchIndex(any(SearchIndexRequest.class))).thenThrow(InvalidQueryException.builder().message("invalid").build());
+
+        // The failure is rethrown to the reader instead of leaving the other shards running
+        assertThrows(RuntimeException.class, () -> iotHelper.searchThings(ResultsFilters.NO_FILTER).toList());
+    }
+
+    @Test
+    public void shouldNotWaitForTheTransportWhenPublishingAsynchronously() {
+        PublishTransport boundTransport = mock(PublishTransport.class);
+        PublishTransport mqttTransport = mock(PublishTransport.class);
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        when(mqttTransport.publish(any(TopicName.class), any(Qos.class), any(byte[].class))).thenReturn(pending);
+        iotHelper.publishTransport = boundTransport;
+
+        TopicName topicName = ImmutableTopicName.builder().name("topic").build();
+        CompletableFuture<Void> first = iotHelper.publishAsync(topicName, Qos.ONE, SdkBytes.fromUtf8String("1"), mqttTransport);
+        CompletableFuture<Void> second = iotHelper.publishAsync(topicName, Qos.ONE, SdkBytes.fromUtf8String("2"), mqttTransport);
+
+        // Both messages are in flight at the same time on the transport that was passed in
+        assertThat(first.isDone() || second.isDone(), is(false));
+        verify(mqttTransport, times(2)).publish(any(TopicName.class), any(Qos.class), any(byte[].class));
+        verifyNoInteractions(boundTransport);
+
+        pending.complete(null);
+        assertThat(first.isDone() && second.isDone(), is(true));
+    }
+
+    @Test
+    public void shouldRethrowTheTransportFailureWhenPublishing() {
+        PublishTransport mqttTransport = mock(PublishTransport.class);
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("disconnected"));
+        when(mqttTransport.publish(any(TopicName.class), any(Qos.class), any(byte[].class))).thenReturn(failed);
+
+        TopicName topicName = ImmutableTopicName.builder().name("topic").build();
+
+        assertThrows(IllegalStateException.class, () -> iotHelper.publish(topicName, Qos.ONE, SdkBytes.fromUtf8String("1"), mqttTransport));
+    }
+
+    @Test
+    public void shouldPushSupportedConditionsIntoListThings() {
+        when(mockIotClient.listThings(any(ListThingsRequest.class))).thenReturn(ListThingsResponse.builder()
+                .things(ThingAttribute.builder().thingName("thing").thingTypeName("sensor").attributes(Collections.singletonMap("model", "x100")).build())
+                .build());
+
+        List<String> thingNames = iotHelper.getThings(ResultsFilters.of(
+                        ResultsFilters.equalTo("thingTypeName", "sensor"),
+                        ResultsFilters.prefix("attributes.model", "x")))
+                .map(ThingAttribute::thingName)
+                .toList();
+
+        assertThat(thingNames, is(List.of("thing")));
+        verify(mockIotClient).listThings(ListThingsRequest.builder()
+                .thingTypeName("sensor")
+                .attributeName("model")
+                .attributeValue("x")
+                .usePrefixAttributeValue(true)
+                .build());
+    }
+
+    @Test
+    public void shouldFilterUnsupportedConditionsOnTheClient() {
+        when(mockIotClient.listThings(any(ListThingsRequest.class))).thenReturn(ListThingsResponse.builder()
+                .things(thingAttribute("sensor-1", "x100", "eu"),
+                        thingAttribute("sensor-2", "y200", "eu"),
+                        thingAttribute("sensor-3", "z999", "eu"))
+                .build());
+
+        // ListThings can't filter a thing type by prefix, an attribute by several values, or more than one attribute
+        List<String> thingNames = iotHelper.getThings(ResultsFilters.of(
+                        ResultsFilters.prefix("thingTypeName", "sen"),
+                        ResultsFilters.in("attributes.model", "x100", "z300"),
+                        ResultsFilters.equalTo("attributes.region", "eu")))
+                .map(ThingAttribute::thingName)
+                .toList();
+
+        assertThat(thingNames, is(List.of("sensor-1")));
+        // Only the single-valued attribute condition is sent, everything else is evaluated on the results
+        verify(mockIotClient).listThings(ListThingsRequest.builder()
+                .attributeName("region")
+                .attributeValue("eu")
+                .usePrefixAttributeValue(false)
+                .build());
+    }
+
+    private ThingAttribute thingAttribute(String thingName, String model, String region) {
+        java.util.Map<String, String> attributes = new java.util.HashMap<>();
+        attributes.put("model", model);
+        attributes.put("region", region);
+
+        return ThingAttribute.builder()
+                .thingName(thingName)
+                .thingTypeName("sensor")
+                .attributes(attributes)
+                .build();
+    }
+
+    private CertificateArn certificateArn(String certificateId) {
+        return ImmutableCertificateArn.builder().arn(CERTIFICATE_ARN_PREFIX + certificateId).build();
+    }
+
+    private void stubAttachments(java.util.List<String> thingNames, java.util.List<String> policyNames) {
+        when(mockIotClient.listPrincipalThings(any(ListPrincipalThingsRequest.class))).thenReturn(ListPrincipalThingsResponse.builder().things(thingNames).build());
+        when(mockIotClient.listAttachedPolicies(any(ListAttachedPoliciesRequest.class))).thenReturn(ListAttachedPoliciesResponse.builder()
+                .policies(List.ofAll(policyNames).map(policyName -> Policy.builder().policyName(policyName).build()).toJavaList())
+                .build());
+    }
+}
@@ -0,0 +1,139 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.*;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.iot.IotClient;
+import software.amazon.awssdk.services.iot.model.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BasicIotRegistryGraphTest {
+    private static final String ARN_PREFIX = "arn:aws:iot:us-east-1:999999999999:";
+    private static final String ATTACHED_CERTIFICATE_ARN = ARN_PREFIX + "cert/attached";
+    private static final String UNATTACHED_CERTIFICATE_ARN = ARN_PREFIX + "cert/unattached";
+    private static final String ROLE_ARN = "arn:aws:iam::999999999999:role/role";
+    private static final String POLICY_DOCUMENT = "{\"Version\":\"2012-10-17\",\"Statement\":[{\"Effect\":\"Allow\",\"Action\":\"iot:AssumeRoleWithCertificate\",\"Resource\":\"" + ARN_PREFIX + "rolealias/alias\"}]}";
+    private final ThingName thingName = ImmutableThingName.builder().name("thing").build();
+    private final RoleAlias roleAlias = ImmutableRoleAlias.builder().name("alias").build();
+    private BasicIotRegistryGraph iotRegistryGraph;
+    private IotClient mockIotClient;
+
+    @Before
+    public void setup() {
+        mockIotClient = mock(IotClient.class);
+
+        iotRegistryGraph = new BasicIotRegistryGraph();
+        iotRegistryGraph.iotClient = mockIotClient;
+        iotRegistryGraph.clock = Clock.fixed(Instant.parse("2020-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+        when(mockIotClient.listCertificates(any(ListCertificatesRequest.class))).thenReturn(ListCertificatesResponse.builder()
+                .certificates(certificate(ATTACHED_CERTIFICATE_ARN), certificate(UNATTACHED_CERTIFICATE_ARN))
+                .build());
+        when(mockIotClient.listThings(any(ListThingsRequest.class))).thenReturn(ListThingsResponse.builder()
+                .things(ThingAttribute.builder().thingName("thing").build())
+                .build());
+        when(mockIotClient.listPolicies(any(ListPoliciesRequest.class))).thenReturn(ListPoliciesResponse.builder()
+                .policies(Policy.builder().policyName("policy").build())
+                .build());
+        when(mockIotClient.listRoleAliases(any(ListRoleAliasesRequest.class))).thenReturn(ListRoleAliasesResponse.builder().roleAliases("alias").build());
+        when(mockIotClient.listThingPrincipals(any(ListThingPrincipalsRequest.class))).thenReturn(ListThingPrincipalsResponse.builder().principals(ATTACHED_CERTIFICATE_ARN).build());
+        when(mockIotClient.listTargetsForPolicy(any(ListTargetsForPolicyRequest.class))).thenReturn(ListTargetsForPolicyResponse.builder().targets(ATTACHED_CERTIFICATE_ARN).build());
+        when(mockIotClient.getPolicy(any(GetPolicyRequest.class))).thenReturn(GetPolicyResponse.builder().policyName("policy").policyDocument(POLICY_DOCUMENT).build());
+        when(mockIotClient.describeRoleAlias(any(DescribeRoleAliasRequest.class))).thenReturn(DescribeRoleAliasResponse.builder()
+                .roleAliasDescription(RoleAliasDescription.builder().roleAlias("alias").roleArn(ROLE_ARN).build())
+                .build());
+    }
+
+    @Test
+    public void shouldReplaceForwardEdgesAndTheirReverseIndex() {
+        BasicIotRegistryGraph.Edges edges = BasicIotRegistryGraph.Edges.EMPTY
+                .replaceForward("thing1", List.of("certificate1", "certificate2"))
+                .replaceForward("thing2", List.of("certificate2"));
+
+        assertThat(edges.reverse("certificate2").sorted().toList(), is(List.of("thing1", "thing2")));
+
+        BasicIotRegistryGraph.Edges replaced = edges.replaceForward("thing1", List.of("certificate3"));
+
+        assertThat(replaced.forward("thing1").toList(), is(List.of("certificate3")));
+        assertThat(replaced.reverse("certificate1").isEmpty(), is(true));
+        assertThat(replaced.reverse("certificate2").toList(), is(List.of("thing2")));
+        assertThat(replaced.reverse("certificate3").toList(), is(List.of("thing1")));
+        // The original edges are not modified
+        assertThat(edges.forward("thing1").size(), is(2));
+    }
+
+    @Test
+    public void shouldReplaceReverseEdgesAndTheirForwardIndex() {
+        BasicIotRegistryGraph.Edges edges = BasicIotRegistryGraph.Edges.EMPTY
+                .replaceForward("thing1", List.of("certificate1"))
+                .replaceForward("thing2", List.of("certificate1", "certificate2"));
+
+        BasicIotRegistryGraph.Edges replaced = edges.replaceReverse("certificate1", List.of("thing3"));
+
+        assertThat(replaced.reverse("certificate1").toList(), is(List.of("thing3")));
+        assertThat(replaced.forward("thing1").isEmpty(), is(true));
+        assertThat(replaced.forward("thing2").toList(), is(List.of("certificate2")));
+        assertThat(replaced.forward("thing3").toList(), is(List.of("certificate1")));
+        assertThat(replaced.replaceReverse("certificate2", Stream.empty()).forward("thing2").isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldFollowAttachmentsInBothDirections() {
+        CertificateArn attachedCertificateArn = ImmutableCertificateArn.builder().arn(ATTACHED_CERTIFICATE_ARN).build();
+
+        assertThat(iotRegistryGraph.getAttachedThings(attachedCertificateArn).toList(), is(List.of(thingName)));
+        assertThat(iotRegistryGraph.getAttachedPolicies(attachedCertificateArn).map(PolicyName::getName).toList(), is(List.of("policy")));
+        assertThat(iotRegistryGraph.getRoleAliases(thingName).toList(), is(List.of(roleAlias)));
+        assertThat(iotRegistryGraph.getThingsThatCanAssume(roleAlias).toList(), is(List.of(thingName)));
+        assertThat(iotRegistryGraph.getRoleArn(roleAlias).get(), is(ROLE_ARN));
+        assertThat(iotRegistryGraph.getUnattachedCertificates().map(Certificate::certificateArn).toList(), is(List.of(UNATTACHED_CERTIFICATE_ARN)));
+    }
+
+    @Test
+    public void shouldSkipPoliciesThatWereDeletedWhileBuilding() {
+        when(mockIotClient.getPolicy(any(GetPolicyRequest.class))).thenThrow(ResourceNotFoundException.builder().message("policy").build());
+
+        assertThat(iotRegistryGraph.getRoleAliases(thingName).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldFailTheBuildWhenAPolicyCanNotBeRead() {
+        when(mockIotClient.getPolicy(any(GetPolicyRequest.class))).thenThrow(ThrottlingException.builder().statusCode(429).message("throttled").build());
+
+        // A throttled call must not look like a policy without role aliases
+        assertThrows(RuntimeException.class, () -> iotRegistryGraph.getRoleAliases(thingName).toList());
+    }
+
+    @Test
+    public void shouldRebuildTheGraphOnceItIsOlderThanTheMaxAge() {
+        iotRegistryGraph.maxAge = Duration.ofMinutes(5);
+
+        iotRegistryGraph.getUnattachedCertificates().toList();
+        iotRegistryGraph.clock = Clock.offset(iotRegistryGraph.clock, Duration.ofMinutes(4));
+        iotRegistryGraph.getUnattachedCertificates().toList();
+        verify(mockIotClient, times(1)).listCertificates(any(ListCertificatesRequest.class));
+
+        iotRegistryGraph.clock = Clock.offset(iotRegistryGraph.clock, Duration.ofMinutes(2));
+        iotRegistryGraph.getUnattachedCertificates().toList();
+        verify(mockIotClient, times(2)).listCertificates(any(ListCertificatesRequest.class));
+    }
+
+    private Certificate certificate(String certificateArn) {
+        return Certificate.builder()
+                .certificateArn(certificateArn)
+                .certificateId(certificateArn.substring(certificateArn.lastIndexOf('/') + 1))
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.ImmutableKeyPairSpec;
+import com.awslabs.iot.data.KeyPairAlgorithm;
+import com.awslabs.iot.data.KeyPairPoolMetrics;
+import com.awslabs.iot.data.KeyPairSpec;
+import com.awslabs.resultsiterator.implementations.BasicCryptoContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BasicKeyPairPoolTest {
+    private final KeyPairSpec keyPairSpec = ImmutableKeyPairSpec.builder().algorithm(KeyPairAlgorithm.EC).keySize(256).build();
+    private BasicKeyPairPool keyPairPool;
+
+    @Before
+    public void setup() {
+        keyPairPool = new BasicKeyPairPool();
+        keyPairPool.cryptoContext = new BasicCryptoContext();
+    }
+
+    @Test
+    public void shouldServeWarmedUpKeyPairsFromThePool() throws InterruptedException {
+        keyPairPool.warmUp(keyPairSpec);
+
+        // Wait for the background threads to generate at least one key pair
+        for (int attempt = 0; (attempt < 100) && (getMetrics().getAvailable() == 0); attempt++) {
+            Thread.sleep(100);
+        }
+
+        KeyPair first = keyPairPool.take(keyPairSpec);
+        KeyPair second = keyPairPool.take(keyPairSpec);
+
+        assertThat(first.getPublic(), is(not(second.getPublic())));
+        assertThat(getMetrics().getHits() >= 1, is(true));
+    }
+
+    @Test
+    public void shouldOnlyRefillSpecsThatWereWarmedUp() {
+        AtomicInteger backgroundTasks = new AtomicInteger();
+        keyPairPool.executor = task -> backgroundTasks.incrementAndGet();
+
+        keyPairPool.take(keyPairSpec);
+        keyPairPool.take(keyPairSpec);
+
+        // Both key pairs were generated on the caller's thread and nothing was started in the background
+        assertThat(getMetrics().getMisses(), is(2L));
+        assertThat(getMetrics().getGenerated(), is(2L));
+        assertThat(backgroundTasks.get(), is(0));
+
+        keyPairPool.warmUp(keyPairSpec);
+        assertThat(backgroundTasks.get() > 0, is(true));
+    }
+
+    private KeyPairPoolMetrics getMetrics() {
+        return keyPairPool.getMetrics().get(keyPairSpec).get();
+    }
+}
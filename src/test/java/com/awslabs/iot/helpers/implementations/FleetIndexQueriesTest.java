@@ -0,0 +1,49 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.resultsiterator.implementations.ResultsFilters;
+import io.vavr.collection.List;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class FleetIndexQueriesTest {
+    @Test
+    public void shouldMatchEverythingWithoutConditions() {
+        assertThat(FleetIndexQueries.toQueryString(ResultsFilters.NO_FILTER), is(FleetIndexQueries.MATCH_ALL_QUERY));
+    }
+
+    @Test
+    public void shouldJoinConditions() {
+        String queryString = FleetIndexQueries.toQueryString(ResultsFilters.of(
+                ResultsFilters.equalTo("connectivity.connected", "true"),
+                ResultsFilters.prefix("attributes.model", "x1"),
+                ResultsFilters.in("thingName", "a", "b:c")));
+
+        assertThat(queryString, is("connectivity.connected:true AND attributes.model:x1* AND thingName:(a OR b\\:c)"));
+    }
+
+    @Test
+    public void shouldShardByTheFirstCharacterOfTheThingName() {
+        List<String> shardQueries = FleetIndexQueries.shardByThingNamePrefix(FleetIndexQueries.MATCH_ALL_QUERY);
+
+        assertThat(shardQueries.head(), is("(thingName:*) AND thingName:(a* OR A*)"));
+        assertThat(shardQueries.last(), is("(thingName:*) AND thingName:(-*)"));
+        assertThat(shardQueries.size(), is(39));
+    }
+
+    @Test
+    public void shouldParenthesizeQueriesWithAlternatives() {
+        assertThat(FleetIndexQueries.withThingNamePrefix("thingTypeName:a OR thingTypeName:b", "x"),
+                is("(thingTypeName:a OR thingTypeName:b) AND thingName:(x* OR X*)"));
+    }
+
+    @Test
+    public void shouldMatchEveryCaseVariantOfLongerPrefixes() {
+        assertThat(FleetIndexQueries.withThingNamePrefix(FleetIndexQueries.MATCH_ALL_QUERY, "d1:"),
+                is("(thingName:*) AND thingName:(d1\\:* OR D1\\:*)"));
+        assertThat(FleetIndexQueries.withThingName(FleetIndexQueries.MATCH_ALL_QUERY, "ab"),
+                is("(thingName:*) AND thingName:(ab OR aB OR Ab OR AB)"));
+        assertThat(FleetIndexQueries.getChildThingNamePrefixes("ab").head(), is("aba"));
+    }
+}
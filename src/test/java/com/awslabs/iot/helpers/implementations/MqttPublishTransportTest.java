@@ -0,0 +1,130 @@
+package com.awslabs.iot.helpers.implementations;
+
+import com.awslabs.iot.data.ClientId;
+import com.awslabs.iot.data.ImmutableClientId;
+import com.awslabs.iot.data.ImmutableTopicName;
+import com.awslabs.iot.data.Qos;
+import com.awslabs.iot.data.TopicName;
+import io.moquette.BrokerConstants;
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Try;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+// Runs against an embedded broker, no AWS account or certificates are needed
+public class MqttPublishTransportTest {
+    private static final int MESSAGE_COUNT = 500;
+    private final TopicName topicName = ImmutableTopicName.builder().name("telemetry/test").build();
+    private Path storeDirectory;
+    private int port;
+    private Server server;
+    private MqttPublishTransport mqttPublishTransport;
+
+    @Before
+    public void setup() throws Exception {
+        storeDirectory = Files.createTempDirectory("moquette");
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+
+        startServer();
+
+        mqttPublishTransport = new MqttPublishTransport(getServerUri(), getRandomClientId());
+    }
+
+    @After
+    public void tearDown() {
+        mqttPublishTransport.close();
+        server.stopServer();
+    }
+
+    @Test
+    public void shouldDeliverPipelinedQos1Messages() throws Exception {
+        CountDownLatch received = new CountDownLatch(MESSAGE_COUNT);
+
+        MqttClient subscriber = new MqttClient(getServerUri(), getRandomClientId().getClientId(), new MemoryPersistence());
+        subscriber.connect();
+        subscriber.subscribe(topicName.getName(), 1, (topic, message) -> received.countDown());
+
+        List<CompletableFuture<Void>> futures = Stream.range(0, MESSAGE_COUNT)
+                .map(index -> mqttPublishTransport.publish(topicName, Qos.ONE, String.valueOf(index).getBytes(StandardCharsets.UTF_8)))
+                .toList();
+
+        futures.forEach(CompletableFuture::join);
+
+        assertThat(received.await(30, TimeUnit.SECONDS), is(true));
+
+        subscriber.disconnect();
+        subscriber.close();
+    }
+
+    @Test
+    public void shouldDeliverBufferedMessagesAfterReconnecting() throws Exception {
+        server.stopServer();
+
+        CompletableFuture<Void> future = mqttPublishTransport.publish(topicName, Qos.ONE, "buffered".getBytes(StandardCharsets.UTF_8));
+
+        // Nothing can acknowledge the message while the broker is down
+        Thread.sleep(500);
+        assertThat(future.isDone(), is(false));
+
+        startServer();
+
+        future.get(60, TimeUnit.SECONDS);
+        assertThat(future.isCompletedExceptionally(), is(false));
+    }
+
+    @Test
+    public void shouldFailBufferedMessagesWhenClosed() {
+        server.stopServer();
+
+        CompletableFuture<Void> future = mqttPublishTransport.publish(topicName, Qos.ONE, "buffered".getBytes(StandardCharsets.UTF_8));
+
+        mqttPublishTransport.close();
+
+        assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        // Restarted only so tearDown can stop it again
+        startServer();
+    }
+
+    private void startServer() {
+        Properties properties = new Properties();
+        properties.setProperty(BrokerConstants.HOST_PROPERTY_NAME, "127.0.0.1");
+        properties.setProperty(BrokerConstants.PORT_PROPERTY_NAME, String.valueOf(port));
+        properties.setProperty(BrokerConstants.ALLOW_ANONYMOUS_PROPERTY_NAME, "true");
+        properties.setProperty(BrokerConstants.PERSISTENT_STORE_PROPERTY_NAME, storeDirectory.resolve("store.h2").toString());
+
+        server = new Server();
+        Try.run(() -> server.startServer(new MemoryConfig(properties))).get();
+    }
+
+    private String getServerUri() {
+        return String.join("", "tcp://127.0.0.1:", String.valueOf(port));
+    }
+
+    private ClientId getRandomClientId() {
+        return ImmutableClientId.builder().clientId(UUID.randomUUID().toString()).build();
+    }
+}
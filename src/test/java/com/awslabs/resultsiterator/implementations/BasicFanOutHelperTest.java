@@ -0,0 +1,114 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.iam.data.AccountId;
+import com.awslabs.iam.data.ImmutableAccountId;
+import com.awslabs.iam.data.ImmutableRoleArn;
+import com.awslabs.iam.data.RoleArn;
+import com.google.common.util.concurrent.RateLimiter;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.iot.IotClient;
+import software.amazon.awssdk.services.iot.IotClientBuilder;
+import software.amazon.awssdk.services.sts.StsClient;
+
+import java.time.Duration;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class BasicFanOutHelperTest {
+    private final List<Region> regions = List.of(Region.US_EAST_1, Region.EU_WEST_1);
+    private BasicFanOutHelper fanOutHelper;
+    private IotClientBuilder mockIotClientBuilder;
+    private IotClient mockIotClient;
+
+    @Before
+    public void setup() {
+        mockIotClient = mock(IotClient.class);
+        // Every builder method returns the builder so it can be chained like a real one
+        mockIotClientBuilder = mock(IotClientBuilder.class, RETURNS_SELF);
+        when(mockIotClientBuilder.build()).thenReturn(mockIotClient);
+
+        fanOutHelper = new BasicFanOutHelper();
+        fanOutHelper.stsClientProvider = () -> mock(StsClient.class);
+    }
+
+    @Test
+    public void shouldTagResultsWithTheirRegionAndCloseEachClient() {
+        List<Tuple2<Region, String>> results = fanOutHelper.listAcrossRegions(regions, () -> mockIotClientBuilder, (IotClient iotClient) -> Stream.of("thing"))
+                .toList();
+
+        assertThat(results.toSet(), is(regions.map(region -> Tuple.of(region, "thing")).toSet()));
+        verify(mockIotClient, times(2)).close();
+    }
+
+    @Test
+    public void shouldKeepTheCallersOverrideConfiguration() {
+        ExecutionInterceptor callerInterceptor = new ExecutionInterceptor() {
+        };
+        ClientOverrideConfiguration clientOverrideConfiguration = ClientOverrideConfiguration.builder()
+                .apiCallTimeout(Duration.ofSeconds(5))
+                .addExecutionInterceptor(callerInterceptor)
+                .build();
+
+        fanOutHelper.listAcrossRegions(List.of(Region.US_EAST_1), () -> mockIotClientBuilder, (IotClient iotClient) -> Stream.of("thing"), 5, clientOverrideConfiguration)
+                .toList();
+
+        ArgumentCaptor<ClientOverrideConfiguration> captor = ArgumentCaptor.forClass(ClientOverrideConfiguration.class);
+        verify(mockIotClientBuilder).overrideConfiguration(captor.capture());
+
+        ClientOverrideConfiguration appliedConfiguration = captor.getValue();
+        assertThat(appliedConfiguration.apiCallTimeout().get(), is(Duration.ofSeconds(5)));
+        assertThat(appliedConfiguration.executionInterceptors(), hasItem(callerInterceptor));
+        assertThat(Stream.ofAll(appliedConfiguration.executionInterceptors()).exists(RateLimitingExecutionInterceptor.class::isInstance), is(true));
+    }
+
+    @Test
+    public void shouldShareOneLimiterPerRegionAtTheRequestedRate() {
+        fanOutHelper.listAcrossRegions(List.of(Region.US_EAST_1), () -> mockIotClientBuilder, (IotClient iotClient) -> Stream.of("thing"), 1).toList();
+        fanOutHelper.listAcrossRegions(List.of(Region.US_EAST_1), () -> mockIotClientBuilder, (IotClient iotClient) -> Stream.of("thing"), 100).toList();
+
+        // Fan-outs at different rates can't get separate limiters and add up to more than one rate
+        assertThat(Stream.ofAll(fanOutHelper.rateLimiters.values()).map(RateLimiter::getRate).toList(), is(List.of(100.0)));
+    }
+
+    @Test
+    public void shouldReuseAccountClientsAcrossCalls() {
+        RoleArn roleArn = ImmutableRoleArn.builder().arn("arn:aws:iam::123456789012:role/reader").build();
+        AccountId accountId = ImmutableAccountId.builder().id("123456789012").build();
+
+        List<Tuple2<AccountId, String>> first = fanOutHelper.listAcrossAccounts(List.of(roleArn), () -> mockIotClientBuilder, (IotClient iotClient) -> Stream.of("thing")).toList();
+        List<Tuple2<AccountId, String>> second = fanOutHelper.listAcrossAccounts(List.of(roleArn), () -> mockIotClientBuilder, (IotClient iotClient) -> Stream.of("thing")).toList();
+
+        assertThat(first, is(List.of(Tuple.of(accountId, "thing"))));
+        assertThat(second, is(first));
+        verify(mockIotClientBuilder, times(1)).build();
+        verify(mockIotClient, never()).close();
+    }
+
+    @Test
+    public void shouldCloseEvictedAccountClientsOnceTheirListingsFinish() {
+        RoleArn roleArn = ImmutableRoleArn.builder().arn("arn:aws:iam::123456789012:role/reader").build();
+
+        fanOutHelper.listAcrossAccounts(List.of(roleArn), () -> mockIotClientBuilder, (IotClient iotClient) -> {
+                    // Evicting a client that is in use must not close it under the listing
+                    fanOutHelper.accountClients.invalidateAll();
+                    verify(mockIotClient, never()).close();
+
+                    return Stream.of("thing");
+                })
+                .toList();
+
+        verify(mockIotClient, times(1)).close();
+    }
+}
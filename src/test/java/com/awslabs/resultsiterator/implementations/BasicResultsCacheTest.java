@@ -0,0 +1,155 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.general.helpers.implementations.BasicSnapshotHelper;
+import com.google.common.base.Ticker;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import software.amazon.awssdk.services.greengrass.GreengrassClient;
+import software.amazon.awssdk.services.greengrass.model.ListGroupsRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BasicResultsCacheTest {
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger listings = new AtomicInteger();
+    private final AtomicReference<String> value = new AtomicReference<>("value");
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private BasicResultsCache resultsCache;
+    private GreengrassClient mockGreengrassClient;
+
+    @Before
+    public void setup() {
+        resultsCache = new BasicResultsCache();
+        resultsCache.ttl = Duration.ofSeconds(60);
+        resultsCache.ticker = new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        };
+
+        mockGreengrassClient = mock(GreengrassClient.class);
+        when(mockGreengrassClient.serviceName()).thenReturn("greengrass");
+    }
+
+    @Test
+    public void shouldServeRepeatedListingsFromTheCache() {
+        assertThat(list(ListGroupsRequest.builder().build()), is(List.of("value")));
+        assertThat(list(ListGroupsRequest.builder().build()), is(List.of("value")));
+
+        assertThat(listings.get(), is(1));
+    }
+
+    @Test
+    public void shouldCacheDifferentRequestParametersSeparately() {
+        list(ListGroupsRequest.builder().build());
+        list(ListGroupsRequest.builder().maxResults("10").build());
+
+        assertThat(listings.get(), is(2));
+    }
+
+    @Test
+    public void shouldListAgainAfterTheTtlExpires() {
+        list(ListGroupsRequest.builder().build());
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        list(ListGroupsRequest.builder().build());
+        assertThat(listings.get(), is(1));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        list(ListGroupsRequest.builder().build());
+        assertThat(listings.get(), is(2));
+    }
+
+    @Test
+    public void shouldNotCacheWhenTheTtlIsZero() {
+        resultsCache.ttl = Duration.ZERO;
+
+        list(ListGroupsRequest.builder().build());
+        list(ListGroupsRequest.builder().build());
+
+        assertThat(listings.get(), is(2));
+    }
+
+    @Test
+    public void shouldReuseThePersistentCacheInLaterProcesses() throws Exception {
+        enablePersistentCacheOnly(resultsCache);
+        assertThat(list(ListGroupsRequest.builder().build()), is(List.of("value")));
+
+        // A new instance stands in for a later process
+        resultsCache = new BasicResultsCache();
+        enablePersistentCacheOnly(resultsCache);
+        value.set("changed");
+
+        assertThat(list(ListGroupsRequest.builder().build()), is(List.of("value")));
+        assertThat(listings.get(), is(1));
+    }
+
+    @Test
+    public void shouldNotRevalidateFreshPersistentEntriesByDefault() throws Exception {
+        enablePersistentCacheOnly(resultsCache);
+
+        list(ListGroupsRequest.builder().build());
+        list(ListGroupsRequest.builder().build());
+
+        // Revalidations are registered before they are started, so none was started
+        assertThat(resultsCache.revalidating.isEmpty(), is(true));
+        assertThat(listings.get(), is(1));
+    }
+
+    @Test
+    public void shouldServeStalePersistentEntriesWhileTheyAreRevalidated() throws Exception {
+        enablePersistentCacheOnly(resultsCache);
+        list(ListGroupsRequest.builder().build());
+
+        try (java.util.stream.Stream<Path> paths = Files.list(temporaryFolder.getRoot().toPath())) {
+            FileTime twoHoursAgo = FileTime.from(Instant.now().minus(2, ChronoUnit.HOURS));
+            paths.forEach(path -> Try.run(() -> Files.setLastModifiedTime(path, twoHoursAgo)).get());
+        }
+
+        value.set("changed");
+        assertThat(list(ListGroupsRequest.builder().build()), is(List.of("value")));
+
+        // Wait for the background revalidation to replace the entry
+        for (int attempt = 0; (attempt < 100) && !resultsCache.revalidating.isEmpty(); attempt++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(listings.get(), is(2));
+        assertThat(list(ListGroupsRequest.builder().build()), is(List.of("changed")));
+    }
+
+    private void enablePersistentCacheOnly(BasicResultsCache basicResultsCache) {
+        basicResultsCache.ttl = Duration.ZERO;
+        basicResultsCache.persistentDirectoryOption = Option.of(temporaryFolder.getRoot().toPath());
+        basicResultsCache.snapshotHelper = new BasicSnapshotHelper();
+    }
+
+    private List<String> list(ListGroupsRequest listGroupsRequest) {
+        return resultsCache.get(mockGreengrassClient, listGroupsRequest, String.class, () -> {
+            listings.incrementAndGet();
+            return Stream.of(value.get());
+        }).toList();
+    }
+}
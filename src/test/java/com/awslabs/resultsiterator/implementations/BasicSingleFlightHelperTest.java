@@ -0,0 +1,134 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.resultsiterator.interfaces.SingleFlightHelper;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.iot.IotClient;
+import software.amazon.awssdk.services.iot.model.DescribeThingRequest;
+import software.amazon.awssdk.services.iot.model.DescribeThingResponse;
+import software.amazon.awssdk.services.iot.model.ResourceNotFoundException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BasicSingleFlightHelperTest {
+    private static final String THING_NAME = "thing";
+    private final DescribeThingRequest describeThingRequest = DescribeThingRequest.builder().thingName(THING_NAME).build();
+    private final DescribeThingResponse describeThingResponse = DescribeThingResponse.builder().thingName(THING_NAME).build();
+    private SingleFlightHelper singleFlightHelper;
+    private IotClient mockIotClient;
+
+    @Before
+    public void setup() {
+        singleFlightHelper = new BasicSingleFlightHelper();
+        mockIotClient = mock(IotClient.class);
+    }
+
+    @Test
+    public void shouldShareInFlightRequest() throws InterruptedException {
+        CountDownLatch inFlightLatch = new CountDownLatch(1);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        when(mockIotClient.describeThing(any(DescribeThingRequest.class))).thenAnswer(invocation -> {
+            inFlightLatch.countDown();
+            releaseLatch.await();
+            return describeThingResponse;
+        });
+
+        IotClient iotClient = singleFlightHelper.wrap(IotClient.class, mockIotClient);
+
+        AtomicReference<DescribeThingResponse> firstResponse = new AtomicReference<>();
+        AtomicReference<DescribeThingResponse> secondResponse = new AtomicReference<>();
+
+        Thread firstThread = new Thread(() -> firstResponse.set(iotClient.describeThing(describeThingRequest)));
+        firstThread.start();
+        inFlightLatch.await();
+
+        Thread secondThread = new Thread(() -> secondResponse.set(iotClient.describeThing(describeThingRequest)));
+        secondThread.start();
+
+        // The second caller waits either on the in-flight request or, if it wasn't shared, in the mock on the latch
+        awaitWaiting(secondThread);
+        releaseLatch.countDown();
+
+        firstThread.join();
+        secondThread.join();
+
+        verify(mockIotClient, times(1)).describeThing(any(DescribeThingRequest.class));
+        assertThat(firstResponse.get(), is(sameInstance(describeThingResponse)));
+        assertThat(secondResponse.get(), is(sameInstance(describeThingResponse)));
+    }
+
+    @Test
+    public void shouldNotCacheCompletedRequests() {
+        when(mockIotClient.describeThing(any(DescribeThingRequest.class))).thenReturn(describeThingResponse);
+
+        IotClient iotClient = singleFlightHelper.wrap(IotClient.class, mockIotClient);
+
+        iotClient.describeThing(describeThingRequest);
+        iotClient.describeThing(describeThingRequest);
+
+        verify(mockIotClient, times(2)).describeThing(any(DescribeThingRequest.class));
+    }
+
+    @Test
+    public void shouldRethrowOriginalException() {
+        when(mockIotClient.describeThing(any(DescribeThingRequest.class))).thenThrow(ResourceNotFoundException.builder().message(THING_NAME).build());
+
+        IotClient iotClient = singleFlightHelper.wrap(IotClient.class, mockIotClient);
+
+        assertThrows(ResourceNotFoundException.class, () -> iotClient.describeThing(describeThingRequest));
+    }
+
+    @Test
+    public void shouldBeEqualToItself() {
+        IotClient iotClient = singleFlightHelper.wrap(IotClient.class, mockIotClient);
+
+        assertThat(iotClient.equals(iotClient), is(true));
+        assertThat(iotClient.hashCode(), is(iotClient.hashCode()));
+    }
+
+    @Test
+    public void shouldShareInFlightRequestsMadeWithBuilderConsumers() throws InterruptedException {
+        CountDownLatch inFlightLatch = new CountDownLatch(1);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+
+        when(mockIotClient.describeThing(any(DescribeThingRequest.class))).thenAnswer(invocation -> {
+            inFlightLatch.countDown();
+            releaseLatch.await();
+            return describeThingResponse;
+        });
+
+        IotClient iotClient = singleFlightHelper.wrap(IotClient.class, mockIotClient);
+
+        Thread firstThread = new Thread(() -> iotClient.describeThing(builder -> builder.thingName(THING_NAME)));
+        firstThread.start();
+        inFlightLatch.await();
+
+        Thread secondThread = new Thread(() -> iotClient.describeThing(describeThingRequest));
+        secondThread.start();
+
+        awaitWaiting(secondThread);
+        releaseLatch.countDown();
+
+        firstThread.join();
+        secondThread.join();
+
+        verify(mockIotClient, times(1)).describeThing(describeThingRequest);
+    }
+
+    private void awaitWaiting(Thread thread) throws InterruptedException {
+        for (int attempt = 0; (attempt < 1000) && (thread.getState() != Thread.State.WAITING); attempt++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(thread.getState(), is(Thread.State.WAITING));
+    }
+}
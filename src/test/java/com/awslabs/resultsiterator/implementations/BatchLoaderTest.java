@@ -0,0 +1,138 @@
+package com.awslabs.resultsiterator.implementations;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BatchLoaderTest {
+    private static final Duration WINDOW = Duration.ofMillis(10);
+    private final ArgumentCaptor<Runnable> scheduledFlush = ArgumentCaptor.forClass(Runnable.class);
+    private Function<List<String>, Map<String, Integer>> mockBatchFunction;
+    private ScheduledExecutorService mockScheduler;
+    private BatchLoader<String, Integer> batchLoader;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        mockBatchFunction = mock(Function.class);
+        when(mockBatchFunction.apply(any())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+                .filter(key -> !key.equals("missing"))
+                .toMap(key -> key, String::length));
+
+        mockScheduler = mock(ScheduledExecutorService.class);
+        doReturn(mock(ScheduledFuture.class)).when(mockScheduler).schedule(scheduledFlush.capture(), anyLong(), any(TimeUnit.class));
+
+        batchLoader = new BatchLoader<>(mockBatchFunction, 3, WINDOW);
+        // Run scheduled flushes and batches only when the test says so, on the test thread
+        batchLoader.scheduler = mockScheduler;
+        batchLoader.executor = Runnable::run;
+    }
+
+    @Test
+    public void shouldSendAFullBatchWithoutWaitingForTheWindow() throws Exception {
+        CompletableFuture<Option<Integer>> a = batchLoader.load("a");
+        CompletableFuture<Option<Integer>> bb = batchLoader.load("bb");
+        assertThat(a.isDone(), is(false));
+
+        CompletableFuture<Option<Integer>> ccc = batchLoader.load("ccc");
+
+        verify(mockBatchFunction, times(1)).apply(List.of("a", "bb", "ccc"));
+        assertThat(a.get(), is(Option.of(1)));
+        assertThat(bb.get(), is(Option.of(2)));
+        assertThat(ccc.get(), is(Option.of(3)));
+        // Only the first key of the batch starts the window
+        verify(mockScheduler, times(1)).schedule(any(Runnable.class), eq(WINDOW.toMillis()), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldSendAPartialBatchWhenTheWindowCloses() throws Exception {
+        CompletableFuture<Option<Integer>> a = batchLoader.load("a");
+        CompletableFuture<Option<Integer>> missing = batchLoader.load("missing");
+        verifyNoInteractions(mockBatchFunction);
+
+        scheduledFlush.getValue().run();
+
+        verify(mockBatchFunction, times(1)).apply(List.of("a", "missing"));
+        assertThat(a.get(), is(Option.of(1)));
+        assertThat(missing.get(), is(Option.none()));
+    }
+
+    @Test
+    public void shouldStartANewWindowAfterABatchIsSent() {
+        batchLoader.load("a");
+        scheduledFlush.getValue().run();
+        batchLoader.load("b");
+
+        verify(mockScheduler, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        verify(mockBatchFunction, times(1)).apply(List.of("a"));
+        verify(mockBatchFunction, never()).apply(List.of("b"));
+
+        scheduledFlush.getValue().run();
+        verify(mockBatchFunction, times(1)).apply(List.of("b"));
+    }
+
+    @Test
+    public void shouldShareTheFutureOfAKeyThatIsAlreadyPending() {
+        CompletableFuture<Option<Integer>> first = batchLoader.load("a");
+        CompletableFuture<Option<Integer>> second = batchLoader.load("a");
+
+        assertThat(second, is(sameInstance(first)));
+        scheduledFlush.getValue().run();
+        verify(mockBatchFunction, times(1)).apply(List.of("a"));
+    }
+
+    @Test
+    public void shouldFailEveryFutureInTheBatchWhenTheBatchCallFails() {
+        RuntimeException failure = new RuntimeException("batch failed");
+        doThrow(failure).when(mockBatchFunction).apply(any());
+
+        CompletableFuture<Option<Integer>> a = batchLoader.load("a");
+        CompletableFuture<Option<Integer>> b = batchLoader.load("b");
+        batchLoader.flush();
+
+        assertThat(assertThrows(ExecutionException.class, a::get).getCause(), is(sameInstance(failure)));
+        assertThat(assertThrows(ExecutionException.class, b::get).getCause(), is(sameInstance(failure)));
+    }
+
+    @Test
+    public void shouldNotCallTheBatchFunctionForAnEmptyFlush() {
+        batchLoader.flush();
+
+        verifyNoInteractions(mockBatchFunction);
+    }
+
+    @Test
+    public void shouldOnlyFailTheBatchThatFailed() throws Exception {
+        doThrow(new RuntimeException("batch failed")).when(mockBatchFunction).apply(List.of("a"));
+        doReturn(HashMap.of("b", 1)).when(mockBatchFunction).apply(List.of("b"));
+
+        CompletableFuture<Option<Integer>> a = batchLoader.load("a");
+        batchLoader.flush();
+        CompletableFuture<Option<Integer>> b = batchLoader.load("b");
+        batchLoader.flush();
+
+        assertThat(a.isCompletedExceptionally(), is(true));
+        assertThat(b.get(), is(Option.of(1)));
+    }
+}
@@ -0,0 +1,132 @@
+package com.awslabs.resultsiterator.implementations;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.iot.model.ThingAttribute;
+
+import java.util.BitSet;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+public class ColumnarResultsTest {
+    private static final String ARN_PREFIX = "arn:aws:iot:us-east-1:999999999999:thing/";
+    private ColumnarResults<ThingAttribute> columnarResults;
+
+    @Before
+    public void setup() {
+        columnarResults = ColumnarResults.<ThingAttribute>builder()
+                .prefixColumn("arn", ThingAttribute::thingArn)
+                .dictionaryColumn("type", ThingAttribute::thingTypeName)
+                .longColumn("version", ThingAttribute::version)
+                .build();
+
+        columnarResults.addAll(Stream.of(
+                thing("sensor-1", "sensor", 1L),
+                thing("sensor-2", "sensor", 2L),
+                thing("gateway-1", "gateway", null),
+                // Thing names are mostly ASCII but the suffixes must round trip any UTF-8
+                thing("cam\u00e9ra-1", null, 4L)).iterator());
+    }
+
+    @Test
+    public void shouldReadBackEveryColumn() {
+        assertThat(columnarResults.size(), is(4));
+        assertThat(columnarResults.strings("arn", columnarResults.all()).toList(), is(List.of(ARN_PREFIX + "sensor-1", ARN_PREFIX + "sensor-2", ARN_PREFIX + "gateway-1", ARN_PREFIX + "cam\u00e9ra-1")));
+        assertThat(columnarResults.getString("type", 2), is("gateway"));
+        assertThat(columnarResults.getString("type", 3), is(nullValue()));
+        assertThat(columnarResults.getLong("version", 1), is(2L));
+        assertThat(columnarResults.getLong("version", 2), is(nullValue()));
+    }
+
+    @Test
+    public void shouldKeepNullsInPrefixColumns() {
+        columnarResults.add(ThingAttribute.builder().thingName("no-arn").build());
+        columnarResults.add(thing("after-null", "sensor", 5L));
+
+        assertThat(columnarResults.getString("arn", 4), is(nullValue()));
+        assertThat(columnarResults.getString("arn", 5), is(ARN_PREFIX + "after-null"));
+        // Null values never match a filter
+        assertThat(columnarResults.filter("arn", value -> true).cardinality(), is(5));
+    }
+
+    @Test
+    public void shouldCombineFilters() {
+        BitSet sensors = columnarResults.filterEquals("type", "sensor");
+        BitSet recent = columnarResults.filterLong("version", version -> version >= 2);
+
+        BitSet recentSensors = (BitSet) sensors.clone();
+        recentSensors.and(recent);
+        assertThat(columnarResults.rows(recentSensors).toList(), is(List.of(1)));
+
+        BitSet sensorsOrRecent = (BitSet) sensors.clone();
+        sensorsOrRecent.or(recent);
+        assertThat(columnarResults.rows(sensorsOrRecent).toList(), is(List.of(0, 1, 3)));
+
+        assertThat(columnarResults.longs("version", columnarResults.filter("arn", arn -> arn.endsWith("-1"))).toList(), is(List.of(1L, null, 4L)));
+    }
+
+    @Test
+    public void shouldNotAddAnyColumnWhenAnExtractorFails() {
+        ColumnarResults<ThingAttribute> failingResults = ColumnarResults.<ThingAttribute>builder()
+                .prefixColumn("arn", ThingAttribute::thingArn)
+                .longColumn("version", thingAttribute -> {
+                    if (thingAttribute.version() == null) {
+                        throw new IllegalArgumentException("No version");
+                    }
+
+                    return thingAttribute.version();
+                })
+                .build();
+
+        failingResults.add(thing("first", "sensor", 1L));
+        assertThrows(IllegalArgumentException.class, () -> failingResults.add(thing("broken", "sensor", null)));
+        failingResults.add(thing("second", "sensor", 2L));
+
+        // The failed row left no value behind, so later rows still line up across columns
+        assertThat(failingResults.size(), is(2));
+        assertThat(failingResults.getString("arn", 1), is(ARN_PREFIX + "second"));
+        assertThat(failingResults.getLong("version", 1), is(2L));
+    }
+
+    @Test
+    public void shouldGrowPastTheInitialCapacity() {
+        ColumnarResults<ThingAttribute> largeResults = ColumnarResults.<ThingAttribute>builder()
+                .prefixColumn("arn", ThingAttribute::thingArn)
+                .longColumn("version", ThingAttribute::version)
+                .build();
+
+        largeResults.addAll(Stream.range(0, 5000).map(index -> thing("thing-" + index, null, (long) index)).iterator());
+
+        assertThat(largeResults.size(), is(5000));
+        assertThat(largeResults.getString("arn", 4999), is(ARN_PREFIX + "thing-4999"));
+        assertThat(largeResults.getLong("version", 4999), is(4999L));
+    }
+
+    @Test
+    public void shouldRejectUnknownColumnsAndRows() {
+        assertThrows(IllegalArgumentException.class, () -> columnarResults.getString("version", 0));
+        assertThrows(IllegalArgumentException.class, () -> columnarResults.getLong("missing", 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> columnarResults.getString("arn", 4));
+    }
+
+    @Test
+    public void shouldRejectDuplicateColumnNames() {
+        assertThrows(IllegalArgumentException.class, () -> ColumnarResults.<ThingAttribute>builder()
+                .prefixColumn("name", ThingAttribute::thingArn)
+                .dictionaryColumn("name", ThingAttribute::thingName));
+    }
+
+    private ThingAttribute thing(String thingName, String thingTypeName, Long version) {
+        return ThingAttribute.builder()
+                .thingName(thingName)
+                .thingArn(ARN_PREFIX + thingName)
+                .thingTypeName(thingTypeName)
+                .version(version)
+                .build();
+    }
+}
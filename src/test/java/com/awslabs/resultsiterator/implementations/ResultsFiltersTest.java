@@ -0,0 +1,111 @@
+package com.awslabs.resultsiterator.implementations;
+
+import com.awslabs.resultsiterator.data.FilterCondition;
+import com.awslabs.resultsiterator.data.FilterOperator;
+import com.awslabs.resultsiterator.data.ResultsFilter;
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Option;
+import org.junit.Test;
+import software.amazon.awssdk.services.cloudformation.model.StackStatus;
+import software.amazon.awssdk.services.cloudformation.model.StackSummary;
+import software.amazon.awssdk.services.iot.model.ThingAttribute;
+
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ResultsFiltersTest {
+    private final Stream<ThingAttribute> things = Stream.of(
+            thing("sensor-1", "sensor", "x100"),
+            thing("sensor-2", "sensor", "y200"),
+            thing("gateway-1", "gateway", "x200"),
+            ThingAttribute.builder().thingName("untyped").build());
+
+    @Test
+    public void shouldMatchEqualValues() {
+        assertThat(thingNames(ResultsFilters.of(ResultsFilters.equalTo("thingTypeName", "sensor"))), is(List.of("sensor-1", "sensor-2")));
+    }
+
+    @Test
+    public void shouldMatchPrefixes() {
+        assertThat(thingNames(ResultsFilters.of(ResultsFilters.prefix("thingName", "sensor-"))), is(List.of("sensor-1", "sensor-2")));
+        // An empty prefix matches every value that is present
+        assertThat(thingNames(ResultsFilters.of(ResultsFilters.prefix("thingTypeName", ""))), is(List.of("sensor-1", "sensor-2", "gateway-1")));
+    }
+
+    @Test
+    public void shouldMatchAnyOfTheValues() {
+        assertThat(thingNames(ResultsFilters.of(ResultsFilters.in("thingName", "gateway-1", "untyped", "missing"))), is(List.of("gateway-1", "untyped")));
+    }
+
+    @Test
+    public void shouldRequireEveryCondition() {
+        ResultsFilter resultsFilter = ResultsFilters.of(
+                ResultsFilters.equalTo("thingTypeName", "sensor"),
+                ResultsFilters.prefix("attributes.model", "x"));
+
+        assertThat(thingNames(resultsFilter), is(List.of("sensor-1")));
+    }
+
+    @Test
+    public void shouldFollowMapKeysInFieldPaths() {
+        assertThat(thingNames(ResultsFilters.of(ResultsFilters.in("attributes.model", "x200", "y200"))), is(List.of("sensor-2", "gateway-1")));
+    }
+
+    @Test
+    public void shouldNeverMatchMissingFields() {
+        assertThat(thingNames(ResultsFilters.of(ResultsFilters.prefix("attributes.model", ""))), is(List.of("sensor-1", "sensor-2", "gateway-1")));
+        assertThat(thingNames(ResultsFilters.of(ResultsFilters.equalTo("noSuchField", "sensor"))).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldMatchFieldNamesCaseInsensitively() {
+        // CloudFormation member names are pascal case
+        StackSummary stackSummary = StackSummary.builder().stackName("stack").stackStatus(StackStatus.CREATE_COMPLETE).build();
+
+        assertThat(ResultsFilters.<StackSummary>toPredicate(ResultsFilters.of(ResultsFilters.equalTo("stackStatus", "CREATE_COMPLETE"))).test(stackSummary), is(true));
+        assertThat(ResultsFilters.<StackSummary>toPredicate(ResultsFilters.of(ResultsFilters.equalTo("STACKNAME", "stack"))).test(stackSummary), is(true));
+    }
+
+    @Test
+    public void shouldPassEverythingThroughWithoutConditions() {
+        assertThat(ResultsFilters.apply(ResultsFilters.NO_FILTER, things).size(), is(4));
+    }
+
+    @Test
+    public void shouldOnlyFindConditionsWithTheRequestedOperators() {
+        ResultsFilter resultsFilter = ResultsFilters.of(
+                ResultsFilters.prefix("thingTypeName", "sen"),
+                ResultsFilters.in("thingName", "sensor-1"));
+
+        // A prefix can't be pushed into a request that only supports exact matches
+        assertThat(ResultsFilters.find(resultsFilter, "thingTypeName", FilterOperator.EQUALS).isEmpty(), is(true));
+        assertThat(ResultsFilters.find(resultsFilter, "THINGNAME", FilterOperator.EQUALS, FilterOperator.IN).isDefined(), is(true));
+    }
+
+    @Test
+    public void shouldOnlyRemoveTheConditionThatWasPushedDown() {
+        FilterCondition pushedDown = ResultsFilters.equalTo("thingTypeName", "sensor");
+        FilterCondition remaining = ResultsFilters.prefix("thingName", "sensor-");
+        ResultsFilter resultsFilter = ResultsFilters.of(pushedDown, remaining);
+
+        assertThat(ResultsFilters.without(resultsFilter, Option.of(pushedDown)).getConditions(), is(List.of(remaining)));
+        assertThat(ResultsFilters.without(resultsFilter, Option.none()).getConditions(), is(List.of(pushedDown, remaining)));
+    }
+
+    private List<String> thingNames(ResultsFilter resultsFilter) {
+        return ResultsFilters.apply(resultsFilter, things)
+                .map(ThingAttribute::thingName)
+                .toList();
+    }
+
+    private ThingAttribute thing(String thingName, String thingTypeName, String model) {
+        return ThingAttribute.builder()
+                .thingName(thingName)
+                .thingTypeName(thingTypeName)
+                .attributes(Collections.singletonMap("model", model))
+                .build();
+    }
+}
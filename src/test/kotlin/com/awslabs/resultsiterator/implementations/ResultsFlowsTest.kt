@@ -0,0 +1,54 @@
+package com.awslabs.resultsiterator.implementations
+
+import io.vavr.collection.Stream
+import kotlinx.coroutines.flow.asFlow
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.atomic.AtomicInteger
+
+class ResultsFlowsTest {
+    @Test
+    fun shouldStartANewListingForEachCollection() {
+        val listings = AtomicInteger()
+        val flow = blockingListingFlow {
+            listings.incrementAndGet()
+            Stream.of(1, 2, 3)
+        }
+
+        runBlocking {
+            assertThat(flow.toList(), `is`(listOf(1, 2, 3)))
+            assertThat(flow.toList(), `is`(listOf(1, 2, 3)))
+        }
+
+        assertThat(listings.get(), `is`(2))
+    }
+
+    @Test
+    fun shouldFollowNextTokensUntilTheLastPage() {
+        // Each "request" is a page number, each page holds two values
+        val flow = asyncListingFlow(
+            0,
+            { page -> CompletableFuture.completedFuture(page) },
+            { page -> listOf(page * 2, page * 2 + 1) },
+            { _, page -> if (page < 2) page + 1 else null }
+        )
+
+        runBlocking {
+            assertThat(flow.toList(), `is`(listOf(0, 1, 2, 3, 4, 5)))
+        }
+    }
+
+    @Test
+    fun shouldMergeConcurrentListings() {
+        val flow = listOf(0, 1, 2).asFlow()
+            .listConcurrently(2) { page -> listOf(page * 10, page * 10 + 1).asFlow() }
+
+        runBlocking {
+            assertThat(flow.toList().sorted(), `is`(listOf(0, 1, 10, 11, 20, 21)))
+        }
+    }
+}